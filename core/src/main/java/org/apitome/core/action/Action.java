@@ -16,22 +16,32 @@
 
 package org.apitome.core.action;
 
+import org.apitome.core.error.CallRejectedException;
+import org.apitome.core.error.DeadlineExceededException;
 import org.apitome.core.error.ServiceException;
 import org.apitome.core.logging.LogFields;
 import org.apitome.core.logging.LoggerAware;
+import org.apitome.core.logging.OpLogEvent;
 import org.apitome.core.model.Context;
+import org.apitome.core.model.Deadline;
 import org.apitome.core.service.Command;
 import org.apitome.core.service.Service;
 import org.apitome.core.service.ServiceKey;
 import org.apitome.core.service.ServiceManager;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.net.SocketTimeoutException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.function.BiFunction;
 
 import static org.apitome.core.logging.OpLogEvent.ACTION_COMPLETED;
 import static org.apitome.core.logging.OpLogEvent.ACTION_EXCEPTION;
+import static org.apitome.core.logging.OpLogEvent.ACTION_REJECTED;
 import static org.apitome.core.logging.OpLogEvent.ACTION_TIMEOUT;
 import static org.apitome.core.logging.OpLogKey.ACTION_CLASS;
 import static org.apitome.core.logging.OpLogKey.ELAPSED_TIME;
@@ -69,6 +79,8 @@ public interface Action<Request, Result> extends LoggerAware {
 
     /**
      * Perform the action, overriding the action's timeout handling and its exception handling
+     * <p/>
+     * An action is not invoked once the deadline of the context has passed; the timeout handler is called instead.
      *
      * @param request a request
      * @param context the context for this action
@@ -79,30 +91,21 @@ public interface Action<Request, Result> extends LoggerAware {
     default Result perform(Request request, Context context, ExceptionHandler timeoutHandler, ExceptionHandler exceptionHandler) {
         long start = System.currentTimeMillis();
         try {
+            checkDeadline(context);
             Result result = invoke(request, context);
-            long elapsedTime = System.currentTimeMillis() - start;
-            LogFields logFields = LogFields.builder(ACTION_COMPLETED)
-                    .addKeyValue(ACTION_CLASS, this.getClass().getSimpleName())
-                    .addKeyValue(ELAPSED_TIME, elapsedTime)
-                    .build();
-            logInfo(logFields);
+            logInfo(actionLogFields(ACTION_COMPLETED, start));
             return result;
-        } catch (TimeoutException | SocketTimeoutException te) {
-            long elapsedTime = System.currentTimeMillis() - start;
-            LogFields logFields = LogFields.builder(ACTION_TIMEOUT)
-                    .addKeyValue(ACTION_CLASS, this.getClass().getSimpleName())
-                    .addKeyValue(ELAPSED_TIME, elapsedTime)
-                    .build();
-            logError(logFields, te);
-            timeoutHandler.handleException(this, te);
+        } catch (TimeoutException | SocketTimeoutException | DeadlineExceededException te) {
+            // An abandoned task, such as a hedged attempt that lost, is interrupted, its failure is not an error
+            if (!ActionTask.isAbandoned()) {
+                logError(actionLogFields(ACTION_TIMEOUT, start), te);
+                timeoutHandler.handleException(this, te);
+            }
         } catch (Exception e) {
-            long elapsedTime = System.currentTimeMillis() - start;
-            LogFields logFields = LogFields.builder(ACTION_EXCEPTION)
-                    .addKeyValue(ACTION_CLASS, this.getClass().getSimpleName())
-                    .addKeyValue(ELAPSED_TIME, elapsedTime)
-                    .build();
-            logError(logFields, e);
-            exceptionHandler.handleException(this, e);
+            if (!ActionTask.isAbandoned()) {
+                logException(e, start);
+                exceptionHandler.handleException(this, e);
+            }
         }
         return null;
     }
@@ -132,6 +135,9 @@ public interface Action<Request, Result> extends LoggerAware {
 
     /**
      * Perform the action asynchronously, overriding the action's timeout handling and its exception handling
+     * <p/>
+     * When the context has a deadline, the action is cancelled if it has not completed by then and the timeout
+     * handler is called.
      *
      * @param request a request
      * @param context the context for this action
@@ -141,10 +147,156 @@ public interface Action<Request, Result> extends LoggerAware {
      */
     default CompletableFuture<Result> performAsync(Request request, Context context, ExceptionHandler timeoutHandler,
                                                    ExceptionHandler exceptionHandler) {
+        return performAsync(request, context, timeoutHandler, exceptionHandler, getServiceManager().getExecutor());
+    }
+
+    /**
+     * Perform the action asynchronously on an executor, overriding the action's timeout handling and its exception
+     * handling
+     * <p/>
+     * See {@link #performAsync(Object, Context, ExceptionHandler, ExceptionHandler)}. A task rejected by the
+     * executor fails the returned future with the rejection.
+     *
+     * @param request a request
+     * @param context the context for this action
+     * @param timeoutHandler an exception handler that overrides the action's timeout handling
+     * @param exceptionHandler an exception handler that overrides the action's general error handling
+     * @param executor the executor to perform the action on
+     * @return a CompletableFuture for the action's result
+     */
+    default CompletableFuture<Result> performAsync(Request request, Context context, ExceptionHandler timeoutHandler,
+                                                   ExceptionHandler exceptionHandler, Executor executor) {
+        Deadline deadline = Deadline.of(context);
+        if (deadline != null && deadline.isExpired()) {
+            // Fail in place, without taking an executor thread
+            return CompletableFuture.supplyAsync(() -> perform(request, context, timeoutHandler, exceptionHandler),
+                    Runnable::run);
+        }
         BiFunction<Action<Request, Result>, Request,Result> actionFunction = (action, req) -> action.perform(req,
                 context, timeoutHandler, exceptionHandler);
         ServiceManager serviceManager = getServiceManager();
-        return serviceManager.invokeAction(this, request, actionFunction);
+        CompletableFuture<Result> future = serviceManager.invokeAction(executor, this, request, actionFunction);
+        return timeoutAtDeadline(future, context, timeoutHandler);
+    }
+
+    /**
+     * Time out the future of an asynchronous invocation of this action at the deadline of the context
+     * <p/>
+     * A timeout is logged and passed to the timeout handler, as in {@link #perform(Object, Context,
+     * ExceptionHandler, ExceptionHandler)}; a handler that returns normally completes the returned future with null.
+     * Cancelling the returned future cancels the invocation.
+     *
+     * @param future the future of the invocation, completed exceptionally when the deadline is reached
+     * @param context the context for this action
+     * @param timeoutHandler an exception handler that overrides the action's timeout handling
+     * @return a CompletableFuture for the action's result, or the future itself if the context has no deadline
+     */
+    default CompletableFuture<Result> timeoutAtDeadline(CompletableFuture<Result> future, Context context,
+                                                        ExceptionHandler timeoutHandler) {
+        Deadline deadline = Deadline.of(context);
+        if (deadline == null) {
+            return future;
+        }
+        long start = System.currentTimeMillis();
+        // Timing out the future cancels the invocation if it is still running
+        CompletableFuture<Result> handled = future.orTimeout(Math.max(deadline.remainingNanos(), 0),
+                TimeUnit.NANOSECONDS).exceptionally(e -> {
+            Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+            if (!(cause instanceof TimeoutException)) {
+                throw e instanceof CompletionException ? (CompletionException) e : new CompletionException(e);
+            }
+            logError(actionLogFields(ACTION_TIMEOUT, start), (TimeoutException) cause);
+            timeoutHandler.handleException(this, (TimeoutException) cause);
+            return null;
+        });
+        handled.whenComplete((result, e) -> {
+            if (handled.isCancelled()) {
+                future.cancel(true);
+            }
+        });
+        return handled;
+    }
+
+    /**
+     * Perform the action asynchronously, hedging it according to a {@link HedgePolicy}
+     *
+     * @param request a request
+     * @param context the context for this action
+     * @param hedgePolicy the hedge policy of this action
+     * @return a CompletableFuture for the action's result
+     */
+    default CompletableFuture<Result> performAsync(Request request, Context context, HedgePolicy hedgePolicy) {
+        return hedgePolicy.perform(this, request, context, getTimeoutHandler(), getExceptionHandler());
+    }
+
+    /**
+     * Perform the action reactively
+     *
+     * @param request a request
+     * @param context the context for this action
+     * @return a Mono for the action's result
+     */
+    default Mono<Result> performReactive(Request request, Context context) {
+        return performReactive(request, context, getTimeoutHandler());
+    }
+
+    /**
+     * Perform the action reactively, overriding the action's timeout handling
+     *
+     * @param request a request
+     * @param context the context for this action
+     * @param timeoutHandler an exception handler that overrides the action's timeout handling
+     * @return a Mono for the action's result
+     */
+    default Mono<Result> performReactive(Request request, Context context, ExceptionHandler timeoutHandler) {
+        return performReactive(request, context, timeoutHandler, getExceptionHandler());
+    }
+
+    /**
+     * Perform the action reactively, overriding the action's timeout handling and its exception handling
+     * <p/>
+     * Timing, logging and error handling are the same as in {@link #perform(Object, Context, ExceptionHandler,
+     * ExceptionHandler)}: an exception thrown by a handler is signalled as an error and a handler that returns
+     * normally leaves the Mono empty. The elapsed time is measured from subscription. A deadline in the context
+     * times the invocation out, cancelling it.
+     *
+     * @param request a request
+     * @param context the context for this action
+     * @param timeoutHandler an exception handler that overrides the action's timeout handling
+     * @param exceptionHandler an exception handler that overrides the action's general error handling
+     * @return a Mono for the action's result
+     */
+    default Mono<Result> performReactive(Request request, Context context, ExceptionHandler timeoutHandler,
+                                         ExceptionHandler exceptionHandler) {
+        return Mono.defer(() -> {
+            long start = System.currentTimeMillis();
+            Deadline deadline = Deadline.of(context);
+            Mono<Result> invocation;
+            if (deadline == null) {
+                invocation = invokeReactive(request, context);
+            } else if (deadline.isExpired()) {
+                invocation = Mono.error(deadlineExceeded());
+            } else {
+                invocation = invokeReactive(request, context).timeout(deadline.remaining());
+            }
+            return invocation
+                    .doOnSuccess(result -> logInfo(actionLogFields(ACTION_COMPLETED, start)))
+                    .onErrorResume(Exception.class, e -> {
+                        boolean timeout = e instanceof TimeoutException || e instanceof SocketTimeoutException
+                                || e instanceof DeadlineExceededException;
+                        if (timeout) {
+                            logError(actionLogFields(ACTION_TIMEOUT, start), e);
+                        } else {
+                            logException(e, start);
+                        }
+                        try {
+                            (timeout ? timeoutHandler : exceptionHandler).handleException(this, e);
+                        } catch (RuntimeException re) {
+                            return Mono.error(re);
+                        }
+                        return Mono.empty();
+                    });
+        });
     }
 
     /**
@@ -158,6 +310,23 @@ public interface Action<Request, Result> extends LoggerAware {
      */
     Result invoke(Request request, Context context) throws TimeoutException, SocketTimeoutException;
 
+    /**
+     * Invoke the action's main logic reactively
+     * <p/>
+     * Actions calling non-blocking clients, such as the {@code WebClient} of a
+     * {@link org.apitome.core.service.BaseService}, override this method so that no thread is held while the call
+     * is in flight. The default implementation runs {@link #invoke(Object, Context)} on the
+     * {@link ServiceManager} executor.
+     *
+     * @param request a request
+     * @param context the context for this action
+     * @return a Mono for the action's result
+     */
+    default Mono<Result> invokeReactive(Request request, Context context) {
+        return Mono.fromCallable(() -> invoke(request, context))
+                .subscribeOn(Schedulers.fromExecutor(getServiceManager().getExecutor()));
+    }
+
     /**
      * Invoke a service identified by the service key
      *
@@ -171,6 +340,48 @@ public interface Action<Request, Result> extends LoggerAware {
         return getServiceManager().invokeService(serviceKey, command);
     }
 
+    /**
+     * Invoke a service identified by the service key, unless the deadline of the context has passed
+     *
+     * @param serviceKey the service key that identifies the service to be invoked
+     * @param context the context for this action
+     * @param command the command to be executed by the service
+     * @return the value returned by the command
+     * @param <S> the type of the service
+     * @param <R> the type of the command's returned value
+     */
+    default <S extends Service, R> R invokeService(ServiceKey<S> serviceKey, Context context, Command<S, R> command) {
+        return getServiceManager().invokeService(serviceKey, context, command);
+    }
+
+    /**
+     * Invoke a service identified by the service key without blocking
+     *
+     * @param serviceKey the service key that identifies the service to be invoked
+     * @param command the command to be executed by the service, returning a Mono
+     * @return the Mono returned by the command
+     * @param <S> the type of the service
+     * @param <R> the type of the command's emitted value
+     */
+    default <S extends Service, R> Mono<R> invokeServiceReactive(ServiceKey<S> serviceKey, Command<S, Mono<R>> command) {
+        return getServiceManager().invokeServiceReactive(serviceKey, command);
+    }
+
+    /**
+     * Invoke a service identified by the service key without blocking, bounded by the deadline of the context
+     *
+     * @param serviceKey the service key that identifies the service to be invoked
+     * @param context the context for this action
+     * @param command the command to be executed by the service, returning a Mono
+     * @return the Mono returned by the command
+     * @param <S> the type of the service
+     * @param <R> the type of the command's emitted value
+     */
+    default <S extends Service, R> Mono<R> invokeServiceReactive(ServiceKey<S> serviceKey, Context context,
+                                                                 Command<S, Mono<R>> command) {
+        return getServiceManager().invokeServiceReactive(serviceKey, context, command);
+    }
+
     /**
      * Handle an exception and transform it into a {@link ServiceException}
      * <p/>
@@ -226,4 +437,31 @@ public interface Action<Request, Result> extends LoggerAware {
             throw handleException(e);
         };
     }
-}
\ No newline at end of file
+
+    private LogFields actionLogFields(OpLogEvent event, long start) {
+        return LogFields.builder(event)
+                .addKeyValue(ACTION_CLASS, this.getClass().getSimpleName())
+                .addKeyValue(ELAPSED_TIME, System.currentTimeMillis() - start)
+                .build();
+    }
+
+    private void logException(Exception e, long start) {
+        if (e instanceof CallRejectedException) {
+            // Calls rejected by a circuit breaker, bulkhead or limiter are expected under load and have no stack trace
+            logInfo(actionLogFields(ACTION_REJECTED, start));
+        } else {
+            logError(actionLogFields(ACTION_EXCEPTION, start), e);
+        }
+    }
+
+    private void checkDeadline(Context context) {
+        Deadline deadline = Deadline.of(context);
+        if (deadline != null && deadline.isExpired()) {
+            throw deadlineExceeded();
+        }
+    }
+
+    private DeadlineExceededException deadlineExceeded() {
+        return new DeadlineExceededException("Deadline passed before " + this.getClass().getSimpleName() + " started");
+    }
+}
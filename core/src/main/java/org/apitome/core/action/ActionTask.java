@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.action;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+
+/**
+ * ActionTask performs an action asynchronously and can be abandoned by cancelling it.
+ * <p/>
+ * Cancelling a running task marks it as abandoned before interrupting its thread, so that the failure caused by the
+ * interrupt is neither logged nor passed to the exception handlers: whoever cancelled the task, such as a deadline
+ * or a hedge that won, has already reported the outcome of the call.
+ *
+ * @param <Result> the result type of the action
+ */
+public class ActionTask<Result> extends FutureTask<Result> {
+
+    private static final ThreadLocal<ActionTask<?>> CURRENT_TASK = new ThreadLocal<>();
+
+    public ActionTask(Callable<Result> callable) {
+        super(callable);
+    }
+
+    @Override
+    public void run() {
+        ActionTask<?> previous = CURRENT_TASK.get();
+        CURRENT_TASK.set(this);
+        try {
+            super.run();
+        } finally {
+            if (previous == null) {
+                CURRENT_TASK.remove();
+            } else {
+                CURRENT_TASK.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Return true if the current thread is running a task that has been abandoned
+     *
+     * @return true if the current task has been cancelled
+     */
+    static boolean isAbandoned() {
+        ActionTask<?> task = CURRENT_TASK.get();
+        return task != null && task.isCancelled();
+    }
+}
@@ -0,0 +1,404 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.action;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.apitome.core.error.ServiceException;
+import org.apitome.core.metrics.ActionMetrics;
+import org.apitome.core.metrics.CacheResult;
+import org.apitome.core.logging.LogFields;
+import org.apitome.core.model.Context;
+import org.apitome.core.model.Deadline;
+import org.apitome.core.model.TypeKey;
+import org.apitome.core.service.ServiceManager;
+import org.slf4j.Logger;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/**
+ * CachedAction adds a result cache to an action.
+ * <p/>
+ * Results are cached under a key projected from the request and the context, so requests that project to the
+ * same key share a result. A result is fresh for the time-to-live after it was loaded. Once it is older than the
+ * refresh interval, the next hit returns it and reloads it in the background on the {@link ServiceManager}
+ * executor, without the deadline of the request that triggered the refresh; if the executor rejects the refresh,
+ * the hit still returns the cached result. When loading fails, a result that expired less than the maximum staleness ago is served instead
+ * of applying the exception handlers. Concurrent loads of a key are single-flight: one caller performs the
+ * action and the others wait for its result. Null results are not cached.
+ * <p/>
+ * The cache is opt-in per {@link ActionKey}: register a CachedAction wrapping the action under its key.
+ *
+ * @param <Request> the request type serviced by the API
+ * @param <Result> the result type returned by the action
+ */
+public class CachedAction<Request, Result> implements Action<Request, Result> {
+
+    public static final long DEFAULT_MAXIMUM_SIZE = 10_000;
+
+    private static final ExceptionHandler TIMEOUT_CAPTURE = (a, e) -> {throw new LoadException(e, true);};
+
+    private static final ExceptionHandler EXCEPTION_CAPTURE = (a, e) -> {throw new LoadException(e, false);};
+
+    private final ActionKey<Result> actionKey;
+
+    private final Action<Request, Result> action;
+
+    private final BiFunction<? super Request, ? super Context, ?> keyFunction;
+
+    private final long timeToLiveNanos;
+
+    private final long refreshAfterNanos;
+
+    private final long maxStaleNanos;
+
+    private final Ticker ticker;
+
+    private final Cache<Object, CachedResult<Result>> resultCache;
+
+    private final ConcurrentHashMap<Object, CompletableFuture<CachedResult<Result>>> loadMap;
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder staleCount = new LongAdder();
+
+    private volatile ActionMetrics metrics = ActionMetrics.NOOP;
+
+    public CachedAction(ActionKey<Result> actionKey, Action<Request, Result> action,
+                        BiFunction<? super Request, ? super Context, ?> keyFunction, Duration timeToLive) {
+        this(actionKey, action, keyFunction, timeToLive, timeToLive, Duration.ZERO);
+    }
+
+    public CachedAction(ActionKey<Result> actionKey, Action<Request, Result> action,
+                        BiFunction<? super Request, ? super Context, ?> keyFunction, Duration timeToLive,
+                        Duration refreshAfter, Duration maxStale) {
+        this(actionKey, action, keyFunction, timeToLive, refreshAfter, maxStale, DEFAULT_MAXIMUM_SIZE,
+                Ticker.systemTicker());
+    }
+
+    public CachedAction(ActionKey<Result> actionKey, Action<Request, Result> action,
+                        BiFunction<? super Request, ? super Context, ?> keyFunction, Duration timeToLive,
+                        Duration refreshAfter, Duration maxStale, long maximumSize, Ticker ticker) {
+        if (timeToLive.isZero() || timeToLive.isNegative()) {
+            throw new IllegalArgumentException("Time to live must be positive: " + timeToLive);
+        }
+        if (refreshAfter.isNegative() || refreshAfter.compareTo(timeToLive) > 0) {
+            throw new IllegalArgumentException("Refresh interval must be between zero and the time to live: "
+                    + refreshAfter);
+        }
+        if (maxStale.isNegative()) {
+            throw new IllegalArgumentException("Maximum staleness must not be negative: " + maxStale);
+        }
+        this.actionKey = actionKey;
+        this.action = action;
+        this.keyFunction = keyFunction;
+        this.timeToLiveNanos = timeToLive.toNanos();
+        this.refreshAfterNanos = refreshAfter.toNanos();
+        this.maxStaleNanos = maxStale.toNanos();
+        this.ticker = ticker;
+        this.resultCache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive.plus(maxStale))
+                .ticker(ticker)
+                .build();
+        this.loadMap = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public Result perform(Request request, Context context, ExceptionHandler timeoutHandler,
+                          ExceptionHandler exceptionHandler) {
+        Object key = keyFunction.apply(request, context);
+        CachedResult<Result> fresh = getFresh(key, request, context);
+        if (fresh != null) {
+            return fresh.value;
+        }
+        return loadOrStale(key, request, context, timeoutHandler, exceptionHandler);
+    }
+
+    @Override
+    public Mono<Result> performReactive(Request request, Context context, ExceptionHandler timeoutHandler,
+                                        ExceptionHandler exceptionHandler) {
+        return Mono.defer(() -> {
+            Object key = keyFunction.apply(request, context);
+            CachedResult<Result> fresh = getFresh(key, request, context);
+            if (fresh != null) {
+                return Mono.justOrEmpty(fresh.value);
+            }
+            return Mono.fromCallable(() -> loadOrStale(key, request, context, timeoutHandler, exceptionHandler))
+                    .subscribeOn(Schedulers.fromExecutor(getServiceManager().getExecutor()));
+        });
+    }
+
+    /**
+     * Remove the cached result for a request
+     *
+     * @param request a request
+     * @param context the context the request is performed with
+     */
+    public void invalidate(Request request, Context context) {
+        resultCache.invalidate(keyFunction.apply(request, context));
+    }
+
+    /**
+     * Remove every cached result
+     */
+    public void invalidateAll() {
+        resultCache.invalidateAll();
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getStaleCount() {
+        return staleCount.sum();
+    }
+
+    public long getSize() {
+        return resultCache.estimatedSize();
+    }
+
+    public ActionMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(ActionMetrics metrics) {
+        this.metrics = metrics;
+        metrics.registerGauge("cache.size", actionKey.getName(), this::getSize);
+    }
+
+    @Override
+    public Result invoke(Request request, Context context) throws TimeoutException, SocketTimeoutException {
+        return action.invoke(request, context);
+    }
+
+    @Override
+    public Mono<Result> invokeReactive(Request request, Context context) {
+        return action.invokeReactive(request, context);
+    }
+
+    @Override
+    public ServiceException handleException(Exception e) {
+        return action.handleException(e);
+    }
+
+    @Override
+    public ExceptionHandler getTimeoutHandler() {
+        return action.getTimeoutHandler();
+    }
+
+    @Override
+    public ExceptionHandler getExceptionHandler() {
+        return action.getExceptionHandler();
+    }
+
+    @Override
+    public void setServiceManager(ServiceManager serviceManager) {
+        action.setServiceManager(serviceManager);
+    }
+
+    @Override
+    public ServiceManager getServiceManager() {
+        return action.getServiceManager();
+    }
+
+    @Override
+    public Logger getLogger() {
+        return action.getLogger();
+    }
+
+    private CachedResult<Result> getFresh(Object key, Request request, Context context) {
+        CachedResult<Result> cached = resultCache.getIfPresent(key);
+        if (cached == null) {
+            return null;
+        }
+        long age = ticker.read() - cached.loadTime;
+        if (age >= timeToLiveNanos) {
+            return null;
+        }
+        if (age >= refreshAfterNanos && refreshAfterNanos < timeToLiveNanos && !loadMap.containsKey(key)) {
+            refresh(key, request, context, cached);
+        }
+        record(CacheResult.HIT);
+        return cached;
+    }
+
+    /**
+     * Reload a result ahead of expiry in the background; a failed refresh leaves the current result in place
+     */
+    private void refresh(Object key, Request request, Context context, CachedResult<Result> cached) {
+        // Claim the load before submitting it, so that the hits until it starts do not submit more
+        CompletableFuture<CachedResult<Result>> future = new CompletableFuture<>();
+        if (loadMap.putIfAbsent(key, future) != null) {
+            return;
+        }
+        Context refreshContext = new RefreshContext(context);
+        try {
+            getServiceManager().getExecutor().execute(() -> load(key, future, request, refreshContext));
+        } catch (RejectedExecutionException e) {
+            // The executor is saturated or shut down, keep serving the cached result
+            loadMap.remove(key, future);
+            future.complete(cached);
+        }
+    }
+
+    private Result loadOrStale(Object key, Request request, Context context, ExceptionHandler timeoutHandler,
+                               ExceptionHandler exceptionHandler) {
+        CachedResult<Result> cached = resultCache.getIfPresent(key);
+        try {
+            Result result = load(key, request, context).join().value;
+            record(CacheResult.MISS);
+            return result;
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            } else if (!(e.getCause() instanceof LoadException)) {
+                throw (RuntimeException) e.getCause();
+            }
+            LoadException loadException = (LoadException) e.getCause();
+            if (cached != null && ticker.read() - cached.loadTime < timeToLiveNanos + maxStaleNanos) {
+                record(CacheResult.STALE);
+                return cached.value;
+            }
+            record(CacheResult.MISS);
+            ExceptionHandler handler = loadException.timeout ? timeoutHandler : exceptionHandler;
+            handler.handleException(this, loadException.exception);
+        }
+        return null;
+    }
+
+    private CompletableFuture<CachedResult<Result>> load(Object key, Request request, Context context) {
+        CompletableFuture<CachedResult<Result>> future = new CompletableFuture<>();
+        CompletableFuture<CachedResult<Result>> inFlight = loadMap.putIfAbsent(key, future);
+        if (inFlight != null) {
+            return inFlight;
+        }
+        return load(key, future, request, context);
+    }
+
+    /**
+     * Perform a load claimed in the load map
+     */
+    private CompletableFuture<CachedResult<Result>> load(Object key, CompletableFuture<CachedResult<Result>> future,
+                                                         Request request, Context context) {
+        try {
+            CachedResult<Result> cached = resultCache.getIfPresent(key);
+            if (cached != null && ticker.read() - cached.loadTime < refreshAfterNanos) {
+                // Another load completed since the caller looked the key up
+                future.complete(cached);
+                return future;
+            }
+            Result result = action.perform(request, context, TIMEOUT_CAPTURE, EXCEPTION_CAPTURE);
+            CachedResult<Result> loaded = new CachedResult<>(result, ticker.read());
+            if (result != null) {
+                resultCache.put(key, loaded);
+            }
+            future.complete(loaded);
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+        } finally {
+            loadMap.remove(key, future);
+        }
+        return future;
+    }
+
+    private void record(CacheResult result) {
+        switch (result) {
+            case HIT:
+                hitCount.increment();
+                break;
+            case MISS:
+                missCount.increment();
+                break;
+            case STALE:
+                staleCount.increment();
+                break;
+        }
+        metrics.recordCacheLookup(actionKey.getName(), result);
+    }
+
+    private static class CachedResult<Result> {
+
+        private final Result value;
+
+        private final long loadTime;
+
+        CachedResult(Result value, long loadTime) {
+            this.value = value;
+            this.loadTime = loadTime;
+        }
+    }
+
+    /**
+     * A view of a request's context without its deadline, for refreshes that outlive the request
+     */
+    private static class RefreshContext implements Context {
+
+        private final Context context;
+
+        RefreshContext(Context context) {
+            this.context = context;
+        }
+
+        @Override
+        public <T> void put(TypeKey<T> key, T value) {
+            if (!Deadline.KEY.equals(key)) {
+                context.put(key, value);
+            }
+        }
+
+        @Override
+        public <T> T get(TypeKey<T> key) {
+            return Deadline.KEY.equals(key) ? null : context.get(key);
+        }
+
+        @Override
+        public LogFields getCommonLogFields() {
+            return context.getCommonLogFields();
+        }
+    }
+
+    private static class LoadException extends RuntimeException {
+
+        private final Exception exception;
+
+        private final boolean timeout;
+
+        LoadException(Exception exception, boolean timeout) {
+            super(exception);
+            this.exception = exception;
+            this.timeout = timeout;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.action;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * HedgeBudget bounds the extra load hedged requests put on downstream services.
+ * <p/>
+ * Every hedged call deposits a fraction of a token and every hedge attempt withdraws a whole token, so over time
+ * hedges stay below that fraction of the calls. The balance is capped to bound bursts. A budget is meant to be
+ * shared: {@link #GLOBAL} is used by every {@link HedgePolicy} not given its own.
+ */
+public class HedgeBudget {
+
+    /**
+     * The budget shared by default, allowing hedges for 10% of the calls with bursts of up to 100 hedges
+     */
+    public static final HedgeBudget GLOBAL = new HedgeBudget(0.1, 100);
+
+    // Balances are kept in thousandths of a token
+    private static final long SCALE = 1000;
+
+    private final long deposit;
+
+    private final long maxBalance;
+
+    private final AtomicLong balance;
+
+    /**
+     * Create a budget
+     *
+     * @param ratio the fraction of calls that may be hedged, between 0 and 1
+     * @param maxBurst the maximum number of hedges that can be saved up
+     */
+    public HedgeBudget(double ratio, int maxBurst) {
+        if (ratio < 0 || ratio > 1) {
+            throw new IllegalArgumentException("Hedge ratio must be between 0 and 1: " + ratio);
+        }
+        if (maxBurst < 1) {
+            throw new IllegalArgumentException("Maximum burst must be positive: " + maxBurst);
+        }
+        this.deposit = Math.round(ratio * SCALE);
+        this.maxBalance = maxBurst * SCALE;
+        this.balance = new AtomicLong();
+    }
+
+    /**
+     * Account for a call that may be hedged
+     */
+    public void deposit() {
+        balance.accumulateAndGet(deposit, (current, amount) -> Math.min(current + amount, maxBalance));
+    }
+
+    /**
+     * Take a hedge from the budget
+     *
+     * @return true if the budget allows another hedge
+     */
+    public boolean tryAcquire() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < SCALE) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - SCALE));
+        return true;
+    }
+
+    /**
+     * Return the number of hedges currently available
+     *
+     * @return the available hedges
+     */
+    public long getAvailable() {
+        return balance.get() / SCALE;
+    }
+}
@@ -0,0 +1,330 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.action;
+
+import org.apitome.core.metrics.LatencyHistogram;
+import org.apitome.core.model.Context;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HedgePolicy performs an action asynchronously and, if it has not completed after a delay, performs it a second
+ * time, taking whichever attempt succeeds first and cancelling the other.
+ * <p/>
+ * The delay is either fixed or a percentile of the action's recent latencies, with a fallback delay until enough
+ * samples have been recorded. The latency of a successful call is measured from the call to {@code perform} until
+ * its result completes, and a losing attempt cancelled while running records how long it had been running, so
+ * that hedging does not hide the latency of the slow attempts it cuts short. Hedges are taken from a {@link HedgeBudget} so that the
+ * extra load stays bounded. A policy keeps the latency histogram of the action it hedges, so each action needs
+ * its own policy; budgets are meant to be shared.
+ * <p/>
+ * Attempts run on the {@link org.apitome.core.service.ServiceManager} executor and losing attempts are cancelled
+ * by interrupting their thread; a cancelled attempt is abandoned, as described in {@link ActionTask}. An
+ * attempt failing while the other is still running does not fail the call.
+ */
+public class HedgePolicy {
+
+    public static final long DEFAULT_MIN_SAMPLES = 100;
+
+    private final long fixedDelayNanos;
+
+    private final double percentile;
+
+    private final long fallbackDelayNanos;
+
+    private final long minSamples;
+
+    private final HedgeBudget budget;
+
+    private final LatencyHistogram histogram;
+
+    private final LongAdder callCount = new LongAdder();
+
+    private final LongAdder hedgeCount = new LongAdder();
+
+    private final LongAdder hedgeWinCount = new LongAdder();
+
+    private HedgePolicy(long fixedDelayNanos, double percentile, long fallbackDelayNanos, long minSamples,
+                        HedgeBudget budget) {
+        this.fixedDelayNanos = fixedDelayNanos;
+        this.percentile = percentile;
+        this.fallbackDelayNanos = fallbackDelayNanos;
+        this.minSamples = minSamples;
+        this.budget = budget;
+        this.histogram = new LatencyHistogram();
+    }
+
+    /**
+     * Return a policy hedging after a fixed delay, using the global budget
+     *
+     * @param delay the delay
+     * @return the policy
+     */
+    public static HedgePolicy fixed(Duration delay) {
+        return fixed(delay, HedgeBudget.GLOBAL);
+    }
+
+    /**
+     * Return a policy hedging after a fixed delay
+     *
+     * @param delay the delay
+     * @param budget the budget hedges are taken from
+     * @return the policy
+     */
+    public static HedgePolicy fixed(Duration delay, HedgeBudget budget) {
+        return new HedgePolicy(delay.toNanos(), 0, delay.toNanos(), 0, budget);
+    }
+
+    /**
+     * Return a policy hedging after a percentile of the action's recent latencies, using the global budget
+     *
+     * @param percentile the percentile, such as 95
+     * @param fallbackDelay the delay used until {@value #DEFAULT_MIN_SAMPLES} latencies have been recorded
+     * @return the policy
+     */
+    public static HedgePolicy percentile(double percentile, Duration fallbackDelay) {
+        return percentile(percentile, fallbackDelay, DEFAULT_MIN_SAMPLES, HedgeBudget.GLOBAL);
+    }
+
+    /**
+     * Return a policy hedging after a percentile of the action's recent latencies
+     *
+     * @param percentile the percentile, such as 95
+     * @param fallbackDelay the delay used until enough latencies have been recorded
+     * @param minSamples the number of latencies needed to use the percentile
+     * @param budget the budget hedges are taken from
+     * @return the policy
+     */
+    public static HedgePolicy percentile(double percentile, Duration fallbackDelay, long minSamples,
+                                         HedgeBudget budget) {
+        if (percentile <= 0 || percentile >= 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+        }
+        return new HedgePolicy(-1, percentile, fallbackDelay.toNanos(), minSamples, budget);
+    }
+
+    /**
+     * Perform an action asynchronously, hedging it when it is slow
+     * <p/>
+     * When the context has a deadline, the attempts still running are cancelled once it is reached and the timeout
+     * handler is called, as in {@link Action#timeoutAtDeadline(CompletableFuture, Context, ExceptionHandler)}.
+     *
+     * @param action the action
+     * @param request a request
+     * @param context the context for this action
+     * @param timeoutHandler the timeout handler of every attempt
+     * @param exceptionHandler the exception handler of every attempt
+     * @return a CompletableFuture for the result of the first successful attempt
+     * @param <Request> the request type
+     * @param <Result> the result type
+     */
+    public <Request, Result> CompletableFuture<Result> perform(Action<Request, Result> action, Request request,
+                                                               Context context, ExceptionHandler timeoutHandler,
+                                                               ExceptionHandler exceptionHandler) {
+        return perform(action, request, context, timeoutHandler, exceptionHandler,
+                action.getServiceManager().getExecutor());
+    }
+
+    /**
+     * Perform an action asynchronously on an executor, hedging it when it is slow
+     * <p/>
+     * See {@link #perform(Action, Object, Context, ExceptionHandler, ExceptionHandler)}. A primary attempt rejected
+     * by the executor fails the call with the rejection; a rejected hedge leaves the primary attempt running.
+     *
+     * @param action the action
+     * @param request a request
+     * @param context the context for this action
+     * @param timeoutHandler the timeout handler of every attempt
+     * @param exceptionHandler the exception handler of every attempt
+     * @param executor the executor to perform the attempts on, such as the executor of a bulkhead
+     * @return a CompletableFuture for the result of the first successful attempt
+     * @param <Request> the request type
+     * @param <Result> the result type
+     */
+    public <Request, Result> CompletableFuture<Result> perform(Action<Request, Result> action, Request request,
+                                                               Context context, ExceptionHandler timeoutHandler,
+                                                               ExceptionHandler exceptionHandler, Executor executor) {
+        callCount.increment();
+        budget.deposit();
+        HedgedCall<Result> call = new HedgedCall<>(
+                () -> action.perform(request, context, timeoutHandler, exceptionHandler));
+        // Timing the call out cancels the attempts still running
+        CompletableFuture<Result> result = action.timeoutAtDeadline(call.result, context, timeoutHandler);
+        try {
+            executor.execute(call.primary);
+        } catch (RuntimeException e) {
+            call.result.completeExceptionally(e);
+            return result;
+        }
+        Executor hedgeExecutor = action.getServiceManager().getExecutor();
+        CompletableFuture.delayedExecutor(getDelayNanos(), TimeUnit.NANOSECONDS, hedgeExecutor).execute(() -> {
+            Attempt<Result> hedge = call.startHedge();
+            if (hedge != null) {
+                try {
+                    executor.execute(hedge);
+                } catch (RuntimeException e) {
+                    hedge.cancel(false);
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Return the current hedge delay
+     *
+     * @return the delay in nanoseconds
+     */
+    public long getDelayNanos() {
+        if (fixedDelayNanos >= 0) {
+            return fixedDelayNanos;
+        }
+        if (histogram.getCount() < minSamples) {
+            return fallbackDelayNanos;
+        }
+        return histogram.getPercentileNanos(percentile);
+    }
+
+    public LatencyHistogram getHistogram() {
+        return histogram;
+    }
+
+    public long getCallCount() {
+        return callCount.sum();
+    }
+
+    public long getHedgeCount() {
+        return hedgeCount.sum();
+    }
+
+    public long getHedgeWinCount() {
+        return hedgeWinCount.sum();
+    }
+
+    private class HedgedCall<Result> {
+
+        private final Callable<Result> callable;
+
+        private final long start;
+
+        private final CompletableFuture<Result> result;
+
+        private final Attempt<Result> primary;
+
+        private Attempt<Result> hedge;
+
+        private Throwable failure;
+
+        HedgedCall(Callable<Result> callable) {
+            this.callable = callable;
+            this.start = System.nanoTime();
+            this.result = new CompletableFuture<>();
+            this.primary = new Attempt<>(this, false);
+            // Cancelling the call, or completing it, cancels the attempts still running
+            result.whenComplete((r, e) -> cancelAttempts());
+        }
+
+        synchronized Attempt<Result> startHedge() {
+            if (result.isDone() || !budget.tryAcquire()) {
+                return null;
+            }
+            hedgeCount.increment();
+            this.hedge = new Attempt<>(this, true);
+            return hedge;
+        }
+
+        synchronized void attemptDone(Attempt<Result> attempt) {
+            if (result.isDone()) {
+                return;
+            }
+            // An attempt is only cancelled before the call completes when it was rejected
+            if (!attempt.isCancelled()) {
+                try {
+                    Result value = attempt.get();
+                    histogram.record(System.nanoTime() - start);
+                    if (attempt.hedge) {
+                        hedgeWinCount.increment();
+                    }
+                    result.complete(value);
+                    return;
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            Attempt<Result> other = attempt == primary ? hedge : primary;
+            if (failure != null && (other == null || other.isDone())) {
+                result.completeExceptionally(failure);
+            }
+        }
+
+        private void cancelAttempts() {
+            Attempt<Result> hedgeAttempt;
+            synchronized (this) {
+                hedgeAttempt = hedge;
+            }
+            cancel(primary);
+            if (hedgeAttempt != null) {
+                cancel(hedgeAttempt);
+            }
+        }
+
+        private void cancel(Attempt<Result> attempt) {
+            long attemptStart = attempt.start;
+            if (attempt.cancel(true) && attemptStart != 0 && !result.isCancelled()) {
+                // the attempt was still running, it took at least this long
+                histogram.record(System.nanoTime() - attemptStart);
+            }
+        }
+    }
+
+    private class Attempt<Result> extends ActionTask<Result> {
+
+        private final HedgedCall<Result> call;
+
+        private final boolean hedge;
+
+        private volatile long start;
+
+        Attempt(HedgedCall<Result> call, boolean hedge) {
+            super(call.callable);
+            this.call = call;
+            this.hedge = hedge;
+        }
+
+        @Override
+        public void run() {
+            this.start = System.nanoTime();
+            super.run();
+        }
+
+        @Override
+        protected void done() {
+            call.attemptDone(this);
+        }
+    }
+}
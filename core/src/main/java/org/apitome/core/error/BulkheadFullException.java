@@ -0,0 +1,11 @@
+package org.apitome.core.error;
+
+/**
+ * Thrown when a bulkhead has no capacity left for a call
+ */
+public class BulkheadFullException extends CallRejectedException {
+
+    public BulkheadFullException(String bulkheadName) {
+        super("Bulkhead '" + bulkheadName + "' is full");
+    }
+}
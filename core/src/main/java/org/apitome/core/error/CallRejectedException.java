@@ -0,0 +1,13 @@
+package org.apitome.core.error;
+
+/**
+ * Thrown when a call is rejected before it starts because the resources protecting a downstream do not admit it.
+ * Rejections are expected under load, so they carry no stack trace and are not logged as service exceptions. Suppression is disabled too, since a single instance may be thrown to
+ * every rejected caller.
+ */
+public class CallRejectedException extends RuntimeException {
+
+    public CallRejectedException(String message) {
+        super(message, null, false, false);
+    }
+}
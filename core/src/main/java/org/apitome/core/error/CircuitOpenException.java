@@ -0,0 +1,12 @@
+package org.apitome.core.error;
+
+/**
+ * Thrown when a circuit breaker does not admit a call because its circuit is open. A circuit breaker throws the same
+ * instance for every call it rejects.
+ */
+public class CircuitOpenException extends CallRejectedException {
+
+    public CircuitOpenException(String circuitName) {
+        super("Circuit '" + circuitName + "' is open");
+    }
+}
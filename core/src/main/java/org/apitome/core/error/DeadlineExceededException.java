@@ -0,0 +1,11 @@
+package org.apitome.core.error;
+
+/**
+ * Thrown when work is about to start after the deadline of its request has passed. Actions handle it as a timeout.
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
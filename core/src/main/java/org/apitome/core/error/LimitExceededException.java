@@ -0,0 +1,11 @@
+package org.apitome.core.error;
+
+/**
+ * Thrown when a concurrency limiter does not admit a call
+ */
+public class LimitExceededException extends CallRejectedException {
+
+    public LimitExceededException(String limiterName) {
+        super("Concurrency limit of '" + limiterName + "' exceeded");
+    }
+}
@@ -19,4 +19,14 @@ package org.apitome.core.expression;
 public interface Resolver {
 
     String processExpression(String expression);
+
+    /**
+     * Return a fingerprint of the values this resolver resolves expressions to, which changes whenever
+     * any of those values changes. Caches of resolved content use it in their keys.
+     *
+     * @return the fingerprint, or null if this resolver cannot describe its values
+     */
+    default String getFingerprint() {
+        return null;
+    }
 }
@@ -18,7 +18,9 @@ package org.apitome.core.expression;
 
 import org.apitome.core.error.ConfigurationException;
 
+import java.util.Map;
 import java.util.Properties;
+import java.util.TreeMap;
 
 public class SimpleResolver implements Resolver {
 
@@ -38,4 +40,18 @@ public class SimpleResolver implements Resolver {
             throw new ConfigurationException(new RuntimeException("Invalid expression"));
         }
     }
+
+    /**
+     * Return every property, whatever the type of its value, in key order
+     *
+     * @return the fingerprint of the properties
+     */
+    @Override
+    public String getFingerprint() {
+        Map<String, String> entries = new TreeMap<>();
+        properties.forEach((key, value) -> entries.put(String.valueOf(key), String.valueOf(value)));
+        StringBuilder builder = new StringBuilder();
+        entries.forEach((key, value) -> builder.append(key).append('\0').append(value).append('\0'));
+        return builder.toString();
+    }
 }
@@ -4,7 +4,13 @@ public enum OpLogEvent implements LogEvent {
 
     ACTION_COMPLETED,
     ACTION_EXCEPTION,
+    ACTION_REJECTED,
     ACTION_TIMEOUT,
+    DISK_CACHE_EXCEPTION,
+    PREWARM_COMPLETED,
+    PREWARM_EXCEPTION,
+    PREWARM_PAUSED,
+    PREWARM_STOPPED,
     SERVICE_EXCEPTION;
 
     @Override
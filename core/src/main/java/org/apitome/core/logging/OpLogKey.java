@@ -8,6 +8,8 @@ import java.util.ResourceBundle;
 public enum OpLogKey implements LogKey {
 
     ACTION_CLASS,
+    DESCRIPTION_COUNT,
+    DESCRIPTION_NAME,
     ELAPSED_TIME,
     EVENT,
     SERVICE_CLASS;
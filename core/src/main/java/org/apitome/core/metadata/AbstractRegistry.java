@@ -16,18 +16,64 @@
 
 package org.apitome.core.metadata;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.apitome.core.error.ConfigurationException;
 import org.apitome.core.expression.Resolver;
+import org.apitome.core.metrics.RegistryMetrics;
+import org.apitome.core.metrics.RegistryStage;
+import org.apitome.core.template.BinaryTemplate;
 import org.apitome.core.template.Template;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import static com.fasterxml.jackson.databind.MapperFeature.ACCEPT_CASE_INSENSITIVE_VALUES;
 
 /**
- * An abstract registry implementation that supports processing raw descriptions as JSON and YAML files
+ * An abstract registry implementation that supports processing raw descriptions as JSON and YAML files,
+ * as well as Smile and CBOR files compiled from them by the {@link DescriptionConverter}
+ * <p/>
+ * Raw descriptions are bound with readers that are built once for the raw description class, so that
+ * type resolution and deserializer lookup do not repeat on every load. Accelerated binding additionally
+ * registers the Blackbird module, which replaces reflective property access in bean deserializers with
+ * generated lambdas.
+ * <p/>
+ * Descriptions are content addressed: templates whose resolved content is identical share a single
+ * description instance, so that binding and transformation run once per distinct content rather than
+ * once per template. Descriptions are therefore expected to be immutable.
  *
  * @param <D> the description type
  * @param <R> the raw description type
@@ -43,29 +89,97 @@ public abstract class AbstractRegistry<D, R extends Transformable<D, T>, T exten
 
     private static final String YML_EXT = "yml";
 
+    /**
+     * The field of an object that references a fragment
+     */
+    public static final String INCLUDE_KEY = "$include";
+
     protected final ObjectMapper yamlMapper;
 
     protected final ObjectMapper jsonMapper;
 
+    protected final ObjectReader yamlReader;
+
+    protected final ObjectReader jsonReader;
+
+    protected final ObjectReader smileReader;
+
+    protected final ObjectMapper smileMapper;
+
+    protected final ObjectMapper cborMapper;
+
     protected final ConcurrentHashMap<String, D> descriptionMap;
 
+    protected final Cache<String, D> contentCache;
+
+    protected final ConcurrentHashMap<String, JsonNode> fragmentMap;
+
     private final Resolver resolver;
 
-    private final T transformer;
+    private final TransformerFactory<T> transformerFactory;
+
+    private final T sharedTransformer;
+
+    private final ThreadLocal<T> threadTransformer;
+
+    private volatile int concurrency;
+
+    private volatile ForkJoinPool batchPool;
 
     private final Class<R> rawDescriptionClass;
 
+    private volatile RegistryMetrics metrics;
+
+    private volatile DescriptionDiskCache diskCache;
+
+    private volatile String fragmentsHash;
+
     public AbstractRegistry(Class<R> rawDescriptionClass, T transformer, Resolver resolver) {
+        this(rawDescriptionClass, transformer, resolver, false);
+    }
+
+    /**
+     * Create a registry, optionally accelerating the binding of raw descriptions
+     *
+     * @param rawDescriptionClass the raw description class
+     * @param transformer the transformer
+     * @param resolver the resolver
+     * @param acceleratedBinding true to bind raw descriptions with generated accessors instead of reflection
+     */
+    public AbstractRegistry(Class<R> rawDescriptionClass, T transformer, Resolver resolver, boolean acceleratedBinding) {
+        this(rawDescriptionClass, TransformerFactory.shared(transformer), resolver, acceleratedBinding);
+    }
+
+    /**
+     * Create a registry whose transformers are supplied by a factory, optionally accelerating the binding
+     * of raw descriptions
+     *
+     * @param rawDescriptionClass the raw description class
+     * @param transformerFactory the transformer factory
+     * @param resolver the resolver
+     * @param acceleratedBinding true to bind raw descriptions with generated accessors instead of reflection
+     */
+    public AbstractRegistry(Class<R> rawDescriptionClass, TransformerFactory<T> transformerFactory, Resolver resolver,
+                            boolean acceleratedBinding) {
         this.rawDescriptionClass = rawDescriptionClass;
-        this.transformer = transformer;
+        this.transformerFactory = transformerFactory;
+        this.sharedTransformer = transformerFactory.isThreadSafe() ? transformerFactory.createTransformer() : null;
+        this.threadTransformer = transformerFactory.isThreadSafe()
+                ? null : ThreadLocal.withInitial(transformerFactory::createTransformer);
+        this.concurrency = 1;
         this.resolver = resolver;
         this.descriptionMap = new ConcurrentHashMap<>();
-        this.jsonMapper = JsonMapper.builder()
-                .configure(ACCEPT_CASE_INSENSITIVE_VALUES, true)
-                .build();
-        this.yamlMapper = JsonMapper.builder(new YAMLFactory())
-                .configure(ACCEPT_CASE_INSENSITIVE_VALUES, true)
-                .build();
+        this.contentCache = Caffeine.newBuilder().weakValues().build();
+        this.fragmentMap = new ConcurrentHashMap<>();
+        this.fragmentsHash = "";
+        this.metrics = RegistryMetrics.NOOP;
+        this.jsonMapper = createMapper(new JsonFactory(), acceleratedBinding);
+        this.yamlMapper = createMapper(new YAMLFactory(), acceleratedBinding);
+        this.smileMapper = createMapper(new SmileFactory(), acceleratedBinding);
+        this.cborMapper = createMapper(new CBORFactory(), acceleratedBinding);
+        this.jsonReader = jsonMapper.readerFor(rawDescriptionClass);
+        this.yamlReader = yamlMapper.readerFor(rawDescriptionClass);
+        this.smileReader = smileMapper.readerFor(rawDescriptionClass);
     }
 
     @Override
@@ -73,7 +187,9 @@ public abstract class AbstractRegistry<D, R extends Transformable<D, T>, T exten
         if (descriptionName != null) {
             descriptionName = descriptionName.toLowerCase();
         }
-        return descriptionMap.get(descriptionName);
+        D description = descriptionMap.get(descriptionName);
+        metrics.recordLookup(descriptionName, description != null);
+        return description;
     }
 
     @Override
@@ -83,7 +199,72 @@ public abstract class AbstractRegistry<D, R extends Transformable<D, T>, T exten
 
     @Override
     public T getTransformer() {
-        return transformer;
+        return sharedTransformer != null ? sharedTransformer : threadTransformer.get();
+    }
+
+    public TransformerFactory<T> getTransformerFactory() {
+        return transformerFactory;
+    }
+
+    @Override
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * Set the number of threads used to process a batch of templates or transform a batch of raw descriptions.
+     * The threads belong to a pool reused by every batch, whose idle threads time out.
+     *
+     * @param concurrency the number of threads, 1 to process batches on the calling thread
+     */
+    public synchronized void setConcurrency(int concurrency) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Concurrency must be positive: " + concurrency);
+        }
+        ForkJoinPool previousPool = batchPool;
+        this.batchPool = concurrency > 1 ? new ForkJoinPool(concurrency) : null;
+        this.concurrency = concurrency;
+        if (previousPool != null) {
+            // batches already submitted to the previous pool still complete
+            previousPool.shutdown();
+        }
+    }
+
+    /**
+     * Process a batch of templates into descriptions, using up to {@link #getConcurrency()} threads
+     *
+     * @param templates the templates
+     * @return the descriptions, in the order of the templates
+     */
+    protected List<D> processTemplates(List<Template> templates) {
+        return mapConcurrently(templates, this::processTemplate);
+    }
+
+    /**
+     * Transform a batch of raw descriptions, using up to {@link #getConcurrency()} threads. Each thread
+     * uses the transformer returned by {@link #getTransformer()}.
+     *
+     * @param rawDescriptions the raw descriptions
+     * @return the descriptions, in the order of the raw descriptions
+     */
+    public List<D> transformDescriptions(List<R> rawDescriptions) {
+        return mapConcurrently(rawDescriptions, this::transformDescription);
+    }
+
+    private <I, O> List<O> mapConcurrently(List<I> inputs, Function<I, O> mapper) {
+        ForkJoinPool pool = batchPool;
+        if (pool == null || inputs.size() <= 1) {
+            return inputs.stream().map(mapper).collect(Collectors.toList());
+        }
+        ForkJoinTask<List<O>> batch;
+        try {
+            // a parallel stream started from a pool task runs in that pool and keeps the encounter order
+            batch = pool.submit(() -> inputs.parallelStream().map(mapper).collect(Collectors.toList()));
+        } catch (RejectedExecutionException e) {
+            // the concurrency changed and the pool was shut down, use the new pool
+            return mapConcurrently(inputs, mapper);
+        }
+        return batch.join();
     }
 
     @Override
@@ -91,38 +272,379 @@ public abstract class AbstractRegistry<D, R extends Transformable<D, T>, T exten
         return resolver;
     }
 
+    @Override
+    public RegistryMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Set the metrics this registry reports its processing to, and register the registry's gauges with them
+     *
+     * @param metrics the registry metrics
+     */
+    public void setMetrics(RegistryMetrics metrics) {
+        this.metrics = metrics;
+        registerGauges(metrics);
+    }
+
+    /**
+     * Register the gauges describing the contents of this registry
+     *
+     * @param metrics the registry metrics
+     */
+    protected void registerGauges(RegistryMetrics metrics) {
+        metrics.registerGauge("descriptions", descriptionMap::size);
+        metrics.registerGauge("descriptions.distinct", this::getDistinctDescriptionCount);
+    }
+
     protected D processTemplate(Template template) {
+        long start = System.nanoTime();
         String templateExt = getTemplateExt(template.getName());
-        R rawDescription;
-        if (isJson(templateExt)) {
-            rawDescription = getRawDescriptionAsJson(template);
-        } else if (isYaml(templateExt)) {
-            rawDescription = getRawDescriptionAsYaml(template);
+        D description;
+        DescriptionDiskCache diskCache = this.diskCache;
+        if (diskCache != null) {
+            description = processCachedTemplate(template, templateExt, diskCache);
+        } else if (isSmile(templateExt)) {
+            description = processBinaryTemplate(template, DescriptionFormat.SMILE, smileMapper);
+        } else if (isCbor(templateExt)) {
+            description = processBinaryTemplate(template, DescriptionFormat.CBOR, cborMapper);
         } else {
             // if ext not recognized, attempt to parse it as JSON
-            rawDescription = getRawDescriptionAsJson(template);
+            boolean yaml = isYaml(templateExt);
+            String content = resolveTemplate(template);
+            // the hooks bind the resolved content, which is not resolved again
+            Template resolvedTemplate = Template.of(template.getName(), content);
+            description = deduplicate(template, ContentHash.of(yaml ? YAML_EXT : JSON_EXT, content),
+                    () -> yaml ? getRawDescriptionAsYaml(resolvedTemplate) : getRawDescriptionAsJson(resolvedTemplate));
+        }
+        metrics.recordStage(RegistryStage.PROCESS, template.getName(), System.nanoTime() - start);
+        return description;
+    }
+
+    /**
+     * Get the disk cache processed templates are persisted to
+     *
+     * @return the disk cache, or null if templates are not persisted
+     */
+    public DescriptionDiskCache getDiskCache() {
+        return diskCache;
+    }
+
+    /**
+     * Set the disk cache processed templates are persisted to, so that templates that did not change
+     * are not resolved and parsed again by the next run. Templates processed through the disk cache are
+     * bound from their cached trees, without the {@code getRawDescriptionAs} hooks.
+     *
+     * @param diskCache the disk cache, or null to stop persisting templates
+     */
+    public void setDiskCache(DescriptionDiskCache diskCache) {
+        this.diskCache = diskCache;
+    }
+
+    /**
+     * Process the fragments that match the location pattern, so that templates can include them
+     *
+     * @param locationPattern a pattern
+     * @see #processFragments(String, Executor)
+     */
+    public void processFragments(String locationPattern) {
+        processFragments(locationPattern, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Process the fragments that match the location pattern, so that templates can include them.
+     * <p/>
+     * A fragment is a template holding a part of a description, such as a set of error mappings, that
+     * is referenced by an object with a single {@value #INCLUDE_KEY} field naming the fragment. Additional
+     * fields in the referencing object override the fields of the fragment. Fragments may include other
+     * fragments. Each fragment is parsed and resolved once, in parallel, and then linked in dependency order,
+     * fragments whose dependencies are linked being linked concurrently. Linked fragments are shared by
+     * every template that includes them.
+     *
+     * @param locationPattern a pattern
+     * @param executor the executor to parse and link fragments on
+     */
+    public void processFragments(String locationPattern, Executor executor) {
+        Map<String, CompletableFuture<JsonNode>> parsed = new HashMap<>();
+        getResources(locationPattern).forEach(template -> {
+            String fragmentName = getTemplateName(template.getName()).toLowerCase();
+            parsed.put(fragmentName, CompletableFuture.supplyAsync(() -> {
+                try {
+                    return readTree(template, getTemplateExt(template.getName()));
+                } catch (IOException e) {
+                    throw new ConfigurationException(e);
+                }
+            }, executor));
+        });
+        Map<String, JsonNode> trees = new HashMap<>();
+        Map<String, Set<String>> dependencies = new HashMap<>();
+        parsed.forEach((fragmentName, tree) -> {
+            trees.put(fragmentName, join(tree));
+            Set<String> includes = new HashSet<>();
+            collectIncludes(trees.get(fragmentName), includes);
+            includes.retainAll(parsed.keySet());
+            dependencies.put(fragmentName, includes);
+        });
+        Set<String> checked = new HashSet<>();
+        for (String fragmentName : dependencies.keySet()) {
+            checkCycle(fragmentName, dependencies, new LinkedHashSet<>(), checked);
+        }
+        Map<String, CompletableFuture<JsonNode>> linked = new HashMap<>();
+        for (String fragmentName : trees.keySet()) {
+            linkFragment(fragmentName, trees, dependencies, linked, executor);
         }
-        return transformDescription(rawDescription);
+        Map<String, JsonNode> fragments = new HashMap<>();
+        linked.forEach((fragmentName, tree) -> fragments.put(fragmentName, join(tree)));
+        fragmentMap.putAll(fragments);
+        fragmentsHash = hashFragments();
+        // descriptions shared by content may have been linked with previous fragments
+        contentCache.invalidateAll();
     }
 
     /**
-     * Get a raw description from a template, processing its contents as JSON
+     * Return the names of the processed fragments
+     *
+     * @return the fragment names
+     */
+    public Set<String> getFragmentNames() {
+        return Collections.unmodifiableSet(fragmentMap.keySet());
+    }
+
+    /**
+     * Get the number of distinct descriptions, by content, that are currently shared by the names
+     * in this registry
+     *
+     * @return the estimated number of distinct descriptions
+     */
+    public long getDistinctDescriptionCount() {
+        return contentCache.estimatedSize();
+    }
+
+    /**
+     * Get a raw description from a template, processing its contents as JSON and linking the fragments
+     * it includes. {@link #processTemplate(Template)} calls this method, once per distinct content, with
+     * a template that holds the already resolved content.
      *
      * @param template a template
      * @return a raw description
      */
     protected R getRawDescriptionAsJson(Template template) {
-        return getRawDescription(template, t -> jsonMapper.readValue(t.resolve(getResolver()), getRawDescriptionClass()));
+        return getRawDescriptionAsText(template, jsonMapper, jsonReader);
     }
 
     /**
-     * Get a raw description from a template, processing its contents as YAML
+     * Get a raw description from a template, processing its contents as YAML and linking the fragments
+     * it includes. {@link #processTemplate(Template)} calls this method, once per distinct content, with
+     * a template that holds the already resolved content.
      *
      * @param template a template
      * @return a raw description
      */
     protected R getRawDescriptionAsYaml(Template template) {
-        return getRawDescription(template, t -> yamlMapper.readValue(t.resolve(getResolver()), getRawDescriptionClass()));
+        return getRawDescriptionAsText(template, yamlMapper, yamlReader);
+    }
+
+    /**
+     * Get a raw description from a binary template, decoding its contents into a tree with the mapper,
+     * resolving the expressions held in its string values and linking the fragments it includes.
+     *
+     * @param template a binary template
+     * @param binaryMapper the mapper for the template's binary encoding
+     * @return a raw description
+     */
+    protected R getRawDescriptionAsBinary(Template template, ObjectMapper binaryMapper) {
+        return getRawDescription(template,
+                t -> bind(t, linkFragments(t.getName(), readBinaryTemplate(t, binaryMapper, null))));
+    }
+
+    /**
+     * Get a raw description from the decoded tree of a binary template, linking the fragments it
+     * includes. {@link #processTemplate(Template)} calls this method, once per distinct content, with
+     * the tree it decoded and resolved to hash the template.
+     *
+     * @param template a binary template
+     * @param resolvedTree the decoded tree of the template, with its expressions resolved
+     * @return a raw description
+     */
+    protected R getRawDescriptionAsBinary(Template template, JsonNode resolvedTree) {
+        return getRawDescription(template, t -> bind(t, linkFragments(t.getName(), resolvedTree)));
+    }
+
+    /**
+     * Resolve the expressions of a template using the resolver associated with this registry
+     *
+     * @param template a template
+     * @return the resolved template contents
+     */
+    protected String resolveTemplate(Template template) {
+        long start = System.nanoTime();
+        String content = template.resolve(getResolver());
+        metrics.recordStage(RegistryStage.RESOLVE, template.getName(), System.nanoTime() - start);
+        return content;
+    }
+
+    /**
+     * Resolve the expressions held in the string values of a tree
+     *
+     * @param templateName the name of the template the tree was decoded from
+     * @param node a tree node
+     * @return the node with its expressions resolved
+     */
+    protected JsonNode resolveExpressions(String templateName, JsonNode node) {
+        return BinaryTemplate.resolveValues(templateName, node, getResolver(), null);
+    }
+
+    /**
+     * Get the version of the transformer, which is part of the disk cache key so that entries are not
+     * reused across incompatible versions of the raw description and transformer classes
+     *
+     * @return the transformer version
+     */
+    protected String getTransformerVersion() {
+        return getVersion(getTransformer().getClass()) + ":" + getVersion(rawDescriptionClass);
+    }
+
+    private D processCachedTemplate(Template template, String templateExt, DescriptionDiskCache diskCache) {
+        String key = diskCache.getKey(getSourceHash(template, templateExt), getTransformerVersion() + "#" + fragmentsHash);
+        D sharedDescription = contentCache.getIfPresent(key);
+        if (sharedDescription != null) {
+            // another template with the same source is already processed, skip mapping its entry
+            return sharedDescription;
+        }
+        ByteBuffer content = diskCache.read(key, template.getName());
+        if (content != null) {
+            try {
+                return deduplicate(template, key, () -> getRawDescription(template, t -> bind(t, content)));
+            } catch (ConfigurationException e) {
+                // the entry is corrupt or stale, process the template and replace it
+                diskCache.reportCorrupt(template.getName(), e);
+            } finally {
+                diskCache.release(content);
+            }
+        }
+        JsonNode tree;
+        try {
+            tree = linkFragments(template.getName(), readTree(template, templateExt));
+            diskCache.write(key, template.getName(), smileMapper.writeValueAsBytes(tree));
+        } catch (IOException e) {
+            throw new ConfigurationException(e);
+        }
+        return deduplicate(template, key, () -> getRawDescription(template, t -> bind(t, tree)));
+    }
+
+    private JsonNode readTree(Template template, String templateExt) throws IOException {
+        if (isSmile(templateExt)) {
+            return readBinaryTemplate(template, smileMapper, null);
+        } else if (isCbor(templateExt)) {
+            return readBinaryTemplate(template, cborMapper, null);
+        }
+        return parseTree(template, isYaml(templateExt) ? yamlMapper : jsonMapper, resolveTemplate(template));
+    }
+
+    private JsonNode parseTree(Template template, ObjectMapper mapper, String content) throws IOException {
+        long start = System.nanoTime();
+        JsonNode tree = mapper.readTree(content);
+        metrics.recordStage(RegistryStage.PARSE, template.getName(), System.nanoTime() - start);
+        return tree;
+    }
+
+    /**
+     * Return a hash of the source of a template, before its expressions are resolved
+     *
+     * @param template the template
+     * @return the content hash of the template source
+     */
+    protected String getSourceHash(Template template) {
+        return getSourceHash(template, getTemplateExt(template.getName()));
+    }
+
+    private String getSourceHash(Template template, String templateExt) {
+        if (template instanceof BinaryTemplate) {
+            MessageDigest digest = ContentHash.digest(templateExt);
+            digest.update(((BinaryTemplate) template).getContent());
+            return ContentHash.toString(digest);
+        }
+        // resolving every expression to itself yields the template source
+        return ContentHash.of(String.valueOf(templateExt), template.resolve(expression -> expression));
+    }
+
+    private R getRawDescriptionAsText(Template template, ObjectMapper mapper, ObjectReader reader) {
+        return getRawDescription(template, t -> {
+            String content = resolveTemplate(t);
+            return content.contains(INCLUDE_KEY)
+                    ? bind(t, linkFragments(t.getName(), parseTree(t, mapper, content)))
+                    : bind(t, reader, content);
+        });
+    }
+
+    private D processBinaryTemplate(Template template, DescriptionFormat format, ObjectMapper binaryMapper) {
+        MessageDigest digest = ContentHash.digest(format.getExtension());
+        JsonNode resolvedTree;
+        try {
+            // hashing decodes the document and resolves its expressions, the hook binds that tree on a miss
+            resolvedTree = readBinaryTemplate(template, binaryMapper, digest);
+        } catch (IOException e) {
+            throw new ConfigurationException(e);
+        }
+        return deduplicate(template, ContentHash.toString(digest),
+                () -> getRawDescriptionAsBinary(template, resolvedTree));
+    }
+
+    /**
+     * Share one description between every template whose content has the given hash, binding and
+     * transforming the raw description only for the first of them
+     */
+    private D deduplicate(Template template, String contentHash, Supplier<R> rawDescriptionSupplier) {
+        D description = contentCache.getIfPresent(contentHash);
+        if (description != null) {
+            return description;
+        }
+        R rawDescription = rawDescriptionSupplier.get();
+        long start = System.nanoTime();
+        description = transformDescription(rawDescription);
+        metrics.recordStage(RegistryStage.TRANSFORM, template.getName(), System.nanoTime() - start);
+        D sharedDescription = contentCache.asMap().putIfAbsent(contentHash, description);
+        return sharedDescription != null ? sharedDescription : description;
+    }
+
+    private JsonNode readBinaryTemplate(Template template, ObjectMapper binaryMapper, MessageDigest digest)
+            throws IOException {
+        if (!(template instanceof BinaryTemplate)) {
+            throw new ConfigurationException(new IOException("Template '" + template.getName() + "' is not binary"));
+        }
+        long start = System.nanoTime();
+        byte[] content = ((BinaryTemplate) template).getContent();
+        JsonNode tree = binaryMapper.readTree(content);
+        long resolveStart = System.nanoTime();
+        metrics.recordStage(RegistryStage.PARSE, template.getName(), resolveStart - start);
+        if (digest != null) {
+            digest.update(content);
+        }
+        // the digest covers the immediate expressions of the document as they resolve
+        JsonNode resolvedTree = BinaryTemplate.resolveValues(template.getName(), tree, getResolver(), digest);
+        metrics.recordStage(RegistryStage.RESOLVE, template.getName(), System.nanoTime() - resolveStart);
+        return resolvedTree;
+    }
+
+    private R bind(Template template, ObjectReader reader, String content) throws IOException {
+        long start = System.nanoTime();
+        R rawDescription = reader.readValue(content);
+        metrics.recordStage(RegistryStage.BIND, template.getName(), System.nanoTime() - start);
+        return rawDescription;
+    }
+
+    private R bind(Template template, ByteBuffer content) throws IOException {
+        long start = System.nanoTime();
+        R rawDescription = smileReader.readValue(new ByteBufferBackedInputStream(content.duplicate()));
+        metrics.recordStage(RegistryStage.BIND, template.getName(), System.nanoTime() - start);
+        return rawDescription;
+    }
+
+    private R bind(Template template, JsonNode tree) throws IOException {
+        long start = System.nanoTime();
+        R rawDescription = jsonReader.readValue(tree);
+        metrics.recordStage(RegistryStage.BIND, template.getName(), System.nanoTime() - start);
+        return rawDescription;
     }
 
     /**
@@ -150,4 +672,148 @@ public abstract class AbstractRegistry<D, R extends Transformable<D, T>, T exten
     protected boolean isYaml(String ext) {
         return YAML_EXT.equalsIgnoreCase(ext) || YML_EXT.equalsIgnoreCase(ext);
     }
+
+    protected boolean isSmile(String ext) {
+        return DescriptionFormat.fromExtension(ext) == DescriptionFormat.SMILE;
+    }
+
+    protected boolean isCbor(String ext) {
+        return DescriptionFormat.fromExtension(ext) == DescriptionFormat.CBOR;
+    }
+
+    private CompletableFuture<JsonNode> linkFragment(String fragmentName, Map<String, JsonNode> trees,
+                                                     Map<String, Set<String>> dependencies,
+                                                     Map<String, CompletableFuture<JsonNode>> linked, Executor executor) {
+        CompletableFuture<JsonNode> fragment = linked.get(fragmentName);
+        if (fragment != null) {
+            return fragment;
+        }
+        Set<String> fragmentDependencies = dependencies.get(fragmentName);
+        Map<String, CompletableFuture<JsonNode>> dependencyFutures = new HashMap<>();
+        for (String dependency : fragmentDependencies) {
+            dependencyFutures.put(dependency, linkFragment(dependency, trees, dependencies, linked, executor));
+        }
+        fragment = CompletableFuture.allOf(dependencyFutures.values().toArray(new CompletableFuture<?>[0]))
+                .thenApplyAsync(v -> {
+                    Map<String, JsonNode> fragments = new HashMap<>(fragmentMap);
+                    dependencyFutures.forEach((dependency, tree) -> fragments.put(dependency, tree.join()));
+                    return linkFragments(fragmentName, trees.get(fragmentName), fragments);
+                }, executor);
+        linked.put(fragmentName, fragment);
+        return fragment;
+    }
+
+    private void checkCycle(String fragmentName, Map<String, Set<String>> dependencies, Set<String> path,
+                            Set<String> checked) {
+        if (!path.add(fragmentName)) {
+            throw new ConfigurationException(new IOException("Fragments include each other: " + path + " -> " + fragmentName));
+        }
+        if (checked.add(fragmentName)) {
+            for (String dependency : dependencies.get(fragmentName)) {
+                checkCycle(dependency, dependencies, path, checked);
+            }
+        }
+        path.remove(fragmentName);
+    }
+
+    private void collectIncludes(JsonNode node, Set<String> includes) {
+        if (node.isObject()) {
+            JsonNode include = node.get(INCLUDE_KEY);
+            if (include != null && include.isTextual()) {
+                includes.add(include.textValue().toLowerCase());
+            }
+        }
+        if (node.isContainerNode()) {
+            node.forEach(child -> collectIncludes(child, includes));
+        }
+    }
+
+    private JsonNode linkFragments(String templateName, JsonNode node) {
+        if (fragmentMap.isEmpty()) {
+            return node;
+        }
+        return linkFragments(templateName, node, fragmentMap);
+    }
+
+    /**
+     * Replace the objects of a tree that include a fragment with the fragment, or with a copy of the
+     * fragment overridden by the other fields of the object
+     */
+    private JsonNode linkFragments(String templateName, JsonNode node, Map<String, JsonNode> fragments) {
+        if (node.isObject()) {
+            ObjectNode objectNode = (ObjectNode) node;
+            JsonNode include = objectNode.get(INCLUDE_KEY);
+            if (include != null && include.isTextual()) {
+                JsonNode fragment = fragments.get(include.textValue().toLowerCase());
+                if (fragment == null) {
+                    throw new ConfigurationException(new IOException("Fragment '" + include.textValue()
+                            + "' included by '" + templateName + "' not found"));
+                }
+                if (objectNode.size() == 1) {
+                    return fragment;
+                }
+                if (!fragment.isObject()) {
+                    throw new ConfigurationException(new IOException("Fragment '" + include.textValue()
+                            + "' included by '" + templateName + "' cannot be overridden, it is not an object"));
+                }
+                ObjectNode merged = jsonMapper.createObjectNode();
+                merged.setAll((ObjectNode) fragment);
+                Iterator<Map.Entry<String, JsonNode>> fields = objectNode.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> field = fields.next();
+                    if (!INCLUDE_KEY.equals(field.getKey())) {
+                        merged.set(field.getKey(), linkFragments(templateName, field.getValue(), fragments));
+                    }
+                }
+                return merged;
+            }
+            Iterator<Map.Entry<String, JsonNode>> fields = objectNode.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                objectNode.set(field.getKey(), linkFragments(templateName, field.getValue(), fragments));
+            }
+        } else if (node.isArray()) {
+            ArrayNode arrayNode = (ArrayNode) node;
+            for (int i = 0; i < arrayNode.size(); i++) {
+                arrayNode.set(i, linkFragments(templateName, arrayNode.get(i), fragments));
+            }
+        }
+        return node;
+    }
+
+    private String hashFragments() {
+        MessageDigest digest = ContentHash.digest("fragments");
+        for (String fragmentName : new TreeSet<>(fragmentMap.keySet())) {
+            ContentHash.update(digest, fragmentName);
+            ContentHash.update(digest, fragmentMap.get(fragmentName).toString());
+        }
+        return ContentHash.toString(digest);
+    }
+
+    private static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new ConfigurationException(cause);
+        }
+    }
+
+    private static String getVersion(Class<?> type) {
+        Package typePackage = type.getPackage();
+        String version = typePackage != null ? typePackage.getImplementationVersion() : null;
+        return version != null ? type.getName() + "@" + version : type.getName();
+    }
+
+    private static ObjectMapper createMapper(JsonFactory factory, boolean acceleratedBinding) {
+        JsonMapper.Builder builder = JsonMapper.builder(factory)
+                .configure(ACCEPT_CASE_INSENSITIVE_VALUES, true);
+        if (acceleratedBinding) {
+            builder.addModule(new BlackbirdModule());
+        }
+        return builder.build();
+    }
 }
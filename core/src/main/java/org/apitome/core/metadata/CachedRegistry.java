@@ -16,11 +16,31 @@
 
 package org.apitome.core.metadata;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+import com.github.benmanes.caffeine.cache.stats.StatsCounter;
 import org.apitome.core.expression.Resolver;
+import org.apitome.core.metrics.RegistryMetrics;
 import org.apitome.core.template.Template;
 
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
 import static java.util.stream.Collectors.toMap;
@@ -28,6 +48,15 @@ import static java.util.stream.Collectors.toMap;
 /**
  * A registry implementation that caches resources from the application as templates and processes
  * them into descriptions when requested.
+ * <p/>
+ * Descriptions are loaded with single-flight semantics: when several callers miss on the same
+ * description name, only one of them processes the template while the others wait on the same
+ * future, so that every caller gets the same description instance.
+ * <p/>
+ * Processed descriptions are kept in a cache that may be bounded by weight, in which case the
+ * cache evicts descriptions using a frequency-aware policy (W-TinyLFU). The weight of a description
+ * is estimated from the length of its template. Templates are always retained, so an evicted
+ * description is rebuilt from its template on the next request.
  *
  * @param <D> the description type
  * @param <R> the raw description type
@@ -35,37 +64,443 @@ import static java.util.stream.Collectors.toMap;
  */
 public class CachedRegistry <D, R extends Transformable<D, T>, T extends Transformer> extends AbstractRegistry<D, R, T> {
 
+    public static final int DEFAULT_LOADER_QUEUE_CAPACITY = 1024;
+
     protected final ConcurrentHashMap<String, Template> templateMap;
 
+    protected final ConcurrentHashMap<String, CompletableFuture<D>> loaderMap;
+
+    protected final Cache<String, D> descriptionCache;
+
+    protected final ConcurrentHashMap<String, LongAdder> accessMap;
+
+    private final StatsCounter statsCounter;
+
+    private final LongAdder templateLength;
+
+    private final Executor loaderExecutor;
+
     public CachedRegistry(Class<R> rawDescriptionClass, T transformer, Resolver resolver) {
-        super(rawDescriptionClass, transformer, resolver);
+        this(rawDescriptionClass, transformer, resolver, getDefaultLoaderExecutor());
+    }
+
+    public CachedRegistry(Class<R> rawDescriptionClass, T transformer, Resolver resolver, Executor loaderExecutor) {
+        this(rawDescriptionClass, transformer, resolver, loaderExecutor, 0);
+    }
+
+    /**
+     * Create a registry whose description cache is bounded by weight
+     *
+     * @param rawDescriptionClass the raw description class
+     * @param transformer the transformer
+     * @param resolver the resolver
+     * @param loaderExecutor the executor used to process templates for asynchronous callers
+     * @param maximumWeight the maximum total weight of cached descriptions, or 0 for an unbounded cache
+     */
+    public CachedRegistry(Class<R> rawDescriptionClass, T transformer, Resolver resolver, Executor loaderExecutor,
+                          long maximumWeight) {
+        this(rawDescriptionClass, transformer, resolver, loaderExecutor, maximumWeight, false);
+    }
+
+    /**
+     * Create a registry whose description cache is bounded by weight, optionally accelerating the binding
+     * of raw descriptions
+     *
+     * @param rawDescriptionClass the raw description class
+     * @param transformer the transformer
+     * @param resolver the resolver
+     * @param loaderExecutor the executor used to process templates for asynchronous callers
+     * @param maximumWeight the maximum total weight of cached descriptions, or 0 for an unbounded cache
+     * @param acceleratedBinding true to bind raw descriptions with generated accessors instead of reflection
+     */
+    public CachedRegistry(Class<R> rawDescriptionClass, T transformer, Resolver resolver, Executor loaderExecutor,
+                          long maximumWeight, boolean acceleratedBinding) {
+        this(rawDescriptionClass, TransformerFactory.shared(transformer), resolver, loaderExecutor, maximumWeight,
+                acceleratedBinding);
+    }
+
+    /**
+     * Create a registry whose transformers are supplied by a factory
+     *
+     * @param rawDescriptionClass the raw description class
+     * @param transformerFactory the transformer factory
+     * @param resolver the resolver
+     * @param loaderExecutor the executor used to process templates for asynchronous callers
+     * @param maximumWeight the maximum total weight of cached descriptions, or 0 for an unbounded cache
+     * @param acceleratedBinding true to bind raw descriptions with generated accessors instead of reflection
+     */
+    public CachedRegistry(Class<R> rawDescriptionClass, TransformerFactory<T> transformerFactory, Resolver resolver,
+                          Executor loaderExecutor, long maximumWeight, boolean acceleratedBinding) {
+        super(rawDescriptionClass, transformerFactory, resolver, acceleratedBinding);
         this.templateMap = new ConcurrentHashMap<>();
+        this.loaderMap = new ConcurrentHashMap<>();
+        this.loaderExecutor = loaderExecutor;
+        this.accessMap = new ConcurrentHashMap<>();
+        this.statsCounter = new ConcurrentStatsCounter();
+        this.templateLength = new LongAdder();
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .recordStats(() -> statsCounter);
+        if (maximumWeight > 0) {
+            builder.maximumWeight(maximumWeight)
+                    .<String, D>weigher(this::weigh);
+        }
+        this.descriptionCache = builder.build();
     }
 
     @Override
     public D getDescription(String descriptionName) {
-        D description = descriptionMap.get(descriptionName.toLowerCase());
+        String key = descriptionName.toLowerCase();
+        recordAccess(key);
+        D description = descriptionCache.getIfPresent(key);
+        getMetrics().recordLookup(key, description != null);
         if (description != null) {
             return description;
         }
-        Template template = templateMap.get(descriptionName.toLowerCase());
-        if (template != null) {
-            description = processTemplate(template);
-            descriptionMap.put(descriptionName.toLowerCase(), description);
-            return description;
+        CompletableFuture<D> loader = loadDescription(key, null);
+        if (loader == null) {
+            return null;
+        }
+        try {
+            return loader.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Return the description associated with the name asynchronously. A description that is already
+     * cached completes immediately on the calling thread; otherwise the template is processed on the
+     * loader executor, and the future completes exceptionally if the executor rejects the load.
+     *
+     * @param descriptionName the description name
+     * @return a future for the description, completing with null if no description by that name
+     */
+    @Override
+    public CompletableFuture<D> getDescriptionAsync(String descriptionName) {
+        String key = descriptionName.toLowerCase();
+        recordAccess(key);
+        D description = descriptionCache.getIfPresent(key);
+        getMetrics().recordLookup(key, description != null);
+        if (description != null) {
+            return CompletableFuture.completedFuture(description);
+        }
+        CompletableFuture<D> loader = loadDescription(key, loaderExecutor);
+        if (loader == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return loader;
+    }
+
+    /**
+     * Return the executor used to process templates for asynchronous callers
+     *
+     * @return the loader executor
+     */
+    public Executor getLoaderExecutor() {
+        return loaderExecutor;
+    }
+
+    /**
+     * Process the template of a description ahead of its first request, without counting it as an
+     * access to the description.
+     *
+     * @param descriptionName the description name
+     * @return true if the description was processed, false if it was already cached or is unknown
+     */
+    public boolean prewarmDescription(String descriptionName) {
+        String key = descriptionName.toLowerCase();
+        if (descriptionCache.asMap().containsKey(key)) {
+            return false;
+        }
+        CompletableFuture<D> loader = loadDescription(key, null);
+        if (loader == null) {
+            return false;
+        }
+        loader.join();
+        return true;
+    }
+
+    /**
+     * Return the names of the templates held by this registry
+     *
+     * @return the description names
+     */
+    public Set<String> getDescriptionNames() {
+        return templateMap.keySet();
+    }
+
+    /**
+     * Return the number of times each description has been requested since this registry was created
+     *
+     * @return the access count by description name
+     */
+    public Map<String, Long> getAccessCounts() {
+        Map<String, Long> accessCounts = new HashMap<>();
+        accessMap.forEach((key, count) -> accessCounts.put(key, count.sum()));
+        return accessCounts;
+    }
+
+    /**
+     * Return a snapshot of the description cache statistics
+     *
+     * @return the cache statistics
+     */
+    public RegistryStats getStats() {
+        CacheStats stats = descriptionCache.stats();
+        return new RegistryStats(stats.hitCount(), stats.missCount(), stats.loadSuccessCount(),
+                stats.loadFailureCount(), stats.totalLoadTime(), stats.evictionCount(), stats.evictionWeight(),
+                descriptionCache.estimatedSize());
+    }
+
+    /**
+     * Register the gauges describing the contents of this registry. Every gauge reads a value that is
+     * maintained as the registry changes, so publishing the metrics does not walk the templates or the
+     * descriptions. The weight of the descriptions is only published for a cache bounded by weight.
+     *
+     * @param metrics the registry metrics
+     */
+    @Override
+    protected void registerGauges(RegistryMetrics metrics) {
+        metrics.registerGauge("templates", templateMap::mappingCount);
+        metrics.registerGauge("templates.bytes", templateLength::sum);
+        metrics.registerGauge("descriptions", descriptionCache::estimatedSize);
+        descriptionCache.policy().eviction().ifPresent(eviction ->
+                metrics.registerGauge("descriptions.weight", () -> eviction.weightedSize().orElse(0)));
+        metrics.registerGauge("descriptions.distinct", this::getDistinctDescriptionCount);
+    }
+
+    /**
+     * Estimate the weight of a description for a bounded cache. The default implementation uses the
+     * length of the description's template, a proxy for the size of the description on the heap.
+     *
+     * @param key the lower case description name
+     * @param description the description
+     * @return the weight of the description
+     */
+    protected int weigh(String key, D description) {
+        Template template = templateMap.get(key);
+        if (template == null) {
+            return 1;
         }
-        return null;
+        return Math.max(1, template.getLength());
+    }
+
+    /**
+     * Return the template of the description identified by the key
+     *
+     * @param key the lower case description name
+     * @return the template or null if no template by that name
+     */
+    protected Template getTemplate(String key) {
+        return templateMap.get(key);
+    }
+
+    /**
+     * Report whether this registry holds a template for the description identified by the key
+     *
+     * @param key the lower case description name
+     * @return true if a template by that name is available
+     */
+    protected boolean containsTemplate(String key) {
+        return templateMap.containsKey(key);
+    }
+
+    /**
+     * Hold a template for the description identified by the key, replacing any previous template
+     *
+     * @param key the lower case description name
+     * @param template the template
+     * @return the previous template, or null
+     */
+    protected Template putTemplate(String key, Template template) {
+        Template previous = templateMap.put(key, template);
+        templateLength.add(lengthOf(template) - lengthOf(previous));
+        return previous;
+    }
+
+    /**
+     * Hold a template for the description identified by the key, unless a template is already held
+     *
+     * @param key the lower case description name
+     * @param template the template
+     * @return true if the template was added
+     */
+    protected boolean putTemplateIfAbsent(String key, Template template) {
+        if (templateMap.putIfAbsent(key, template) != null) {
+            return false;
+        }
+        templateLength.add(lengthOf(template));
+        return true;
+    }
+
+    /**
+     * Hold the template created for the description identified by the key, unless a template is already held
+     *
+     * @param key the lower case description name
+     * @param templateFunction the function creating the template
+     * @return the template held for the key
+     */
+    protected Template computeTemplateIfAbsent(String key, Function<String, Template> templateFunction) {
+        return templateMap.computeIfAbsent(key, k -> {
+            Template template = templateFunction.apply(k);
+            templateLength.add(lengthOf(template));
+            return template;
+        });
+    }
+
+    /**
+     * Stop holding the template of the description identified by the key
+     *
+     * @param key the lower case description name
+     * @return the removed template, or null
+     */
+    protected Template removeTemplate(String key) {
+        Template previous = templateMap.remove(key);
+        templateLength.add(-lengthOf(previous));
+        return previous;
+    }
+
+    private static long lengthOf(Template template) {
+        return template == null ? 0 : Math.max(0, template.getLength());
+    }
+
+    private void recordAccess(String key) {
+        if (containsTemplate(key)) {
+            accessMap.computeIfAbsent(key, k -> new LongAdder()).increment();
+        }
+    }
+
+    /**
+     * Discard the description identified by the key, and any load of it in flight, so that the next
+     * request processes the current template
+     *
+     * @param key the lower case description name
+     */
+    protected void invalidateDescription(String key) {
+        loaderMap.remove(key);
+        descriptionCache.invalidate(key);
+    }
+
+    /**
+     * Return the future loading the description identified by the key, starting a new load only if
+     * no load for that key is in flight.
+     *
+     * @param key the lower case description name
+     * @param executor the executor to run the load on, or null to run it on the calling thread
+     * @return a future for the description or null if there is no template by that name
+     */
+    protected CompletableFuture<D> loadDescription(String key, Executor executor) {
+        Template template = getTemplate(key);
+        if (template == null) {
+            return null;
+        }
+        CompletableFuture<D> loader = new CompletableFuture<>();
+        CompletableFuture<D> inFlight = loaderMap.putIfAbsent(key, loader);
+        if (inFlight != null) {
+            return inFlight;
+        }
+        Runnable load = () -> {
+            try {
+                // a previous load may have completed between the cache miss and claiming the loader
+                D description = descriptionCache.asMap().get(key);
+                if (description == null) {
+                    long start = System.nanoTime();
+                    try {
+                        description = processTemplate(template);
+                    } catch (Throwable e) {
+                        statsCounter.recordLoadFailure(System.nanoTime() - start);
+                        throw e;
+                    }
+                    statsCounter.recordLoadSuccess(System.nanoTime() - start);
+                    descriptionCache.put(key, description);
+                    if (getTemplate(key) != template) {
+                        // the template was replaced while loading, keep the stale description out of the cache
+                        descriptionCache.asMap().remove(key, description);
+                    }
+                }
+                loader.complete(description);
+            } catch (Throwable e) {
+                loader.completeExceptionally(e);
+            } finally {
+                loaderMap.remove(key, loader);
+            }
+        };
+        if (executor == null) {
+            load.run();
+        } else {
+            try {
+                executor.execute(load);
+            } catch (RejectedExecutionException e) {
+                loaderMap.remove(key, loader);
+                loader.completeExceptionally(e);
+            }
+        }
+        return loader;
     }
 
     public void processResources(String locationPattern) {
         Stream<Template> templates = getResources(locationPattern);
         Map<String, Template> descriptions = templates
                 .collect(toMap(template -> getTemplateName(template.getName()).toLowerCase(), template -> template));
-        templateMap.putAll(descriptions);
+        descriptions.forEach(this::putTemplate);
+    }
+
+    public void processBundle(String location) {
+        try (Stream<Template> templates = getBundleResources(location)) {
+            templates.forEach(template -> putTemplateIfAbsent(
+                    getTemplateName(template.getName()).toLowerCase(), template));
+        }
     }
 
     public void processResource(String location) {
         Template template = getResource(location);
-        templateMap.putIfAbsent(getTemplateName(template.getName()), template);
+        putTemplateIfAbsent(getTemplateName(template.getName()), template);
+    }
+
+    /**
+     * Create a bounded executor to process templates for asynchronous callers. Loads beyond the queue
+     * capacity are rejected, so that a burst of misses fails fast instead of queueing without limit.
+     *
+     * @param threads the maximum number of loader threads
+     * @param queueCapacity the maximum number of loads waiting for a thread
+     * @return a loader executor
+     */
+    public static ExecutorService newLoaderExecutor(int threads, int queueCapacity) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new LoaderThreadFactory());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Return the loader executor shared by the registries created without one, created on first use.
+     * Its threads are daemons that time out when idle, so it is never shut down.
+     *
+     * @return the default loader executor
+     */
+    public static Executor getDefaultLoaderExecutor() {
+        return DefaultLoaderExecutorHolder.EXECUTOR;
+    }
+
+    private static class DefaultLoaderExecutorHolder {
+
+        private static final ExecutorService EXECUTOR =
+                newLoaderExecutor(Runtime.getRuntime().availableProcessors(), DEFAULT_LOADER_QUEUE_CAPACITY);
+    }
+
+    public static class LoaderThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadNum = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, String.format("loader-thread-%d", threadNum.incrementAndGet()));
+            thread.setDaemon(true);
+            return thread;
+        }
     }
 }
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.metadata;
+
+import org.apitome.core.error.ConfigurationException;
+import org.apitome.core.expression.Resolver;
+import org.apitome.core.template.Template;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * A cached registry that layers the templates of several description sources, for example a classpath
+ * base, a filesystem overlay and a configuration server.
+ * <p/>
+ * Sources are listed from lowest to highest precedence: a template provided by a later source replaces
+ * the template with the same name provided by an earlier one. Sources are fetched concurrently on the
+ * loader executor and merged into one snapshot, which replaces the templates loaded previously from the
+ * sources. Templates are compared by the hash of their source, so reloading an unchanged template keeps
+ * its cached description. The source each description comes from is recorded as its origin.
+ *
+ * @param <D> the description type
+ * @param <R> the raw description type
+ * @param <T> the transformer type
+ */
+public class CompositeRegistry<D, R extends Transformable<D, T>, T extends Transformer> extends CachedRegistry<D, R, T> {
+
+    private final List<DescriptionSource> sources;
+
+    private final ConcurrentHashMap<String, String> originMap;
+
+    private final ConcurrentHashMap<String, String> sourceHashMap;
+
+    public CompositeRegistry(Class<R> rawDescriptionClass, T transformer, Resolver resolver,
+                             List<DescriptionSource> sources) {
+        this(rawDescriptionClass, transformer, resolver, getDefaultLoaderExecutor(), sources);
+    }
+
+    public CompositeRegistry(Class<R> rawDescriptionClass, T transformer, Resolver resolver, Executor loaderExecutor,
+                             List<DescriptionSource> sources) {
+        super(rawDescriptionClass, transformer, resolver, loaderExecutor);
+        this.sources = List.copyOf(sources);
+        this.originMap = new ConcurrentHashMap<>();
+        this.sourceHashMap = new ConcurrentHashMap<>();
+    }
+
+    public List<DescriptionSource> getSources() {
+        return sources;
+    }
+
+    /**
+     * Fetch the templates of every source concurrently and merge them into a new snapshot. Descriptions
+     * whose template changed are processed again on their next request.
+     */
+    public void processSources() {
+        List<CompletableFuture<List<Template>>> fetches = new ArrayList<>();
+        for (DescriptionSource source : sources) {
+            fetches.add(CompletableFuture.supplyAsync(source::getTemplates, getLoaderExecutor()));
+        }
+        Map<String, Template> snapshot = new HashMap<>();
+        Map<String, String> origins = new HashMap<>();
+        for (int i = 0; i < sources.size(); i++) {
+            for (Template template : join(fetches.get(i))) {
+                String key = getTemplateName(template.getName()).toLowerCase();
+                snapshot.put(key, template);
+                origins.put(key, sources.get(i).getName());
+            }
+        }
+        for (String key : originMap.keySet()) {
+            if (!snapshot.containsKey(key)) {
+                removeTemplate(key);
+                originMap.remove(key);
+                sourceHashMap.remove(key);
+                invalidateDescription(key);
+            }
+        }
+        snapshot.forEach((key, template) -> {
+            String sourceHash = getSourceHash(template);
+            if (!sourceHash.equals(sourceHashMap.put(key, sourceHash))) {
+                putTemplate(key, template);
+                invalidateDescription(key);
+            }
+        });
+        originMap.putAll(origins);
+    }
+
+    /**
+     * Return the name of the source the description associated with the name was loaded from
+     *
+     * @param descriptionName the description name
+     * @return the source name, or null if the description was not loaded from a source
+     */
+    public String getOrigin(String descriptionName) {
+        return originMap.get(descriptionName.toLowerCase());
+    }
+
+    /**
+     * Return the source name of every description loaded from a source
+     *
+     * @return the source name by description name
+     */
+    public Map<String, String> getOrigins() {
+        return Map.copyOf(originMap);
+    }
+
+    private static List<Template> join(CompletableFuture<List<Template>> fetch) {
+        try {
+            return fetch.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new ConfigurationException(cause);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.metadata;
+
+import org.apitome.core.error.ConfigurationException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * ContentHash computes the content address of a template: a SHA-256 digest of the content that is bound
+ * into a raw description, qualified by the format that content is read with. Templates with the same
+ * content hash produce equal descriptions, whatever their names.
+ */
+final class ContentHash {
+
+    private static final String ALGORITHM = "SHA-256";
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private ContentHash() {
+    }
+
+    /**
+     * Create a digest for the content read with a format
+     *
+     * @param format the format the content is read with
+     * @return a digest
+     */
+    static MessageDigest digest(String format) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance(ALGORITHM);
+            update(digest, format);
+            return digest;
+        } catch (NoSuchAlgorithmException e) {
+            throw new ConfigurationException(e);
+        }
+    }
+
+    static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    /**
+     * Get the content hash of a resolved text template
+     *
+     * @param format the format the content is read with
+     * @param content the resolved content
+     * @return the content hash
+     */
+    static String of(String format, String content) {
+        MessageDigest digest = digest(format);
+        update(digest, content);
+        return toString(digest);
+    }
+
+    static String toString(MessageDigest digest) {
+        byte[] hash = digest.digest();
+        char[] chars = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            chars[i * 2] = HEX_DIGITS[(hash[i] >> 4) & 0xf];
+            chars[i * 2 + 1] = HEX_DIGITS[hash[i] & 0xf];
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.metadata;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import org.apitome.core.error.ConfigurationException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * DescriptionConverter compiles JSON and YAML descriptions into a binary encoding (Smile or CBOR) that is
+ * faster to decode at runtime.
+ * <p/>
+ * The description is converted as a tree, so expressions are preserved in the string values that hold
+ * them and are resolved by the registry after decoding. Expressions must therefore appear within string
+ * values; an expression in place of a JSON number or in a field name cannot be preserved.
+ */
+public class DescriptionConverter {
+
+    private static final ObjectMapper JSON_MAPPER = JsonMapper.builder().build();
+
+    private static final ObjectMapper YAML_MAPPER = JsonMapper.builder(new YAMLFactory()).build();
+
+    private static final ObjectMapper SMILE_MAPPER = JsonMapper.builder(new SmileFactory()).build();
+
+    private static final ObjectMapper CBOR_MAPPER = JsonMapper.builder(new CBORFactory()).build();
+
+    private DescriptionConverter() {
+    }
+
+    /**
+     * Convert a JSON or YAML description into a binary encoding
+     *
+     * @param templateName the name of the description, whose extension identifies its format
+     * @param inputStream the description contents
+     * @param target the binary format to convert to
+     * @return the encoded description
+     */
+    public static byte[] convert(String templateName, InputStream inputStream, DescriptionFormat target) {
+        DescriptionFormat source = DescriptionFormat.fromTemplateName(templateName);
+        if (source == null || source.isBinary()) {
+            throw new IllegalArgumentException("Description '" + templateName + "' is not JSON or YAML");
+        }
+        if (!target.isBinary()) {
+            throw new IllegalArgumentException("Format " + target + " is not a binary format");
+        }
+        ObjectMapper sourceMapper = source == DescriptionFormat.YAML ? YAML_MAPPER : JSON_MAPPER;
+        ObjectMapper targetMapper = target == DescriptionFormat.SMILE ? SMILE_MAPPER : CBOR_MAPPER;
+        try (InputStream stream = inputStream) {
+            JsonNode tree = sourceMapper.readTree(stream);
+            return targetMapper.writeValueAsBytes(tree);
+        } catch (IOException e) {
+            throw new ConfigurationException(e);
+        }
+    }
+
+    /**
+     * Convert description files into a binary encoding, writing each next to its source with the extension
+     * of the binary format
+     * <p/>
+     * Arguments: the target format (smile or cbor) followed by the description files to convert.
+     *
+     * @param args the arguments
+     * @throws IOException if a converted description cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Usage: DescriptionConverter <smile|cbor> <file>...");
+        }
+        DescriptionFormat target = DescriptionFormat.fromExtension(args[0]);
+        if (target == null) {
+            throw new IllegalArgumentException("Unknown format " + args[0]);
+        }
+        for (int i = 1; i < args.length; i++) {
+            Path source = Paths.get(args[i]);
+            String fileName = source.getFileName().toString();
+            byte[] content = convert(fileName, Files.newInputStream(source), target);
+            String baseName = fileName.substring(0, fileName.lastIndexOf('.'));
+            Files.write(source.resolveSibling(baseName + "." + target.getExtension()), content);
+        }
+    }
+}
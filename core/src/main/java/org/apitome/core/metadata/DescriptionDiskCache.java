@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.metadata;
+
+import org.apitome.core.error.ConfigurationException;
+import org.apitome.core.expression.Resolver;
+import org.apitome.core.logging.LogFields;
+import org.apitome.core.logging.LoggerAware;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.apitome.core.logging.OpLogEvent.DISK_CACHE_EXCEPTION;
+import static org.apitome.core.logging.OpLogKey.DESCRIPTION_NAME;
+
+/**
+ * DescriptionDiskCache persists processed templates across restarts, so that a registry only resolves
+ * and parses the templates that changed since the previous run.
+ * <p/>
+ * An entry holds the resolved content of a template encoded as Smile, keyed by the content hash of
+ * the template, the fingerprint of the resolver its expressions are resolved with, taken when the cache
+ * is created, and the version of the registry's transformer. Entries are written once to a temporary
+ * file and atomically moved in place, so they are immutable and are read through memory-mapped files,
+ * which are unmapped once bound. A failure to read or write an entry, or an entry that turns out to be
+ * corrupt, is logged and treated as a miss.
+ */
+public class DescriptionDiskCache implements LoggerAware {
+
+    private static final String ENTRY_EXT = ".smile";
+
+    private static final MethodHandle UNMAPPER = findUnmapper();
+
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+    private final Path directory;
+
+    private final String resolverHash;
+
+    private final LongAdder hitCount;
+
+    private final LongAdder missCount;
+
+    /**
+     * Create a disk cache
+     *
+     * @param directory the cache directory, created if it does not exist
+     * @param resolver the resolver the registry resolves template expressions with
+     * @throws IllegalArgumentException if the resolver has no fingerprint
+     */
+    public DescriptionDiskCache(Path directory, Resolver resolver) {
+        String fingerprint = resolver.getFingerprint();
+        if (fingerprint == null) {
+            throw new IllegalArgumentException("Resolver " + resolver.getClass().getName()
+                    + " has no fingerprint to key cached descriptions with");
+        }
+        this.directory = directory;
+        this.resolverHash = ContentHash.of("resolver", fingerprint);
+        this.hitCount = new LongAdder();
+        this.missCount = new LongAdder();
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new ConfigurationException(e);
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Get the key of the entry for a template
+     *
+     * @param contentHash the content hash of the template
+     * @param transformerVersion the version of the registry's transformer
+     * @return the entry key
+     */
+    public String getKey(String contentHash, String transformerVersion) {
+        MessageDigest digest = ContentHash.digest(contentHash);
+        ContentHash.update(digest, resolverHash);
+        ContentHash.update(digest, transformerVersion);
+        return ContentHash.toString(digest);
+    }
+
+    /**
+     * Read an entry, mapping its file into memory. The entry must be given back with
+     * {@link #release(ByteBuffer)} once it has been bound.
+     *
+     * @param key the entry key
+     * @param templateName the name of the template the entry was written for
+     * @return the entry contents, or null if there is no readable entry
+     */
+    public ByteBuffer read(String key, String templateName) {
+        Path entryPath = getEntryPath(key);
+        if (!Files.isRegularFile(entryPath)) {
+            missCount.increment();
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(entryPath, StandardOpenOption.READ)) {
+            ByteBuffer content = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            hitCount.increment();
+            return content;
+        } catch (IOException e) {
+            missCount.increment();
+            logException(templateName, e);
+            return null;
+        }
+    }
+
+    /**
+     * Release an entry returned by {@link #read(String, String)}, unmapping its file. The entry must not be
+     * used afterwards.
+     *
+     * @param content the entry contents
+     */
+    public void release(ByteBuffer content) {
+        if (UNMAPPER != null && content instanceof MappedByteBuffer) {
+            try {
+                UNMAPPER.invokeExact(content);
+            } catch (Throwable e) {
+                // the mapping is released when the buffer is collected
+            }
+        }
+    }
+
+    /**
+     * Report that an entry read as a hit could not be bound, counting the read as a miss instead
+     *
+     * @param templateName the name of the template the entry was read for
+     * @param e the exception raised binding the entry
+     */
+    public void reportCorrupt(String templateName, Exception e) {
+        hitCount.decrement();
+        missCount.increment();
+        logException(templateName, e);
+    }
+
+    /**
+     * Write an entry, replacing any entry with the same key
+     *
+     * @param key the entry key
+     * @param templateName the name of the template the entry is written for
+     * @param content the entry contents
+     */
+    public void write(String key, String templateName, byte[] content) {
+        Path entryPath = getEntryPath(key);
+        Path tempPath = null;
+        try {
+            tempPath = Files.createTempFile(directory, key, ".tmp");
+            Files.write(tempPath, content);
+            Files.move(tempPath, entryPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logException(templateName, e);
+            if (tempPath != null) {
+                try {
+                    Files.deleteIfExists(tempPath);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    @Override
+    public Logger getLogger() {
+        return log;
+    }
+
+    private Path getEntryPath(String key) {
+        return directory.resolve(key + ENTRY_EXT);
+    }
+
+    private void logException(String templateName, Exception e) {
+        LogFields logFields = LogFields.builder(DISK_CACHE_EXCEPTION)
+                .addKeyValue(DESCRIPTION_NAME, templateName)
+                .build();
+        logError(logFields, e);
+    }
+
+    /**
+     * Find the method unmapping a mapped buffer, which is only available through the unsupported
+     * {@code sun.misc.Unsafe}
+     */
+    private static MethodHandle findUnmapper() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field unsafeField = unsafeClass.getDeclaredField("theUnsafe");
+            unsafeField.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(unsafeField.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
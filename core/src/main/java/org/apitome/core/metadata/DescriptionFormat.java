@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.metadata;
+
+/**
+ * The encodings supported for raw descriptions, selected by the extension of the template name
+ */
+public enum DescriptionFormat {
+
+    JSON(false, "json"),
+    YAML(false, "yaml", "yml"),
+    SMILE(true, "smile", "sml"),
+    CBOR(true, "cbor");
+
+    private final boolean binary;
+
+    private final String[] extensions;
+
+    DescriptionFormat(boolean binary, String... extensions) {
+        this.binary = binary;
+        this.extensions = extensions;
+    }
+
+    /**
+     * Report whether this format is a binary encoding, which cannot be processed as text
+     *
+     * @return true for a binary encoding
+     */
+    public boolean isBinary() {
+        return binary;
+    }
+
+    /**
+     * Return the preferred extension for this format
+     *
+     * @return the extension
+     */
+    public String getExtension() {
+        return extensions[0];
+    }
+
+    /**
+     * Return the format associated with the extension
+     *
+     * @param ext an extension, without the separator
+     * @return the format or null if the extension is not recognized
+     */
+    public static DescriptionFormat fromExtension(String ext) {
+        if (ext == null) {
+            return null;
+        }
+        for (DescriptionFormat format : values()) {
+            for (String extension : format.extensions) {
+                if (extension.equalsIgnoreCase(ext)) {
+                    return format;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Return the format associated with the extension of the template name
+     *
+     * @param templateName a template name
+     * @return the format or null if the extension is not recognized
+     */
+    public static DescriptionFormat fromTemplateName(String templateName) {
+        int separator = templateName == null ? -1 : templateName.lastIndexOf('.');
+        if (separator < 0) {
+            return null;
+        }
+        return fromExtension(templateName.substring(separator + 1));
+    }
+}
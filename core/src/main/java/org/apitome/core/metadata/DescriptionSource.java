@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.metadata;
+
+import org.apitome.core.template.Template;
+
+import java.util.List;
+
+/**
+ * DescriptionSource is a location that templates are loaded from, such as the application classpath,
+ * a directory or a configuration server. Sources are layered by a {@link CompositeRegistry}.
+ */
+public interface DescriptionSource {
+
+    /**
+     * Return the name of this source, recorded as the origin of the descriptions it provides
+     *
+     * @return the source name
+     */
+    String getName();
+
+    /**
+     * Load the templates provided by this source. This method may block and is called on a loader thread.
+     *
+     * @return the templates
+     */
+    List<Template> getTemplates();
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.metadata;
+
+import org.apitome.core.error.ConfigurationException;
+import org.apitome.core.template.Template;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * A description source backed by a configuration server. The base URI returns the names of the
+ * templates it serves, one per line, and each template is served at the base URI followed by its name.
+ * Templates are requested concurrently. A name that is not a valid URI, or that resolves outside the
+ * base URI, fails the source.
+ */
+public class HttpDescriptionSource implements DescriptionSource {
+
+    private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(10);
+
+    private final String name;
+
+    private final URI baseUri;
+
+    private final HttpClient httpClient;
+
+    private final Duration timeout;
+
+    public HttpDescriptionSource(String name, URI baseUri) {
+        this(name, baseUri, HttpClient.newBuilder().connectTimeout(DEFAULT_TIMEOUT).build(), DEFAULT_TIMEOUT);
+    }
+
+    public HttpDescriptionSource(String name, URI baseUri, HttpClient httpClient, Duration timeout) {
+        this.name = name;
+        this.baseUri = baseUri.toString().endsWith("/") ? baseUri : URI.create(baseUri + "/");
+        this.httpClient = httpClient;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    public URI getBaseUri() {
+        return baseUri;
+    }
+
+    @Override
+    public List<Template> getTemplates() {
+        try {
+            String index = new String(send(baseUri).join(), StandardCharsets.UTF_8);
+            List<CompletableFuture<Template>> templates = new ArrayList<>();
+            for (String templateName : index.split("\\R")) {
+                String trimmedName = templateName.trim();
+                if (!trimmedName.isEmpty()) {
+                    templates.add(send(resolve(trimmedName)).thenApply(content ->
+                            new TemplateInput(trimmedName, new ByteArrayInputStream(content)).createTemplate()));
+                }
+            }
+            List<Template> result = new ArrayList<>();
+            for (CompletableFuture<Template> template : templates) {
+                result.add(template.join());
+            }
+            return result;
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof ConfigurationException) {
+                throw (ConfigurationException) e.getCause();
+            }
+            throw new ConfigurationException(e.getCause());
+        }
+    }
+
+    /**
+     * Resolve the URI of a template listed in the index, which must be served under the base URI
+     */
+    private URI resolve(String templateName) {
+        URI uri;
+        try {
+            uri = baseUri.resolve(templateName).normalize();
+        } catch (IllegalArgumentException e) {
+            throw new ConfigurationException(new IOException("Invalid template name '" + templateName
+                    + "' in the index of " + baseUri, e));
+        }
+        if (!uri.toString().startsWith(baseUri.normalize().toString())) {
+            throw new ConfigurationException(new IOException("Template '" + templateName
+                    + "' is not served under " + baseUri));
+        }
+        return uri;
+    }
+
+    private CompletableFuture<byte[]> send(URI uri) {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(timeout)
+                .GET()
+                .build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(response -> {
+                    if (response.statusCode() != 200) {
+                        throw new ConfigurationException(new IOException(
+                                "Unexpected status " + response.statusCode() + " from " + uri));
+                    }
+                    return response.body();
+                });
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.metadata;
+
+import org.apitome.core.error.ConfigurationException;
+import org.apitome.core.expression.Resolver;
+import org.apitome.core.metrics.RegistryMetrics;
+import org.apitome.core.metrics.RegistryStage;
+import org.apitome.core.template.Template;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * A cached registry that loads its templates from a precompiled {@link RegistryIndex} instead of
+ * discovering and reading individual resources at startup.
+ * <p/>
+ * Processing an index only maps it into memory and reads its directory. Each template is parsed from
+ * the index the first time its description is requested, and only the expressions left unresolved at
+ * build time are resolved at runtime.
+ * <p/>
+ * Zip archives opened by the registry stay open until the registry is closed.
+ *
+ * @param <D> the description type
+ * @param <R> the raw description type
+ * @param <T> the transformer type
+ */
+public class IndexedRegistry<D, R extends Transformable<D, T>, T extends Transformer> extends CachedRegistry<D, R, T>
+        implements Closeable {
+
+    protected final ConcurrentHashMap<String, Supplier<Template>> indexMap;
+
+    private final List<ZipBundle> bundles;
+
+    public IndexedRegistry(Class<R> rawDescriptionClass, T transformer, Resolver resolver) {
+        this(rawDescriptionClass, transformer, resolver, getDefaultLoaderExecutor(), 0);
+    }
+
+    public IndexedRegistry(Class<R> rawDescriptionClass, T transformer, Resolver resolver, Executor loaderExecutor,
+                           long maximumWeight) {
+        super(rawDescriptionClass, transformer, resolver, loaderExecutor, maximumWeight);
+        this.indexMap = new ConcurrentHashMap<>();
+        this.bundles = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * Map the index identified by the location and register its templates. Templates already
+     * registered under the same name take precedence.
+     *
+     * @param location the index location
+     */
+    public void processIndex(String location) {
+        RegistryIndex index = RegistryIndex.map(location, this.getClass().getClassLoader());
+        for (String templateName : index.getTemplateNames()) {
+            indexMap.putIfAbsent(getTemplateName(templateName).toLowerCase(), () -> index.getTemplate(templateName));
+        }
+    }
+
+    /**
+     * Register the templates of the bundle identified by the location. A registry index, or a zip archive
+     * in the file system, is opened without reading its templates, which are then read from their offset
+     * on first request; the archive stays open until the registry is closed. A zip archive that is not
+     * a file is streamed and its templates are registered eagerly.
+     *
+     * @param location the bundle location
+     */
+    @Override
+    public void processBundle(String location) {
+        if (!ZipBundle.isZip(location)) {
+            processIndex(location);
+            return;
+        }
+        Resource resource = new PathMatchingResourcePatternResolver(this.getClass().getClassLoader()).getResource(location);
+        if (!resource.isFile()) {
+            super.processBundle(location);
+            return;
+        }
+        try {
+            ZipBundle bundle = ZipBundle.open(resource.getFile().toPath());
+            bundles.add(bundle);
+            for (String templateName : bundle.getTemplateNames()) {
+                indexMap.putIfAbsent(getTemplateName(templateName).toLowerCase(), () -> bundle.getTemplate(templateName));
+            }
+        } catch (IOException e) {
+            throw new ConfigurationException(e);
+        }
+    }
+
+    /**
+     * Close the zip archives opened by this registry. Templates that were not requested before can no
+     * longer be read.
+     */
+    @Override
+    public void close() {
+        for (ZipBundle bundle : bundles) {
+            bundles.remove(bundle);
+            bundle.close();
+        }
+    }
+
+    @Override
+    public Set<String> getDescriptionNames() {
+        Set<String> descriptionNames = new HashSet<>(super.getDescriptionNames());
+        descriptionNames.addAll(indexMap.keySet());
+        return descriptionNames;
+    }
+
+    @Override
+    protected Template getTemplate(String key) {
+        Template template = super.getTemplate(key);
+        if (template != null) {
+            return template;
+        }
+        Supplier<Template> templateSupplier = indexMap.get(key);
+        if (templateSupplier == null) {
+            return null;
+        }
+        return computeTemplateIfAbsent(key, k -> {
+            long start = System.nanoTime();
+            Template indexedTemplate = templateSupplier.get();
+            getMetrics().recordStage(RegistryStage.PARSE, indexedTemplate.getName(), System.nanoTime() - start);
+            return indexedTemplate;
+        });
+    }
+
+    @Override
+    protected void registerGauges(RegistryMetrics metrics) {
+        super.registerGauges(metrics);
+        metrics.registerGauge("templates.indexed", indexMap::size);
+    }
+
+    @Override
+    protected boolean containsTemplate(String key) {
+        return super.containsTemplate(key) || indexMap.containsKey(key);
+    }
+}
@@ -16,6 +16,8 @@
 
 package org.apitome.core.metadata;
 
+import org.apitome.core.metrics.RegistryMetrics;
+import org.apitome.core.metrics.RegistryStage;
 import org.apitome.core.template.Template;
 
 import java.util.List;
@@ -38,15 +40,23 @@ public class InputSpliterator implements Spliterator<Template> {
 
     private final List<TemplateInput> inputs;
 
+    private final RegistryMetrics metrics;
+
     public InputSpliterator(List<TemplateInput> inputs, int maxConcurrency) {
+        this(inputs, maxConcurrency, RegistryMetrics.NOOP);
+    }
+
+    public InputSpliterator(List<TemplateInput> inputs, int maxConcurrency, RegistryMetrics metrics) {
         this.inputs = inputs;
+        this.metrics = metrics;
         this.maxConcurrency = maxConcurrency;
         this.begin = 0;
         this.end = inputs.size();
     }
 
-    private InputSpliterator(List<TemplateInput> inputs, int begin, int end) {
+    private InputSpliterator(List<TemplateInput> inputs, RegistryMetrics metrics, int begin, int end) {
         this.inputs = inputs;
+        this.metrics = metrics;
         this.maxConcurrency = 1; // split instance does not split up
         this.begin = begin;
         this.end = end;
@@ -58,7 +68,9 @@ public class InputSpliterator implements Spliterator<Template> {
             return false;
         }
         TemplateInput input = inputs.get(begin);
-        Template template = Template.from(input.getTemplateName(), input.getInputStream());
+        long start = System.nanoTime();
+        Template template = input.createTemplate();
+        metrics.recordStage(RegistryStage.PARSE, template.getName(), System.nanoTime() - start);
         action.accept(template);
         begin++;
         return true;
@@ -75,7 +87,7 @@ public class InputSpliterator implements Spliterator<Template> {
         }
         this.maxConcurrency -= 1;
         int newEnd = begin + partitionSize;
-        InputSpliterator partition = new InputSpliterator(inputs, begin, newEnd);
+        InputSpliterator partition = new InputSpliterator(inputs, metrics, begin, newEnd);
         this.begin = newEnd;
         return partition;
     }
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.metadata;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * ReactiveRegistry adapts a registry to Reactor, for callers running on an event loop. Descriptions
+ * that are already processed are emitted on the subscribing thread; descriptions that must be processed
+ * are emitted on the registry's loader thread, so a miss never blocks the event loop.
+ *
+ * @param <D> the description type
+ */
+public class ReactiveRegistry<D> {
+
+    private final Registry<D, ?, ?> registry;
+
+    public ReactiveRegistry(Registry<D, ?, ?> registry) {
+        this.registry = registry;
+    }
+
+    public Registry<D, ?, ?> getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Return the description associated with the name. The lookup starts on subscription.
+     *
+     * @param descriptionName the description name
+     * @return a mono emitting the description, or completing empty if no description by that name
+     */
+    public Mono<D> getDescription(String descriptionName) {
+        return Mono.fromFuture(() -> registry.getDescriptionAsync(descriptionName));
+    }
+}
@@ -18,6 +18,8 @@ package org.apitome.core.metadata;
 
 import org.apitome.core.error.ConfigurationException;
 import org.apitome.core.expression.Resolver;
+import org.apitome.core.metrics.RegistryMetrics;
+import org.apitome.core.metrics.RegistryStage;
 import org.apitome.core.template.Template;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
@@ -25,6 +27,7 @@ import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -64,6 +67,15 @@ public interface Registry<D, R extends Transformable<D, T>, T extends Transforme
      */
     Resolver getResolver();
 
+    /**
+     * Return the metrics this registry reports its processing to
+     *
+     * @return the registry metrics
+     */
+    default RegistryMetrics getMetrics() {
+        return RegistryMetrics.NOOP;
+    }
+
     /**
      * Return the number of concurrent threads to be used to process raw descriptions
      *
@@ -81,6 +93,22 @@ public interface Registry<D, R extends Transformable<D, T>, T extends Transforme
      */
     D getDescription(String descriptionName);
 
+    /**
+     * Return the description associated with the name asynchronously. Registries that process
+     * descriptions on demand complete the future on a loader thread; by default the description is
+     * looked up on the calling thread and returned as a completed future.
+     *
+     * @param descriptionName the description name
+     * @return a future for the description, completing with null if no description by that name
+     */
+    default CompletableFuture<D> getDescriptionAsync(String descriptionName) {
+        try {
+            return CompletableFuture.completedFuture(getDescription(descriptionName));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
     /**
      * Get resources within the application that match the provided location pattern
      *
@@ -93,7 +121,8 @@ public interface Registry<D, R extends Transformable<D, T>, T extends Transforme
 
     /**
      * Get resources within the application that match the provided location pattern, processing them
-     * in parallel if needed to improve performance.
+     * in parallel if needed to improve performance. Parallel streams are partitioned by template size,
+     * into at most {@link #getConcurrency()} partitions.
      *
      * @param locationPattern a pattern
      * @param parallel a flag indicating parallel processing is desired
@@ -106,15 +135,38 @@ public interface Registry<D, R extends Transformable<D, T>, T extends Transforme
             Resource[] resources = resolver.getResources(locationPattern);
             List<TemplateInput> inputs = new ArrayList<>();
             for (Resource resource : resources) {
-                inputs.add(new TemplateInput(resource.getFilename(), resource.getInputStream()));
+                inputs.add(new TemplateInput(resource.getFilename(), resource.getInputStream(), getContentLength(resource)));
             }
-            InputSpliterator spliterator = new InputSpliterator(inputs, getConcurrency());
+            SizedInputSpliterator spliterator = new SizedInputSpliterator(inputs,
+                    SizedInputSpliterator.DEFAULT_MINIMUM_PARTITION_LENGTH, getConcurrency(), getMetrics());
             return StreamSupport.stream(spliterator, parallel);
         } catch (IOException e) {
             throw new ConfigurationException(e);
         }
     }
 
+    /**
+     * Get the templates packaged in the bundle identified by the location, either a zip archive or a
+     * {@link RegistryIndex}. The bundle is read in a single sequential pass and the returned stream
+     * should be closed once consumed.
+     *
+     * @param location the bundle location
+     * @return a sequential stream of templates
+     */
+    default Stream<Template> getBundleResources(String location) {
+        if (ZipBundle.isZip(location)) {
+            PathMatchingResourcePatternResolver resolver =
+                    new PathMatchingResourcePatternResolver(this.getClass().getClassLoader());
+            try {
+                return ZipBundle.stream(resolver.getResource(location).getInputStream());
+            } catch (IOException e) {
+                throw new ConfigurationException(e);
+            }
+        }
+        RegistryIndex index = RegistryIndex.map(location, this.getClass().getClassLoader());
+        return index.getTemplateNames().stream().map(index::getTemplate);
+    }
+
     /**
      * Get the resource identified by the location
      *
@@ -126,7 +178,10 @@ public interface Registry<D, R extends Transformable<D, T>, T extends Transforme
                 new PathMatchingResourcePatternResolver(this.getClass().getClassLoader());
         Resource resource = resolver.getResource(location);
         try {
-            return Template.from(resource.getFilename(), resource.getInputStream());
+            long start = System.nanoTime();
+            Template template = new TemplateInput(resource.getFilename(), resource.getInputStream()).createTemplate();
+            getMetrics().recordStage(RegistryStage.PARSE, template.getName(), System.nanoTime() - start);
+            return template;
         } catch (IOException e) {
             throw new ConfigurationException(e);
         }
@@ -157,4 +212,12 @@ public interface Registry<D, R extends Transformable<D, T>, T extends Transforme
     default D transformDescription(R rawDescription) {
         return rawDescription.accept(getTransformer());
     }
+
+    private static long getContentLength(Resource resource) {
+        try {
+            return resource.contentLength();
+        } catch (IOException e) {
+            return TemplateInput.UNKNOWN_LENGTH;
+        }
+    }
 }
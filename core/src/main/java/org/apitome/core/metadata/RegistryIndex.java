@@ -0,0 +1,377 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.metadata;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import org.apitome.core.error.ConfigurationException;
+import org.apitome.core.expression.Resolver;
+import org.apitome.core.template.BinaryTemplate;
+import org.apitome.core.template.Template;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * RegistryIndex is a precompiled set of templates, produced at build time and mapped into memory at
+ * startup by an {@link IndexedRegistry}.
+ * <p/>
+ * At build time, the templates matching a location pattern are parsed and the immediate expressions
+ * whose properties are known to the build are resolved. Deferred expressions, and immediate expressions
+ * whose properties are only known at runtime, are kept as they are. A JSON or YAML template whose
+ * remaining expressions all sit in string values is then parsed and stored as a Smile tree, under
+ * its name with the Smile extension, so that at runtime it is decoded without text parsing and only
+ * the string values holding expressions are resolved. Templates with expressions elsewhere, such as
+ * in field names or unquoted values, are stored as resolved text and parsed at runtime. Binary
+ * templates are copied as they are, since their expressions are resolved after decoding. Build
+ * property values must not contain expressions, which runtime would resolve again. The resulting
+ * templates are written into a single index file with the following layout (all integers big endian):
+ * <pre>
+ *     int    magic number
+ *     int    format version
+ *     int    entry count
+ *     entry count times:
+ *         short  template name length, followed by the UTF-8 template name
+ *         int    template offset from the start of the index
+ *         int    template length
+ *     the contents of every template: Smile trees for templates stored as Smile, including converted
+ *     JSON and YAML templates, CBOR for CBOR templates, and UTF-8 text for templates stored as text
+ * </pre>
+ * The index can be produced from a build with the {@link #main(String[])} method, for example with a
+ * Gradle JavaExec task, and packaged as a resource of the application.
+ */
+public class RegistryIndex {
+
+    public static final int MAGIC = 0x41504958;
+
+    public static final int VERSION = 1;
+
+    private final ByteBuffer buffer;
+
+    private final Map<String, Entry> entries;
+
+    private RegistryIndex(ByteBuffer buffer, Map<String, Entry> entries) {
+        this.buffer = buffer;
+        this.entries = entries;
+    }
+
+    /**
+     * Return the template names in this index, including their extensions
+     *
+     * @return the template names
+     */
+    public List<String> getTemplateNames() {
+        return new ArrayList<>(entries.keySet());
+    }
+
+    /**
+     * Return the number of templates in this index
+     *
+     * @return the number of templates
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Create the template identified by the name from its contents in the index
+     *
+     * @param templateName the template name, including its extension
+     * @return the template or null if the index has no template by that name
+     */
+    public Template getTemplate(String templateName) {
+        Entry entry = entries.get(templateName);
+        if (entry == null) {
+            return null;
+        }
+        return new TemplateInput(templateName, getContents(entry)).createTemplate();
+    }
+
+    private InputStream getContents(Entry entry) {
+        ByteBuffer contents = buffer.duplicate();
+        contents.position(entry.offset);
+        contents.limit(entry.offset + entry.length);
+        byte[] bytes = new byte[entry.length];
+        contents.get(bytes);
+        return new ByteArrayInputStream(bytes);
+    }
+
+    /**
+     * Map the index identified by the location into memory. An index in the file system is memory mapped;
+     * an index in an archive is read into a buffer.
+     *
+     * @param location the index location
+     * @param classLoader the class loader used to resolve classpath locations
+     * @return the index
+     */
+    public static RegistryIndex map(String location, ClassLoader classLoader) {
+        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver(classLoader);
+        Resource resource = resolver.getResource(location);
+        try {
+            if (resource.isFile()) {
+                return map(resource.getFile().toPath());
+            }
+            try (InputStream inputStream = resource.getInputStream()) {
+                return read(ByteBuffer.wrap(inputStream.readAllBytes()));
+            }
+        } catch (IOException e) {
+            throw new ConfigurationException(e);
+        }
+    }
+
+    /**
+     * Map the index file into memory
+     *
+     * @param path the index file
+     * @return the index
+     */
+    public static RegistryIndex map(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // the mapping remains valid after the channel is closed
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException e) {
+            throw new ConfigurationException(e);
+        }
+    }
+
+    /**
+     * Read an index from a buffer holding its contents
+     *
+     * @param buffer the index contents
+     * @return the index
+     */
+    public static RegistryIndex read(ByteBuffer buffer) {
+        ByteBuffer header = buffer.duplicate();
+        if (header.remaining() < 12 || header.getInt() != MAGIC) {
+            throw new ConfigurationException(new IOException("Not a registry index"));
+        }
+        int version = header.getInt();
+        if (version != VERSION) {
+            throw new ConfigurationException(new IOException("Unsupported registry index version " + version));
+        }
+        int count = header.getInt();
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            byte[] name = new byte[header.getShort() & 0xffff];
+            header.get(name);
+            int offset = header.getInt();
+            int length = header.getInt();
+            entries.put(new String(name, StandardCharsets.UTF_8), new Entry(offset, length));
+        }
+        return new RegistryIndex(buffer, Collections.unmodifiableMap(entries));
+    }
+
+    /**
+     * Write an index of the templates matching the location pattern, resolving the immediate expressions
+     * whose properties are known at build time
+     *
+     * @param locationPattern the location pattern of the templates
+     * @param properties the properties known at build time
+     * @param outputStream the stream to write the index to
+     * @throws IOException if the templates cannot be read or the index cannot be written
+     */
+    public static void write(String locationPattern, Properties properties, OutputStream outputStream) throws IOException {
+        PathMatchingResourcePatternResolver resolver =
+                new PathMatchingResourcePatternResolver(RegistryIndex.class.getClassLoader());
+        Resource[] resources = resolver.getResources(locationPattern);
+        Resolver buildResolver = new BuildResolver(properties);
+        ObjectMapper jsonMapper = new ObjectMapper();
+        ObjectMapper yamlMapper = new ObjectMapper(new YAMLFactory());
+        ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+        List<byte[]> names = new ArrayList<>();
+        List<byte[]> contents = new ArrayList<>();
+        for (Resource resource : resources) {
+            if (!resource.isReadable()) {
+                continue;
+            }
+            String templateName = resource.getFilename();
+            Template template = new TemplateInput(templateName, resource.getInputStream()).createTemplate();
+            if (template instanceof BinaryTemplate) {
+                // binary templates keep their expressions in string values, resolved at runtime
+                names.add(templateName.getBytes(StandardCharsets.UTF_8));
+                contents.add(((BinaryTemplate) template).getContent());
+                continue;
+            }
+            String content = template.resolve(buildResolver);
+            DescriptionFormat format = DescriptionFormat.fromTemplateName(templateName);
+            JsonNode tree = format == DescriptionFormat.JSON || format == DescriptionFormat.YAML
+                    ? parseTree(format == DescriptionFormat.YAML ? yamlMapper : jsonMapper, content) : null;
+            if (tree != null) {
+                names.add(getSmileName(templateName).getBytes(StandardCharsets.UTF_8));
+                contents.add(smileMapper.writeValueAsBytes(tree));
+            } else {
+                names.add(templateName.getBytes(StandardCharsets.UTF_8));
+                contents.add(content.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int offset = 12;
+        for (byte[] name : names) {
+            offset += 2 + name.length + 8;
+        }
+        DataOutputStream dataStream = new DataOutputStream(outputStream);
+        dataStream.writeInt(MAGIC);
+        dataStream.writeInt(VERSION);
+        dataStream.writeInt(names.size());
+        for (int i = 0; i < names.size(); i++) {
+            dataStream.writeShort(names.get(i).length);
+            dataStream.write(names.get(i));
+            dataStream.writeInt(offset);
+            dataStream.writeInt(contents.get(i).length);
+            offset += contents.get(i).length;
+        }
+        for (byte[] content : contents) {
+            dataStream.write(content);
+        }
+        dataStream.flush();
+    }
+
+    /**
+     * Write a registry index at build time
+     * <p/>
+     * Arguments: the location pattern of the templates, the index file to write and optionally a properties
+     * file with the properties known at build time.
+     *
+     * @param args the arguments
+     * @throws IOException if the templates cannot be read or the index cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Usage: RegistryIndex <locationPattern> <indexFile> [propertiesFile]");
+        }
+        Properties properties = new Properties();
+        if (args.length > 2) {
+            try (Reader reader = Files.newBufferedReader(Paths.get(args[2]), StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            }
+        }
+        Path indexPath = Paths.get(args[1]);
+        Path parent = indexPath.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (OutputStream outputStream = Files.newOutputStream(indexPath)) {
+            write(args[0], properties, outputStream);
+        }
+    }
+
+    /**
+     * Parse the build-time content of a JSON or YAML template into a tree, provided that every remaining
+     * expression sits in a string value, where it can be resolved after decoding
+     *
+     * @return the tree, or null if the template must be kept as text
+     */
+    private static JsonNode parseTree(ObjectMapper mapper, String content) {
+        try {
+            JsonNode tree = mapper.readTree(content);
+            return tree != null && !hasExpressionFieldName(tree) ? tree : null;
+        } catch (JsonProcessingException e) {
+            // expressions outside string values, resolved as text at runtime
+            return null;
+        }
+    }
+
+    private static boolean hasExpressionFieldName(JsonNode node) {
+        if (node.isObject()) {
+            Iterator<String> fieldNames = node.fieldNames();
+            while (fieldNames.hasNext()) {
+                if (isExpression(fieldNames.next())) {
+                    return true;
+                }
+            }
+        }
+        for (JsonNode child : node) {
+            if (hasExpressionFieldName(child)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isExpression(String value) {
+        return value.contains("${") || value.contains("#{");
+    }
+
+    private static String getSmileName(String templateName) {
+        int separator = templateName.lastIndexOf('.');
+        String baseName = separator < 0 ? templateName : templateName.substring(0, separator);
+        return baseName + "." + DescriptionFormat.SMILE.getExtension();
+    }
+
+    private static class Entry {
+
+        private final int offset;
+
+        private final int length;
+
+        private Entry(int offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    /**
+     * A resolver that resolves the immediate expressions whose properties are known at build time and
+     * returns every other expression unchanged, so it can be resolved at runtime. A property value holding
+     * an expression is rejected, since the template syntax has no escape and runtime would resolve it.
+     */
+    private static class BuildResolver implements Resolver {
+
+        private final Properties properties;
+
+        private BuildResolver(Properties properties) {
+            this.properties = properties;
+        }
+
+        @Override
+        public String processExpression(String expression) {
+            if (expression.startsWith("${") && expression.endsWith("}")) {
+                String value = properties.getProperty(expression.substring(2, expression.length() - 1));
+                if (value != null) {
+                    if (isExpression(value)) {
+                        throw new ConfigurationException(new IOException("Build property '"
+                                + expression.substring(2, expression.length() - 1) + "' holds an expression: " + value));
+                    }
+                    return value;
+                }
+            }
+            return expression;
+        }
+    }
+}
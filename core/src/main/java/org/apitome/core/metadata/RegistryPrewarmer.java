@@ -0,0 +1,334 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.metadata;
+
+import org.apitome.core.error.ConfigurationException;
+import org.apitome.core.logging.LogFields;
+import org.apitome.core.logging.LoggerAware;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.apitome.core.logging.OpLogEvent.PREWARM_COMPLETED;
+import static org.apitome.core.logging.OpLogEvent.PREWARM_EXCEPTION;
+import static org.apitome.core.logging.OpLogEvent.PREWARM_PAUSED;
+import static org.apitome.core.logging.OpLogEvent.PREWARM_STOPPED;
+import static org.apitome.core.logging.OpLogKey.DESCRIPTION_COUNT;
+import static org.apitome.core.logging.OpLogKey.DESCRIPTION_NAME;
+import static org.apitome.core.logging.OpLogKey.ELAPSED_TIME;
+
+/**
+ * RegistryPrewarmer processes the templates of a {@link CachedRegistry} into descriptions in the
+ * background, so that the first requests after startup do not pay the processing cost inline.
+ * <p/>
+ * Descriptions are warmed most-requested first, using the access counts saved by a previous run.
+ * The prewarmer runs on a low priority thread and pauses as soon as the busy signal reports that
+ * CPU is needed for real traffic, resuming once the signal clears; meanwhile the remaining
+ * descriptions are processed on demand.
+ */
+public class RegistryPrewarmer implements LoggerAware {
+
+    private static final double MAXIMUM_LOAD_PER_PROCESSOR = 0.75;
+
+    private static final Duration DEFAULT_RESUME_DELAY = Duration.ofSeconds(1);
+
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+    private final CachedRegistry<?, ?, ?> registry;
+
+    private final Path accessCountsPath;
+
+    private final Executor executor;
+
+    private final BooleanSupplier busySignal;
+
+    private final Duration resumeDelay;
+
+    private final AtomicBoolean stopped;
+
+    private Map<String, Long> previousAccessCounts;
+
+    public RegistryPrewarmer(CachedRegistry<?, ?, ?> registry, Path accessCountsPath) {
+        this(registry, accessCountsPath, new PrewarmExecutor(), new ProcessBusySignal());
+    }
+
+    public RegistryPrewarmer(CachedRegistry<?, ?, ?> registry, Path accessCountsPath, Executor executor,
+                             BooleanSupplier busySignal) {
+        this(registry, accessCountsPath, executor, busySignal, DEFAULT_RESUME_DELAY);
+    }
+
+    public RegistryPrewarmer(CachedRegistry<?, ?, ?> registry, Path accessCountsPath, Executor executor,
+                             BooleanSupplier busySignal, Duration resumeDelay) {
+        this.registry = registry;
+        this.accessCountsPath = accessCountsPath;
+        this.executor = executor;
+        this.busySignal = busySignal;
+        this.resumeDelay = resumeDelay;
+        this.stopped = new AtomicBoolean(false);
+    }
+
+    /**
+     * Start prewarming the registry in the background. This method should be called once the registry
+     * has processed its resources.
+     *
+     * @return a future for the number of descriptions processed by the prewarmer
+     */
+    public CompletableFuture<Integer> start() {
+        List<String> descriptionNames = getPrewarmOrder(getPreviousAccessCounts());
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        long start = System.currentTimeMillis();
+        executor.execute(() -> prewarm(descriptionNames, 0, 0, start, future));
+        return future;
+    }
+
+    /**
+     * Stop prewarming after the description currently being processed, or when a paused prewarmer
+     * would resume
+     */
+    public void stop() {
+        stopped.set(true);
+    }
+
+    /**
+     * Save the access counts of the registry so that the next run can prewarm the most requested
+     * descriptions first. Counts saved by previous runs are halved and added to the current counts,
+     * so that descriptions that are no longer requested gradually lose their priority.
+     * <p/>
+     * The previous counts are read once per run, so saving repeatedly, for example periodically
+     * and again at shutdown, only adds the accesses made since the last save.
+     */
+    public synchronized void saveAccessCounts() {
+        Map<String, Long> accessCounts = new HashMap<>();
+        getPreviousAccessCounts().forEach((name, count) -> accessCounts.put(name, count / 2));
+        registry.getAccessCounts().forEach((name, count) -> accessCounts.merge(name, count, Long::sum));
+        Properties properties = new Properties();
+        accessCounts.forEach((name, count) -> {
+            if (count > 0) {
+                properties.setProperty(name, String.valueOf(count));
+            }
+        });
+        try {
+            Path parent = accessCountsPath.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (Writer writer = Files.newBufferedWriter(accessCountsPath, StandardCharsets.UTF_8)) {
+                properties.store(writer, "Description access counts");
+            }
+        } catch (IOException e) {
+            throw new ConfigurationException(e);
+        }
+    }
+
+    /**
+     * Load the access counts saved by a previous run
+     *
+     * @return the access count by description name, empty if no counts were saved
+     */
+    public Map<String, Long> loadAccessCounts() {
+        Map<String, Long> accessCounts = new HashMap<>();
+        if (!Files.isReadable(accessCountsPath)) {
+            return accessCounts;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(accessCountsPath, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            throw new ConfigurationException(e);
+        }
+        for (String name : properties.stringPropertyNames()) {
+            try {
+                accessCounts.put(name, Long.parseLong(properties.getProperty(name)));
+            } catch (NumberFormatException e) {
+                // ignore a corrupt entry, the description will be warmed with the unknown ones
+            }
+        }
+        return accessCounts;
+    }
+
+    @Override
+    public Logger getLogger() {
+        return log;
+    }
+
+    /**
+     * Return the access counts saved by the previous run, loaded on first use
+     *
+     * @return the access count by description name
+     */
+    private synchronized Map<String, Long> getPreviousAccessCounts() {
+        if (previousAccessCounts == null) {
+            previousAccessCounts = loadAccessCounts();
+        }
+        return previousAccessCounts;
+    }
+
+    /**
+     * Return the names of the registry's descriptions, most requested first. Descriptions without
+     * access counts are warmed last.
+     *
+     * @param accessCounts the access count by description name
+     * @return the description names in prewarming order
+     */
+    protected List<String> getPrewarmOrder(Map<String, Long> accessCounts) {
+        Comparator<String> byCount = Comparator.comparing(name -> accessCounts.getOrDefault(name, 0L));
+        return registry.getDescriptionNames().stream()
+                .sorted(byCount.reversed().thenComparing(Comparator.naturalOrder()))
+                .collect(Collectors.toList());
+    }
+
+    private void prewarm(List<String> descriptionNames, int index, int processedCount, long start,
+                         CompletableFuture<Integer> future) {
+        int count = processedCount;
+        for (int i = index; i < descriptionNames.size(); i++) {
+            if (stopped.get()) {
+                LogFields logFields = LogFields.builder(PREWARM_STOPPED)
+                        .addKeyValue(DESCRIPTION_COUNT, count)
+                        .addKeyValue(ELAPSED_TIME, System.currentTimeMillis() - start)
+                        .build();
+                logInfo(logFields);
+                future.complete(count);
+                return;
+            }
+            if (busySignal.getAsBoolean()) {
+                LogFields logFields = LogFields.builder(PREWARM_PAUSED)
+                        .addKeyValue(DESCRIPTION_COUNT, count)
+                        .addKeyValue(ELAPSED_TIME, System.currentTimeMillis() - start)
+                        .build();
+                logInfo(logFields);
+                int resumeIndex = i;
+                int resumeCount = count;
+                CompletableFuture.delayedExecutor(resumeDelay.toMillis(), TimeUnit.MILLISECONDS, executor)
+                        .execute(() -> prewarm(descriptionNames, resumeIndex, resumeCount, start, future));
+                return;
+            }
+            String descriptionName = descriptionNames.get(i);
+            try {
+                if (registry.prewarmDescription(descriptionName)) {
+                    count++;
+                }
+            } catch (RuntimeException e) {
+                // the description will fail again when requested, where the caller can handle it
+                LogFields logFields = LogFields.builder(PREWARM_EXCEPTION)
+                        .addKeyValue(DESCRIPTION_NAME, descriptionName)
+                        .build();
+                logError(logFields, e);
+            }
+        }
+        LogFields logFields = LogFields.builder(PREWARM_COMPLETED)
+                .addKeyValue(DESCRIPTION_COUNT, count)
+                .addKeyValue(ELAPSED_TIME, System.currentTimeMillis() - start)
+                .build();
+        logInfo(logFields);
+        future.complete(count);
+    }
+
+    /**
+     * A busy signal reporting whether this process is using too much of the processors available to it
+     * to keep prewarming. The load is measured between consecutive checks from the CPU time of the
+     * process, excluding the CPU time of the checking thread so that prewarming does not count
+     * against itself. When the check runs on a different thread than the last one, as it does after
+     * the prewarmer resumes on a new thread, the checking thread's CPU time since the last check is
+     * unknown and counted as load. The available processors reflect container limits.
+     */
+    public static class ProcessBusySignal implements BooleanSupplier {
+
+        private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+        private final OperatingSystemMXBean osBean = ManagementFactory.getOperatingSystemMXBean();
+
+        private long lastCheckTime = System.nanoTime();
+
+        private long lastProcessCpuTime = getProcessCpuTime();
+
+        private long lastThreadCpuTime = -1;
+
+        private long lastThreadId = -1;
+
+        @Override
+        public synchronized boolean getAsBoolean() {
+            long checkTime = System.nanoTime();
+            long processCpuTime = getProcessCpuTime();
+            long threadId = Thread.currentThread().getId();
+            long threadCpuTime = getThreadCpuTime();
+            boolean busy = false;
+            // CPU times are negative on platforms where they are not available
+            if (processCpuTime >= 0 && lastProcessCpuTime >= 0 && checkTime > lastCheckTime) {
+                // The CPU time of another thread says nothing about the CPU used by this one
+                long threadCpuDelta = lastThreadCpuTime >= 0 && threadId == lastThreadId
+                        ? threadCpuTime - lastThreadCpuTime : 0;
+                long otherCpuDelta = processCpuTime - lastProcessCpuTime - threadCpuDelta;
+                double load = (double) otherCpuDelta / (checkTime - lastCheckTime);
+                busy = load / osBean.getAvailableProcessors() > MAXIMUM_LOAD_PER_PROCESSOR;
+            }
+            lastCheckTime = checkTime;
+            lastProcessCpuTime = processCpuTime;
+            lastThreadCpuTime = threadCpuTime;
+            lastThreadId = threadId;
+            return busy;
+        }
+
+        long getProcessCpuTime() {
+            if (osBean instanceof com.sun.management.OperatingSystemMXBean) {
+                return ((com.sun.management.OperatingSystemMXBean) osBean).getProcessCpuTime();
+            }
+            return -1;
+        }
+
+        long getThreadCpuTime() {
+            return threadBean.isCurrentThreadCpuTimeSupported() ? threadBean.getCurrentThreadCpuTime() : 0;
+        }
+    }
+
+    /**
+     * An executor that runs each task on a new low priority daemon thread
+     */
+    public static class PrewarmExecutor implements Executor {
+
+        private int threadNum;
+
+        @Override
+        public synchronized void execute(Runnable r) {
+            threadNum++;
+            Thread thread = new Thread(r, String.format("prewarm-thread-%d", threadNum));
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            thread.start();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.metadata;
+
+import org.apitome.core.error.ConfigurationException;
+import org.apitome.core.template.Template;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A description source for resources that match a location pattern, such as {@code classpath*:operation/*}
+ * for descriptions packaged with the application or {@code file:/etc/operation/*} for a filesystem overlay.
+ */
+public class ResourceDescriptionSource implements DescriptionSource {
+
+    private final String name;
+
+    private final String locationPattern;
+
+    private final ClassLoader classLoader;
+
+    public ResourceDescriptionSource(String name, String locationPattern) {
+        this(name, locationPattern, ResourceDescriptionSource.class.getClassLoader());
+    }
+
+    public ResourceDescriptionSource(String name, String locationPattern, ClassLoader classLoader) {
+        this.name = name;
+        this.locationPattern = locationPattern;
+        this.classLoader = classLoader;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    public String getLocationPattern() {
+        return locationPattern;
+    }
+
+    @Override
+    public List<Template> getTemplates() {
+        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver(classLoader);
+        try {
+            List<Template> templates = new ArrayList<>();
+            for (Resource resource : resolver.getResources(locationPattern)) {
+                if (resource.isReadable()) {
+                    templates.add(new TemplateInput(resource.getFilename(), resource.getInputStream()).createTemplate());
+                }
+            }
+            return templates;
+        } catch (IOException e) {
+            throw new ConfigurationException(e);
+        }
+    }
+}
@@ -19,9 +19,12 @@ package org.apitome.core.metadata;
 import org.apitome.core.expression.Resolver;
 import org.apitome.core.template.Template;
 
+import java.util.List;
 import java.util.Map;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 
 /**
@@ -38,13 +41,29 @@ public class SimpleRegistry<D, R extends Transformable<D, T>, T extends Transfor
         super(rawDescriptionClass, transformer, resolver);
     }
 
+    public SimpleRegistry(Class<R> rawDescriptionClass, T transformer, Resolver resolver, boolean acceleratedBinding) {
+        super(rawDescriptionClass, transformer, resolver, acceleratedBinding);
+    }
+
+    public SimpleRegistry(Class<R> rawDescriptionClass, TransformerFactory<T> transformerFactory, Resolver resolver) {
+        super(rawDescriptionClass, transformerFactory, resolver, false);
+    }
+
     public void processResources(String locationPattern) {
-        Stream<Template> templates = getResources(locationPattern);
-        Map<String, D> descriptions = templates
-                .collect(toMap(template -> getTemplateName(template.getName()).toLowerCase(), template -> processTemplate(template)));
+        List<Template> templates = getResources(locationPattern).collect(toList());
+        List<D> processed = processTemplates(templates);
+        Map<String, D> descriptions = IntStream.range(0, templates.size()).boxed()
+                .collect(toMap(i -> getTemplateName(templates.get(i).getName()).toLowerCase(), processed::get));
         descriptionMap.putAll(descriptions);
     }
 
+    public void processBundle(String location) {
+        try (Stream<Template> templates = getBundleResources(location)) {
+            templates.forEach(template -> descriptionMap.putIfAbsent(
+                    getTemplateName(template.getName()).toLowerCase(), processTemplate(template)));
+        }
+    }
+
     public void processResource(String location) {
         Template template = getResource(location);
         D description = processTemplate(template);
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.metadata;
+
+import org.apitome.core.metrics.RegistryMetrics;
+import org.apitome.core.metrics.RegistryStage;
+import org.apitome.core.template.Template;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A Spliterator that balances template processing by input size rather than by input count.
+ * <p/>
+ * The byte length of every input is known up front, so a split divides the remaining inputs at the
+ * point where their cumulative length is halved. A partition holding one large template and one holding
+ * many small ones then take about the same time to process. Inputs of unknown length are weighted with
+ * the average known length. Partitions smaller than the minimum partition length are not split further,
+ * and the inputs are split into at most the maximum number of partitions, such as the concurrency of the
+ * registry processing them.
+ */
+public class SizedInputSpliterator implements Spliterator<Template> {
+
+    public static final long DEFAULT_MINIMUM_PARTITION_LENGTH = 64 * 1024;
+
+    private final List<TemplateInput> inputs;
+
+    private final RegistryMetrics metrics;
+
+    private final long minimumPartitionLength;
+
+    /**
+     * The number of partitions this spliterator may still be split into, halved with every split
+     */
+    private int maxPartitions;
+
+    /**
+     * Cumulative lengths: offsets[i] is the total length of the inputs before input i
+     */
+    private final long[] offsets;
+
+    private int begin;
+
+    private final int end;
+
+    public SizedInputSpliterator(List<TemplateInput> inputs) {
+        this(inputs, DEFAULT_MINIMUM_PARTITION_LENGTH, RegistryMetrics.NOOP);
+    }
+
+    public SizedInputSpliterator(List<TemplateInput> inputs, long minimumPartitionLength, RegistryMetrics metrics) {
+        this(inputs, minimumPartitionLength, Integer.MAX_VALUE, metrics);
+    }
+
+    public SizedInputSpliterator(List<TemplateInput> inputs, long minimumPartitionLength, int maxPartitions,
+                                 RegistryMetrics metrics) {
+        this(inputs, metrics, minimumPartitionLength, maxPartitions, getOffsets(inputs), 0, inputs.size());
+    }
+
+    private SizedInputSpliterator(List<TemplateInput> inputs, RegistryMetrics metrics, long minimumPartitionLength,
+                                  int maxPartitions, long[] offsets, int begin, int end) {
+        this.inputs = inputs;
+        this.metrics = metrics;
+        this.minimumPartitionLength = minimumPartitionLength;
+        this.maxPartitions = maxPartitions;
+        this.offsets = offsets;
+        this.begin = begin;
+        this.end = end;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Template> action) {
+        if (begin >= end) {
+            return false;
+        }
+        TemplateInput input = inputs.get(begin);
+        long start = System.nanoTime();
+        Template template = input.createTemplate();
+        metrics.recordStage(RegistryStage.PARSE, template.getName(), System.nanoTime() - start);
+        begin++;
+        action.accept(template);
+        return true;
+    }
+
+    @Override
+    public Spliterator<Template> trySplit() {
+        if (maxPartitions <= 1 || end - begin < 2 || getLength() < 2 * minimumPartitionLength) {
+            return null;
+        }
+        long middle = offsets[begin] + getLength() / 2;
+        int split = Arrays.binarySearch(offsets, begin + 1, end, middle);
+        if (split < 0) {
+            // the input containing the middle goes to the partition it overlaps the most
+            int after = -split - 1;
+            split = offsets[after] - middle <= middle - offsets[after - 1] ? after : after - 1;
+            split = Math.min(Math.max(split, begin + 1), end - 1);
+        }
+        int prefixPartitions = maxPartitions / 2;
+        SizedInputSpliterator prefix = new SizedInputSpliterator(inputs, metrics, minimumPartitionLength,
+                prefixPartitions, offsets, begin, split);
+        this.maxPartitions -= prefixPartitions;
+        this.begin = split;
+        return prefix;
+    }
+
+    /**
+     * Return the total length in bytes of the inputs remaining in this spliterator
+     *
+     * @return the remaining length
+     */
+    public long getLength() {
+        return offsets[end] - offsets[begin];
+    }
+
+    @Override
+    public long estimateSize() {
+        return end - begin;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | IMMUTABLE | NONNULL | SIZED | SUBSIZED;
+    }
+
+    private static long[] getOffsets(List<TemplateInput> inputs) {
+        long knownLength = 0;
+        int knownCount = 0;
+        for (TemplateInput input : inputs) {
+            if (input.getLength() >= 0) {
+                knownLength += input.getLength();
+                knownCount++;
+            }
+        }
+        long defaultLength = knownCount > 0 ? Math.max(1, knownLength / knownCount) : 1;
+        long[] offsets = new long[inputs.size() + 1];
+        for (int i = 0; i < inputs.size(); i++) {
+            long length = inputs.get(i).getLength();
+            offsets[i + 1] = offsets[i] + (length >= 0 ? Math.max(1, length) : defaultLength);
+        }
+        return offsets;
+    }
+}
@@ -16,17 +16,29 @@
 
 package org.apitome.core.metadata;
 
+import org.apitome.core.template.BinaryTemplate;
+import org.apitome.core.template.Template;
+
 import java.io.InputStream;
 
 public class TemplateInput {
 
+    public static final long UNKNOWN_LENGTH = -1;
+
     private final String templateName;
 
     private final InputStream inputStream;
 
+    private final long length;
+
     public TemplateInput(String templateName, InputStream inputStream) {
+        this(templateName, inputStream, UNKNOWN_LENGTH);
+    }
+
+    public TemplateInput(String templateName, InputStream inputStream, long length) {
         this.templateName = templateName;
         this.inputStream = inputStream;
+        this.length = length;
     }
 
     public String getTemplateName() {
@@ -36,4 +48,27 @@ public class TemplateInput {
     public InputStream getInputStream() {
         return inputStream;
     }
+
+    /**
+     * Return the length of the input in bytes, if known before reading it
+     *
+     * @return the length, or {@link #UNKNOWN_LENGTH}
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * Create a template from this input, as a binary template if the template name has the extension
+     * of a binary format
+     *
+     * @return a template
+     */
+    public Template createTemplate() {
+        DescriptionFormat format = DescriptionFormat.fromTemplateName(templateName);
+        if (format != null && format.isBinary()) {
+            return BinaryTemplate.from(templateName, inputStream);
+        }
+        return Template.from(templateName, inputStream);
+    }
 }
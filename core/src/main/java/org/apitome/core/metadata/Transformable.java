@@ -16,6 +16,15 @@
 
 package org.apitome.core.metadata;
 
+/**
+ * A raw description that can be transformed into a description by dispatching itself to a transformer.
+ * <p/>
+ * Different raw descriptions may be accepted concurrently, each on a single thread; implementations must
+ * not modify state shared between raw descriptions.
+ *
+ * @param <D> the description type
+ * @param <T> the transformer type
+ */
 public interface Transformable<D, T extends Transformer> {
 
     D accept(T transformer);
@@ -16,6 +16,17 @@
 
 package org.apitome.core.metadata;
 
+/**
+ * A Transformer turns raw descriptions into descriptions.
+ * <p/>
+ * Registries may transform several raw descriptions at once on different threads. A transformer passed to
+ * a registry directly is shared by those threads and must therefore be stateless, or otherwise thread-safe.
+ * A transformer that keeps state while transforming must be supplied through a {@link TransformerFactory},
+ * so that every thread uses its own instance.
+ *
+ * @param <D> the description type
+ * @param <T> the raw description type
+ */
 public interface Transformer<D, T extends Transformable> {
 
     D transform(T transformable);
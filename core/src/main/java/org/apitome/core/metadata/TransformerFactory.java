@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.metadata;
+
+/**
+ * TransformerFactory supplies the transformers of a registry. A registry may transform descriptions on
+ * several threads at once; a factory for a transformer that keeps state while transforming creates one
+ * instance per thread, while a factory for a thread-safe transformer shares a single instance.
+ *
+ * @param <T> the transformer type
+ */
+@FunctionalInterface
+public interface TransformerFactory<T extends Transformer> {
+
+    /**
+     * Create a transformer. The registry calls this method at most once per thread, unless the factory
+     * is thread-safe, in which case it is called once.
+     *
+     * @return a transformer
+     */
+    T createTransformer();
+
+    /**
+     * Return true if the transformers of this factory may be used by several threads at once, so that
+     * a single instance is shared
+     *
+     * @return true if the transformers are thread-safe
+     */
+    default boolean isThreadSafe() {
+        return false;
+    }
+
+    /**
+     * Return a factory that shares a stateless or otherwise thread-safe transformer
+     *
+     * @param transformer the transformer
+     * @param <T> the transformer type
+     * @return a factory that always returns the transformer
+     */
+    static <T extends Transformer> TransformerFactory<T> shared(T transformer) {
+        return new TransformerFactory<T>() {
+
+            @Override
+            public T createTransformer() {
+                return transformer;
+            }
+
+            @Override
+            public boolean isThreadSafe() {
+                return true;
+            }
+        };
+    }
+}
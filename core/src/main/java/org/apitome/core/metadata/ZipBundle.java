@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.metadata;
+
+import org.apitome.core.error.ConfigurationException;
+import org.apitome.core.template.Template;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+/**
+ * ZipBundle gives access to the templates packaged in a zip archive, so that thousands of descriptions
+ * can be shipped and loaded as a single file.
+ * <p/>
+ * An archive in the file system is opened with its central directory, and each template is read from
+ * its offset when requested. An archive that is only available as a stream is read sequentially in one
+ * pass. Templates are named after the last segment of their entry name, which must be unique within the
+ * archive; directory entries are skipped.
+ */
+public class ZipBundle implements Closeable {
+
+    private static final String ZIP_EXT = ".zip";
+
+    private final ZipFile zipFile;
+
+    private final Map<String, ZipEntry> entries;
+
+    private ZipBundle(ZipFile zipFile, Map<String, ZipEntry> entries) {
+        this.zipFile = zipFile;
+        this.entries = entries;
+    }
+
+    /**
+     * Open the archive file, reading its central directory only
+     *
+     * @param path the archive file
+     * @return the bundle
+     * @throws ConfigurationException if the archive cannot be read or two entries have the same template name
+     */
+    public static ZipBundle open(Path path) {
+        ZipFile zipFile;
+        try {
+            zipFile = new ZipFile(path.toFile());
+        } catch (IOException e) {
+            throw new ConfigurationException(e);
+        }
+        try {
+            Map<String, ZipEntry> entries = new LinkedHashMap<>();
+            zipFile.stream()
+                    .filter(entry -> !entry.isDirectory())
+                    .forEach(entry -> {
+                        ZipEntry duplicate = entries.putIfAbsent(getTemplateName(entry), entry);
+                        if (duplicate != null) {
+                            throw duplicateTemplate(duplicate, entry);
+                        }
+                    });
+            return new ZipBundle(zipFile, Collections.unmodifiableMap(entries));
+        } catch (RuntimeException e) {
+            try {
+                zipFile.close();
+            } catch (IOException closeException) {
+                e.addSuppressed(closeException);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Return true if the location names a zip archive
+     *
+     * @param location a location
+     * @return true if the location has the zip extension
+     */
+    public static boolean isZip(String location) {
+        return location.toLowerCase().endsWith(ZIP_EXT);
+    }
+
+    /**
+     * Return the template names in this bundle, including their extensions
+     *
+     * @return the template names
+     */
+    public List<String> getTemplateNames() {
+        return new ArrayList<>(entries.keySet());
+    }
+
+    /**
+     * Read the template identified by the name from the archive
+     *
+     * @param templateName the template name, including its extension
+     * @return the template or null if the bundle has no template by that name
+     */
+    public Template getTemplate(String templateName) {
+        ZipEntry entry = entries.get(templateName);
+        if (entry == null) {
+            return null;
+        }
+        try {
+            return new TemplateInput(templateName, zipFile.getInputStream(entry)).createTemplate();
+        } catch (IOException e) {
+            throw new ConfigurationException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            zipFile.close();
+        } catch (IOException e) {
+            throw new ConfigurationException(e);
+        }
+    }
+
+    /**
+     * Stream the templates of an archive in a single sequential pass. The input stream is closed when the
+     * returned stream is closed. Reading an entry with the same template name as a previous entry fails
+     * with a {@link ConfigurationException}.
+     *
+     * @param inputStream the archive contents
+     * @return a sequential stream of templates
+     */
+    public static Stream<Template> stream(InputStream inputStream) {
+        ZipInputStream zipInputStream = new ZipInputStream(inputStream);
+        Iterator<Template> templates = new Iterator<>() {
+
+            private final Map<String, ZipEntry> entries = new HashMap<>();
+
+            private ZipEntry next;
+
+            @Override
+            public boolean hasNext() {
+                try {
+                    while (next == null) {
+                        next = zipInputStream.getNextEntry();
+                        if (next == null) {
+                            return false;
+                        }
+                        if (next.isDirectory()) {
+                            next = null;
+                        }
+                    }
+                    return true;
+                } catch (IOException e) {
+                    throw new ConfigurationException(e);
+                }
+            }
+
+            @Override
+            public Template next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                String templateName = getTemplateName(next);
+                ZipEntry duplicate = entries.putIfAbsent(templateName, next);
+                if (duplicate != null) {
+                    throw duplicateTemplate(duplicate, next);
+                }
+                next = null;
+                try {
+                    return new TemplateInput(templateName, new ByteArrayInputStream(zipInputStream.readAllBytes()))
+                            .createTemplate();
+                } catch (IOException e) {
+                    throw new ConfigurationException(e);
+                }
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(templates, Spliterator.ORDERED), false)
+                .onClose(() -> {
+                    try {
+                        zipInputStream.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    private static ConfigurationException duplicateTemplate(ZipEntry entry, ZipEntry duplicate) {
+        return new ConfigurationException(new IOException("Entries '" + entry.getName() + "' and '"
+                + duplicate.getName() + "' have the same template name"));
+    }
+
+    private static String getTemplateName(ZipEntry entry) {
+        String entryName = entry.getName();
+        return entryName.substring(entryName.lastIndexOf('/') + 1);
+    }
+}
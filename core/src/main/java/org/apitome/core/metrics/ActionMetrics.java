@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.metrics;
+
+import java.util.function.Supplier;
+
+/**
+ * ActionMetrics is the instrumentation surface of actions and the services they call. Actions and their
+ * decorators report the outcome of their own mechanisms, such as result cache lookups and calls rejected to
+ * protect downstream services, and register gauges describing their state. Implementations bind these
+ * measurements to a metrics library; they must be thread safe and cheap to call, since they are invoked on the
+ * request path.
+ */
+public interface ActionMetrics {
+
+    /**
+     * Metrics that discard every measurement
+     */
+    ActionMetrics NOOP = new ActionMetrics() {
+
+        @Override
+        public void recordCacheLookup(String actionName, CacheResult result) {
+        }
+
+        @Override
+        public void recordRejection(String name, String reason) {
+        }
+
+        @Override
+        public void registerGauge(String gaugeName, String name, Supplier<Number> valueSupplier) {
+        }
+    };
+
+    /**
+     * Record a lookup in an action result cache
+     *
+     * @param actionName the action key name
+     * @param result the outcome of the lookup
+     */
+    void recordCacheLookup(String actionName, CacheResult result);
+
+    /**
+     * Record a call rejected before it started
+     *
+     * @param name the name of the action or service the call was for
+     * @param reason the mechanism that rejected the call, such as {@code bulkhead}
+     */
+    void recordRejection(String name, String reason);
+
+    /**
+     * Register a gauge whose value is sampled when the metrics are published
+     *
+     * @param gaugeName the gauge name, relative to the action metrics
+     * @param name the name of the action or service the gauge describes
+     * @param valueSupplier the supplier of the gauge value
+     */
+    void registerGauge(String gaugeName, String name, Supplier<Number> valueSupplier);
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.metrics;
+
+/**
+ * The outcomes of an action result cache lookup
+ */
+public enum CacheResult {
+
+    /**
+     * A fresh result was served from the cache
+     */
+    HIT,
+
+    /**
+     * No fresh result was cached and the action was performed
+     */
+    MISS,
+
+    /**
+     * The action failed and an expired result was served instead
+     */
+    STALE;
+
+    public String getName() {
+        return name().toLowerCase();
+    }
+}
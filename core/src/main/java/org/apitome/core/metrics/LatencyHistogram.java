@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.metrics;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * LatencyHistogram keeps a live distribution of recent latencies.
+ * <p/>
+ * Latencies are counted in buckets growing geometrically by 25% from 10 microseconds to several minutes, so
+ * recording is a single atomic increment and percentiles are accurate to within a bucket. Counts are kept for the
+ * current and the previous window only, which makes percentiles follow changes in the latency of a downstream
+ * while always being based on at least one full window of samples.
+ */
+public class LatencyHistogram {
+
+    public static final Duration DEFAULT_WINDOW = Duration.ofSeconds(30);
+
+    private static final long MIN_NANOS = 10_000;
+
+    private static final double GROWTH = 1.25;
+
+    private static final int BUCKET_COUNT = 80;
+
+    private static final long[] UPPER_BOUNDS = new long[BUCKET_COUNT];
+
+    static {
+        double bound = MIN_NANOS;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            UPPER_BOUNDS[i] = (long) bound;
+            bound *= GROWTH;
+        }
+        UPPER_BOUNDS[BUCKET_COUNT - 1] = Long.MAX_VALUE;
+    }
+
+    private final long windowNanos;
+
+    private volatile Window current;
+
+    private volatile Window previous;
+
+    public LatencyHistogram() {
+        this(DEFAULT_WINDOW);
+    }
+
+    public LatencyHistogram(Duration window) {
+        this.windowNanos = window.toNanos();
+        this.current = new Window(System.nanoTime());
+        this.previous = new Window(current.start);
+    }
+
+    /**
+     * Record a latency
+     *
+     * @param elapsedNanos the latency in nanoseconds
+     */
+    public void record(long elapsedNanos) {
+        Window window = rotate();
+        window.counts.incrementAndGet(bucketOf(elapsedNanos));
+    }
+
+    /**
+     * Return the number of latencies in the current and previous windows
+     *
+     * @return the number of samples
+     */
+    public long getCount() {
+        rotate();
+        Window window = current;
+        Window last = previous;
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            count += window.counts.get(i) + last.counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Return a percentile of the latencies in the current and previous windows
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the upper bound of the bucket holding the percentile in nanoseconds, or -1 without samples
+     */
+    public long getPercentileNanos(double percentile) {
+        rotate();
+        Window window = current;
+        Window last = previous;
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = window.counts.get(i) + last.counts.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return -1;
+        }
+        long rank = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank && counts[i] > 0) {
+                return UPPER_BOUNDS[i];
+            }
+        }
+        return UPPER_BOUNDS[BUCKET_COUNT - 1];
+    }
+
+    private Window rotate() {
+        Window window = current;
+        long now = System.nanoTime();
+        if (now - window.start < windowNanos) {
+            return window;
+        }
+        synchronized (this) {
+            window = current;
+            if (now - window.start >= windowNanos) {
+                // A window older than two periods holds nothing recent, so it is dropped rather than kept
+                previous = now - window.start < 2 * windowNanos ? window : new Window(now);
+                window = new Window(now);
+                current = window;
+            }
+            return window;
+        }
+    }
+
+    private static int bucketOf(long elapsedNanos) {
+        if (elapsedNanos <= MIN_NANOS) {
+            return 0;
+        }
+        int bucket = (int) Math.ceil(Math.log((double) elapsedNanos / MIN_NANOS) / Math.log(GROWTH));
+        return Math.min(bucket, BUCKET_COUNT - 1);
+    }
+
+    private static class Window {
+
+        private final long start;
+
+        private final AtomicLongArray counts;
+
+        Window(long start) {
+            this.start = start;
+            this.counts = new AtomicLongArray(BUCKET_COUNT);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * An {@link ActionMetrics} binding to Micrometer.
+ * <p/>
+ * Cache lookups are published as the {@code <prefix>.cache} counter tagged by action and result, rejected calls
+ * as the {@code <prefix>.rejected} counter tagged by name and reason, and gauges as {@code <prefix>.<gaugeName>}
+ * tagged by name. Extra tags, such as an application name, are added to every meter.
+ */
+public class MicrometerActionMetrics implements ActionMetrics {
+
+    public static final String DEFAULT_PREFIX = "apitome.action";
+
+    private final MeterRegistry meterRegistry;
+
+    private final String prefix;
+
+    private final Tags tags;
+
+    private final Map<CacheResult, ConcurrentHashMap<String, Counter>> cacheCounterMap;
+
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, Counter>> rejectionCounterMap;
+
+    public MicrometerActionMetrics(MeterRegistry meterRegistry) {
+        this(meterRegistry, DEFAULT_PREFIX, Tags.empty());
+    }
+
+    public MicrometerActionMetrics(MeterRegistry meterRegistry, String prefix, Iterable<Tag> tags) {
+        this.meterRegistry = meterRegistry;
+        this.prefix = prefix;
+        this.tags = Tags.of(tags);
+        this.cacheCounterMap = new EnumMap<>(CacheResult.class);
+        for (CacheResult result : CacheResult.values()) {
+            cacheCounterMap.put(result, new ConcurrentHashMap<>());
+        }
+        this.rejectionCounterMap = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public void recordCacheLookup(String actionName, CacheResult result) {
+        Counter counter = cacheCounterMap.get(result).computeIfAbsent(actionName,
+                name -> Counter.builder(prefix + ".cache")
+                        .tags(tags)
+                        .tag("action", name)
+                        .tag("result", result.getName())
+                        .register(meterRegistry));
+        counter.increment();
+    }
+
+    @Override
+    public void recordRejection(String name, String reason) {
+        // Rejections happen when a downstream is struggling, so known counters are found without allocating
+        ConcurrentHashMap<String, Counter> reasonMap = rejectionCounterMap.get(name);
+        if (reasonMap == null) {
+            reasonMap = rejectionCounterMap.computeIfAbsent(name, key -> new ConcurrentHashMap<>());
+        }
+        Counter counter = reasonMap.get(reason);
+        if (counter == null) {
+            counter = reasonMap.computeIfAbsent(reason,
+                    key -> Counter.builder(prefix + ".rejected")
+                            .tags(tags)
+                            .tag("name", name)
+                            .tag("reason", reason)
+                            .register(meterRegistry));
+        }
+        counter.increment();
+    }
+
+    @Override
+    public void registerGauge(String gaugeName, String name, Supplier<Number> valueSupplier) {
+        Gauge.builder(prefix + "." + gaugeName, valueSupplier)
+                .tags(tags)
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+}
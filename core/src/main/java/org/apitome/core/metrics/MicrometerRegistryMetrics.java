@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * A {@link RegistryMetrics} binding to Micrometer.
+ * <p/>
+ * Stage latencies are published as the {@code <prefix>.stage} timer with percentile histograms, tagged by
+ * stage; lookups as the {@code <prefix>.lookup} counter tagged by result; and gauges as
+ * {@code <prefix>.<gaugeName>}. Extra tags, such as a registry name, are added to every meter.
+ * <p/>
+ * Per template timers, published as the {@code <prefix>.template.stage} timer tagged by stage and template,
+ * are opt-in and have no histogram, since a registry may hold thousands of templates.
+ */
+public class MicrometerRegistryMetrics implements RegistryMetrics {
+
+    public static final String DEFAULT_PREFIX = "apitome.registry";
+
+    private final MeterRegistry meterRegistry;
+
+    private final String prefix;
+
+    private final Tags tags;
+
+    private final Counter hitCounter;
+
+    private final Counter missCounter;
+
+    private final Map<RegistryStage, Timer> stageTimerMap;
+
+    private final Map<RegistryStage, ConcurrentHashMap<String, Timer>> templateTimerMap;
+
+    public MicrometerRegistryMetrics(MeterRegistry meterRegistry) {
+        this(meterRegistry, DEFAULT_PREFIX, Tags.empty());
+    }
+
+    public MicrometerRegistryMetrics(MeterRegistry meterRegistry, String prefix, Iterable<Tag> tags) {
+        this(meterRegistry, prefix, tags, false);
+    }
+
+    /**
+     * Create metrics, optionally timing the stages of each template
+     *
+     * @param meterRegistry the meter registry
+     * @param prefix the prefix of the meter names
+     * @param tags the tags added to every meter
+     * @param templateTimers true to publish a timer per template and stage
+     */
+    public MicrometerRegistryMetrics(MeterRegistry meterRegistry, String prefix, Iterable<Tag> tags,
+                                     boolean templateTimers) {
+        this.meterRegistry = meterRegistry;
+        this.prefix = prefix;
+        this.tags = Tags.of(tags);
+        this.stageTimerMap = new EnumMap<>(RegistryStage.class);
+        this.templateTimerMap = templateTimers ? new EnumMap<>(RegistryStage.class) : null;
+        for (RegistryStage stage : RegistryStage.values()) {
+            stageTimerMap.put(stage, Timer.builder(prefix + ".stage")
+                    .tags(this.tags)
+                    .tag("stage", stage.getName())
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+            if (templateTimers) {
+                templateTimerMap.put(stage, new ConcurrentHashMap<>());
+            }
+        }
+        this.hitCounter = Counter.builder(prefix + ".lookup")
+                .tags(this.tags)
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder(prefix + ".lookup")
+                .tags(this.tags)
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void recordStage(RegistryStage stage, String templateName, long elapsedNanos) {
+        stageTimerMap.get(stage).record(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (templateTimerMap != null) {
+            String name = String.valueOf(templateName);
+            ConcurrentHashMap<String, Timer> timerMap = templateTimerMap.get(stage);
+            Timer timer = timerMap.get(name);
+            if (timer == null) {
+                timer = timerMap.computeIfAbsent(name, key -> Timer.builder(prefix + ".template.stage")
+                        .tags(tags)
+                        .tag("stage", stage.getName())
+                        .tag("template", key)
+                        .register(meterRegistry));
+            }
+            timer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void recordLookup(String descriptionName, boolean hit) {
+        if (hit) {
+            hitCounter.increment();
+        } else {
+            missCounter.increment();
+        }
+    }
+
+    @Override
+    public void registerGauge(String gaugeName, Supplier<Number> valueSupplier) {
+        Gauge.builder(prefix + "." + gaugeName, valueSupplier)
+                .tags(tags)
+                .register(meterRegistry);
+    }
+}
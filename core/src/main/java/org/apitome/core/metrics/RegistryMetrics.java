@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.metrics;
+
+import java.util.function.Supplier;
+
+/**
+ * RegistryMetrics is the instrumentation surface of registries. A registry reports the time spent in
+ * each stage of processing its templates, the outcome of description lookups and the gauges describing
+ * its contents. Implementations bind these measurements to a metrics library and must be thread safe
+ * and cheap to call, since they are invoked on the request path.
+ */
+public interface RegistryMetrics {
+
+    /**
+     * Metrics that discard every measurement
+     */
+    RegistryMetrics NOOP = new RegistryMetrics() {
+
+        @Override
+        public void recordStage(RegistryStage stage, String templateName, long elapsedNanos) {
+        }
+
+        @Override
+        public void recordLookup(String descriptionName, boolean hit) {
+        }
+
+        @Override
+        public void registerGauge(String gaugeName, Supplier<Number> valueSupplier) {
+        }
+    };
+
+    /**
+     * Record the time spent processing a template in a stage
+     *
+     * @param stage the stage
+     * @param templateName the template name
+     * @param elapsedNanos the elapsed time in nanoseconds
+     */
+    void recordStage(RegistryStage stage, String templateName, long elapsedNanos);
+
+    /**
+     * Record a description lookup
+     *
+     * @param descriptionName the description name
+     * @param hit true if the description was already processed, false if it had to be processed
+     */
+    void recordLookup(String descriptionName, boolean hit);
+
+    /**
+     * Register a gauge whose value is sampled when the metrics are published
+     *
+     * @param gaugeName the gauge name, relative to the registry metrics
+     * @param valueSupplier the supplier of the gauge value
+     */
+    void registerGauge(String gaugeName, Supplier<Number> valueSupplier);
+}
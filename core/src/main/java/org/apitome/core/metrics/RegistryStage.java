@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.metrics;
+
+/**
+ * The stages a template goes through to become a description
+ */
+public enum RegistryStage {
+
+    /**
+     * Parse the template from its source, or decode a binary template into a tree
+     */
+    PARSE,
+
+    /**
+     * Resolve the expressions in the template
+     */
+    RESOLVE,
+
+    /**
+     * Bind the resolved template to a raw description
+     */
+    BIND,
+
+    /**
+     * Transform the raw description into a description
+     */
+    TRANSFORM,
+
+    /**
+     * Process the template into a description, from resolution through transformation
+     */
+    PROCESS;
+
+    public String getName() {
+        return name().toLowerCase();
+    }
+}
@@ -25,4 +25,22 @@ public interface Context {
     <T> T get(TypeKey<T> key);
 
     LogFields getCommonLogFields();
+
+    /**
+     * Return the deadline of the request this context belongs to
+     *
+     * @return the deadline, or null if the request has none
+     */
+    default Deadline getDeadline() {
+        return get(Deadline.KEY);
+    }
+
+    /**
+     * Set the deadline of the request this context belongs to
+     *
+     * @param deadline the deadline, or null to remove it
+     */
+    default void setDeadline(Deadline deadline) {
+        put(Deadline.KEY, deadline);
+    }
 }
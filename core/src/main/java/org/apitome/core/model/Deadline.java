@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.model;
+
+import java.time.Duration;
+
+/**
+ * Deadline is the point in time by which a request must be answered.
+ * <p/>
+ * A deadline set on the {@link Context} bounds every action and service call performed with that context: no
+ * action or service call starts once it has passed, asynchronous and reactive actions time out when it is reached,
+ * and service calls can derive their own timeouts from the remaining time with {@link #timeout(Duration)}.
+ */
+public final class Deadline {
+
+    public static final TypeKey<Deadline> KEY = TypeKey.of("deadline", Deadline.class);
+
+    private final long deadlineNanos;
+
+    private Deadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * Return a deadline after a timeout from now
+     *
+     * @param timeout the timeout
+     * @return the deadline
+     */
+    public static Deadline after(Duration timeout) {
+        return new Deadline(System.nanoTime() + timeout.toNanos());
+    }
+
+    /**
+     * Return the deadline of a context
+     *
+     * @param context a context, possibly null
+     * @return the deadline, or null if the context has none
+     */
+    public static Deadline of(Context context) {
+        return context != null ? context.get(KEY) : null;
+    }
+
+    /**
+     * Return the time left before this deadline
+     *
+     * @return the remaining time in nanoseconds, zero or negative once the deadline has passed
+     */
+    public long remainingNanos() {
+        return deadlineNanos - System.nanoTime();
+    }
+
+    /**
+     * Return the time left before this deadline
+     *
+     * @return the remaining time, never negative
+     */
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(remainingNanos(), 0));
+    }
+
+    /**
+     * Return whether this deadline has passed
+     *
+     * @return true if no time is left
+     */
+    public boolean isExpired() {
+        return remainingNanos() <= 0;
+    }
+
+    /**
+     * Return the timeout to use for a call given the call's own configured timeout
+     *
+     * @param timeout the configured timeout
+     * @return the shorter of the configured timeout and the remaining time
+     */
+    public Duration timeout(Duration timeout) {
+        Duration remaining = remaining();
+        return remaining.compareTo(timeout) < 0 ? remaining : timeout;
+    }
+
+    /**
+     * Return the earlier of this deadline and another one
+     *
+     * @param other another deadline, possibly null
+     * @return the earlier deadline
+     */
+    public Deadline min(Deadline other) {
+        return other == null || deadlineNanos - other.deadlineNanos <= 0 ? this : other;
+    }
+
+    @Override
+    public String toString() {
+        return "Deadline[remaining=" + remaining() + "]";
+    }
+}
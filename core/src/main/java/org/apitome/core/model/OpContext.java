@@ -18,9 +18,12 @@ package org.apitome.core.model;
 
 import org.apitome.core.logging.LogFields;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Default {@link Context}. It is safe to share between the actions an operation performs concurrently.
+ */
 public class OpContext implements Context {
 
     private final LogFields commonLogFields;
@@ -28,13 +31,17 @@ public class OpContext implements Context {
     private final Map<TypeKey<?>, Object> valueMap;
 
     public OpContext() {
-        this.valueMap = new HashMap<>();
+        this.valueMap = new ConcurrentHashMap<>();
         this.commonLogFields = LogFields.builder(null).build();
     }
 
     @Override
     public <T> void put(TypeKey<T> key, T value) {
-        valueMap.put(key, value);
+        if (value == null) {
+            valueMap.remove(key);
+        } else {
+            valueMap.put(key, value);
+        }
     }
 
     @Override
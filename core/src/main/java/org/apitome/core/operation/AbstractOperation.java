@@ -18,12 +18,16 @@ package org.apitome.core.operation;
 
 import org.apitome.core.action.Action;
 import org.apitome.core.action.ActionKey;
+import org.apitome.core.model.Context;
 import org.apitome.core.service.ServiceManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 public abstract class AbstractOperation<Request, Response> implements Operation<Request, Response> {
 
@@ -62,4 +66,79 @@ public abstract class AbstractOperation<Request, Response> implements Operation<
         Action<Request, ?> actionObj = actionMap.get(actionKey);
         return actionObj.getClass().cast(actionObj);
     }
+
+    /**
+     * Perform the actions of an {@link ExecutionPlan} and wait for them to complete
+     * <p/>
+     * See {@link #performPlanAsync(ExecutionPlan, Object, Context)}. The exception that stopped the plan, if any,
+     * is rethrown unwrapped.
+     *
+     * @param plan the execution plan
+     * @param request a request
+     * @param context the context for this operation, which receives the result of every action
+     */
+    public void performPlan(ExecutionPlan plan, Request request, Context context) {
+        try {
+            performPlanAsync(plan, request, context).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Perform the actions of an {@link ExecutionPlan} asynchronously
+     * <p/>
+     * Every action starts on the {@link ServiceManager} executor as soon as the actions it depends on have
+     * completed, and its result is put into the context under its action key. The first failure completes the
+     * returned future exceptionally and no further actions are started; actions already running are left to finish.
+     *
+     * @param plan the execution plan
+     * @param request a request
+     * @param context the context for this operation, which receives the result of every action
+     * @return a CompletableFuture that completes when every action has completed or one of them has failed
+     */
+    public CompletableFuture<Void> performPlanAsync(ExecutionPlan plan, Request request, Context context) {
+        for (ActionKey<?> actionKey : plan.getActionKeys()) {
+            if (!actionMap.containsKey(actionKey)) {
+                throw new IllegalArgumentException("Action '" + actionKey.getName() + "' is not part of this operation");
+            }
+        }
+        CompletableFuture<Void> failure = new CompletableFuture<>();
+        Map<ActionKey<?>, CompletableFuture<?>> futureMap = new HashMap<>();
+        for (ActionKey<?> actionKey : plan.getActionKeys()) {
+            List<ActionKey<?>> dependencies = plan.getDependencies(actionKey);
+            CompletableFuture<?>[] dependencyFutures = dependencies.stream()
+                    .map(futureMap::get)
+                    .toArray(CompletableFuture<?>[]::new);
+            CompletableFuture<?> future = CompletableFuture.allOf(dependencyFutures)
+                    .thenCompose(v -> performPlannedAction(actionKey, request, context, failure));
+            future.whenComplete((result, e) -> {
+                if (e != null) {
+                    failure.completeExceptionally(e instanceof CompletionException ? e.getCause() : e);
+                }
+            });
+            futureMap.put(actionKey, future);
+        }
+        CompletableFuture<Void> completion =
+                CompletableFuture.allOf(futureMap.values().toArray(new CompletableFuture<?>[0]));
+        return CompletableFuture.anyOf(completion, failure).thenApply(v -> null);
+    }
+
+    private <Result> CompletableFuture<Result> performPlannedAction(ActionKey<Result> actionKey, Request request,
+                                                                    Context context, CompletableFuture<Void> failure) {
+        if (failure.isDone()) {
+            // Another action has failed, do not start this one
+            return failure.thenApply(v -> null);
+        }
+        return performActionAsync(actionKey, request, context).thenApply(result -> {
+            context.put(actionKey, result);
+            return result;
+        });
+    }
 }
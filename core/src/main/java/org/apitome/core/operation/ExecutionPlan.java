@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.operation;
+
+import org.apitome.core.action.ActionKey;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * ExecutionPlan declares the actions an operation performs and the actions each one depends on.
+ * <p/>
+ * Actions are identified by their {@link ActionKey} and must be declared after their dependencies, which keeps
+ * the plan free of cycles. {@link AbstractOperation#performPlan} runs every action as soon as its dependencies
+ * have completed, so independent actions run concurrently and dependent actions find the results of their
+ * dependencies in the {@code Context} under the dependencies' action keys.
+ */
+public class ExecutionPlan {
+
+    private final Map<ActionKey<?>, List<ActionKey<?>>> dependencyMap;
+
+    public ExecutionPlan() {
+        this.dependencyMap = new LinkedHashMap<>();
+    }
+
+    /**
+     * Add an action to this plan
+     *
+     * @param actionKey the key of the action
+     * @param dependencies the keys of previously added actions that must complete before this action starts
+     * @return this plan
+     */
+    public ExecutionPlan add(ActionKey<?> actionKey, ActionKey<?>... dependencies) {
+        if (dependencyMap.containsKey(actionKey)) {
+            throw new IllegalArgumentException("Action '" + actionKey.getName() + "' is already in the plan");
+        }
+        for (ActionKey<?> dependency : dependencies) {
+            if (!dependencyMap.containsKey(dependency)) {
+                throw new IllegalArgumentException("Action '" + actionKey.getName() + "' depends on '"
+                        + dependency.getName() + "', which must be added to the plan first");
+            }
+        }
+        dependencyMap.put(actionKey, Collections.unmodifiableList(new ArrayList<>(Arrays.asList(dependencies))));
+        return this;
+    }
+
+    /**
+     * Return the keys of the actions in this plan, in the order they were added
+     *
+     * @return the action keys
+     */
+    public Set<ActionKey<?>> getActionKeys() {
+        return Collections.unmodifiableSet(dependencyMap.keySet());
+    }
+
+    /**
+     * Return the keys of the actions the given action depends on
+     *
+     * @param actionKey the key of an action in this plan
+     * @return the keys of its dependencies, empty if the action is not in this plan
+     */
+    public List<ActionKey<?>> getDependencies(ActionKey<?> actionKey) {
+        return dependencyMap.getOrDefault(actionKey, Collections.emptyList());
+    }
+}
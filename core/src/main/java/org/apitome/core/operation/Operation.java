@@ -19,12 +19,15 @@ package org.apitome.core.operation;
 import org.apitome.core.action.Action;
 import org.apitome.core.action.ActionKey;
 import org.apitome.core.action.ExceptionHandler;
+import org.apitome.core.action.HedgePolicy;
 import org.apitome.core.logging.LoggerAware;
 import org.apitome.core.model.Context;
+import org.apitome.core.service.Bulkhead;
 import org.apitome.core.service.Command;
 import org.apitome.core.service.Service;
 import org.apitome.core.service.ServiceKey;
 import org.apitome.core.service.ServiceManager;
+import reactor.core.publisher.Mono;
 
 import java.util.concurrent.CompletableFuture;
 
@@ -148,7 +151,8 @@ public interface Operation<Request, Response> extends LoggerAware {
     default <Result> CompletableFuture<Result> performActionAsync(ActionKey<Result> actionKey, Request request,
                                                                   Context context) {
         Action<Request, Result> action = getAction(actionKey);
-        return action.performAsync(request, context);
+        return performActionAsync(actionKey, request, context, action.getTimeoutHandler(),
+                action.getExceptionHandler());
     }
 
     /**
@@ -164,12 +168,14 @@ public interface Operation<Request, Response> extends LoggerAware {
     default <Result> CompletableFuture<Result> performActionAsync(ActionKey<Result> actionKey, Request request,
                                                                   Context context, ExceptionHandler timeoutHandler) {
         Action<Request, Result> action = getAction(actionKey);
-        return action.performAsync(request, context, timeoutHandler);
+        return performActionAsync(actionKey, request, context, timeoutHandler, action.getExceptionHandler());
     }
 
     /**
      * Perform the action identified by the action key asynchronously, overriding the action's timeout handling
      * and its exception handling
+     * <p/>
+     * When the {@link ServiceManager} has a {@link Bulkhead} for the action key, the action runs within its limit.
      *
      * @param actionKey the action key that identifies the action to be performed
      * @param request a request
@@ -183,7 +189,89 @@ public interface Operation<Request, Response> extends LoggerAware {
                                                                   Context context, ExceptionHandler timeoutHandler,
                                                                   ExceptionHandler errorHandler) {
         Action<Request, Result> action = getAction(actionKey);
-        return action.performAsync(request, context, timeoutHandler, errorHandler);
+        ServiceManager serviceManager = getServiceManager();
+        Bulkhead bulkhead = serviceManager.getBulkhead(actionKey);
+        if (bulkhead == null) {
+            return action.performAsync(request, context, timeoutHandler, errorHandler);
+        }
+        return action.performAsync(request, context, timeoutHandler, errorHandler,
+                bulkhead.getExecutor(serviceManager.getExecutor()));
+    }
+
+    /**
+     * Perform the action identified by the action key asynchronously, hedging it according to a
+     * {@link HedgePolicy}
+     * <p/>
+     * Both attempts run within the {@link Bulkhead} of the action key, if there is one.
+     *
+     * @param actionKey the action key that identifies the action to be performed
+     * @param request a request
+     * @param context the context for the operation
+     * @param hedgePolicy the hedge policy of the action
+     * @return the action's result
+     * @param <Result> the target result type of the action
+     */
+    default <Result> CompletableFuture<Result> performActionAsync(ActionKey<Result> actionKey, Request request,
+                                                                  Context context, HedgePolicy hedgePolicy) {
+        Action<Request, Result> action = getAction(actionKey);
+        ServiceManager serviceManager = getServiceManager();
+        Bulkhead bulkhead = serviceManager.getBulkhead(actionKey);
+        if (bulkhead == null) {
+            return action.performAsync(request, context, hedgePolicy);
+        }
+        return hedgePolicy.perform(action, request, context, action.getTimeoutHandler(), action.getExceptionHandler(),
+                bulkhead.getExecutor(serviceManager.getExecutor()));
+    }
+
+    /**
+     * Perform the action identified by the action key reactively
+     * <p/>
+     * The {@link Bulkhead} of the action key does not apply to reactive performances: it bounds the threads running
+     * the action, and a reactive action holds no thread while its call is in flight.
+     *
+     * @param actionKey the action key that identifies the action to be performed
+     * @param request a request
+     * @param context the context for the operation
+     * @return a Mono for the action's result
+     * @param <Result> the target result type of the action
+     */
+    default <Result> Mono<Result> performActionReactive(ActionKey<Result> actionKey, Request request, Context context) {
+        Action<Request, Result> action = getAction(actionKey);
+        return action.performReactive(request, context);
+    }
+
+    /**
+     * Perform the action identified by the action key reactively, overriding the action's timeout handling
+     *
+     * @param actionKey the action key that identifies the action to be performed
+     * @param request a request
+     * @param context the context for the operation
+     * @param timeoutHandler an exception handler that overrides the action's timeout handling
+     * @return a Mono for the action's result
+     * @param <Result> the target result type of the action
+     */
+    default <Result> Mono<Result> performActionReactive(ActionKey<Result> actionKey, Request request, Context context,
+                                                        ExceptionHandler timeoutHandler) {
+        Action<Request, Result> action = getAction(actionKey);
+        return action.performReactive(request, context, timeoutHandler);
+    }
+
+    /**
+     * Perform the action identified by the action key reactively, overriding the action's timeout handling
+     * and its exception handling
+     *
+     * @param actionKey the action key that identifies the action to be performed
+     * @param request a request
+     * @param context the context for the operation
+     * @param timeoutHandler an exception handler that overrides the action's timeout handling
+     * @param errorHandler an exception handler that overrides the action's general error handling
+     * @return a Mono for the action's result
+     * @param <Result> the target result type of the action
+     */
+    default <Result> Mono<Result> performActionReactive(ActionKey<Result> actionKey, Request request, Context context,
+                                                        ExceptionHandler timeoutHandler, ExceptionHandler errorHandler) {
+        Action<Request, Result> action = getAction(actionKey);
+        return action.performReactive(request, context, timeoutHandler, errorHandler);
     }
 
     /**
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.service;
+
+import org.apitome.core.error.BulkheadFullException;
+import org.apitome.core.metrics.ActionMetrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Base class of bulkheads, counting rejections and exporting saturation gauges.
+ */
+public abstract class AbstractBulkhead implements Bulkhead {
+
+    private final String name;
+
+    private final LongAdder rejectedCount = new LongAdder();
+
+    private volatile ActionMetrics metrics = ActionMetrics.NOOP;
+
+    protected AbstractBulkhead(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    @Override
+    public void setMetrics(ActionMetrics metrics) {
+        this.metrics = metrics;
+        metrics.registerGauge("bulkhead.active", name, this::getActiveCount);
+        metrics.registerGauge("bulkhead.queued", name, this::getQueuedCount);
+        metrics.registerGauge("bulkhead.max", name, this::getMaxConcurrentCalls);
+    }
+
+    protected BulkheadFullException reject() {
+        rejectedCount.increment();
+        metrics.recordRejection(name, "bulkhead");
+        return new BulkheadFullException(name);
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.service;
+
+import java.time.Duration;
+
+/**
+ * A {@link LimitAlgorithm} that increases the limit by one for every call completing in time while the limit is
+ * being used, and multiplies it by a backoff ratio for every call that timed out or took longer than a threshold.
+ */
+public class AimdLimit implements LimitAlgorithm {
+
+    public static final double DEFAULT_BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double backoffRatio;
+
+    private final long slowCallNanos;
+
+    private volatile double limit;
+
+    public AimdLimit(int initialLimit, int minLimit, int maxLimit, Duration slowCallThreshold) {
+        this(initialLimit, minLimit, maxLimit, slowCallThreshold, DEFAULT_BACKOFF_RATIO);
+    }
+
+    public AimdLimit(int initialLimit, int minLimit, int maxLimit, Duration slowCallThreshold, double backoffRatio) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min <= initial <= max: " + minLimit + ", "
+                    + initialLimit + ", " + maxLimit);
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("Backoff ratio must be between 0 and 1: " + backoffRatio);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.slowCallNanos = slowCallThreshold.toNanos();
+        this.limit = initialLimit;
+    }
+
+    @Override
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    @Override
+    public synchronized void onSample(long rttNanos, int inFlight, boolean dropped) {
+        if (dropped || rttNanos > slowCallNanos) {
+            limit = Math.max(minLimit, limit * backoffRatio);
+        } else if (inFlight * 2 >= limit) {
+            // Only grow a limit that is actually being used
+            limit = Math.min(maxLimit, limit + 1);
+        }
+    }
+}
@@ -1,17 +1,74 @@
 package org.apitome.core.service;
 
+import org.apitome.core.error.DeadlineExceededException;
+import org.apitome.core.model.Context;
+import org.apitome.core.model.Deadline;
 import org.springframework.http.client.reactive.ClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
 
 public class BaseService {
 
     protected final WebClient webClient;
 
+    private final Duration responseTimeout;
+
     public BaseService(String baseUrl, ClientHttpConnector clientConnector) {
+        this(baseUrl, clientConnector, null);
+    }
+
+    /**
+     * Create a service whose calls are bounded by a response timeout
+     *
+     * @param baseUrl the base URL of the service
+     * @param clientConnector the HTTP client connector
+     * @param responseTimeout the response timeout of every call, or null if only deadlines bound calls
+     */
+    public BaseService(String baseUrl, ClientHttpConnector clientConnector, Duration responseTimeout) {
         this.webClient = WebClient.builder()
                 .baseUrl(baseUrl)
                 .clientConnector(clientConnector)
                 .build();
+        this.responseTimeout = responseTimeout;
+    }
+
+    /**
+     * Return the timeout of a call made for a request: the shorter of the response timeout and the time left
+     * before the deadline of the context
+     *
+     * @param context the context of the request, possibly null
+     * @return the timeout, or null if the call is not bounded
+     */
+    public Duration getTimeout(Context context) {
+        Deadline deadline = Deadline.of(context);
+        if (deadline == null) {
+            return responseTimeout;
+        }
+        return responseTimeout != null ? deadline.timeout(responseTimeout) : deadline.remaining();
+    }
+
+    /**
+     * Bound a call made for a request by {@link #getTimeout(Context)}, failing it with a
+     * {@link java.util.concurrent.TimeoutException} when it does not complete in time. A call is not made once the
+     * deadline of the context has passed.
+     *
+     * @param call the call
+     * @param context the context of the request, possibly null
+     * @return the bounded call
+     * @param <T> the type of the call's emitted value
+     */
+    public <T> Mono<T> withTimeout(Mono<T> call, Context context) {
+        return Mono.defer(() -> {
+            Deadline deadline = Deadline.of(context);
+            if (deadline != null && deadline.isExpired()) {
+                return Mono.error(new DeadlineExceededException("Deadline passed before calling "
+                        + this.getClass().getSimpleName()));
+            }
+            Duration timeout = getTimeout(context);
+            return timeout != null ? call.timeout(timeout) : call;
+        });
     }
 
     protected  WebClient getClient() {
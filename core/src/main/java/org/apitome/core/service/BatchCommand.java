@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.service;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A command that runs a batch of keyed lookups using a service
+ * <p/>
+ * The BatchCommand functional interface is used by {@link BatchLoader} to turn many single-key calls into one call
+ * to the service.
+ *
+ * @param <S> the service type
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+@FunctionalInterface
+public interface BatchCommand<S, K, V> {
+
+    /**
+     * Run the command using the service
+     * @param service the service
+     * @param keys the distinct keys of the batch
+     * @return the values found, by key; keys without a value may be left out
+     */
+    Map<K, V> run(S service, Set<K> keys);
+}
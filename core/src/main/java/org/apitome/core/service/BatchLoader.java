@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * BatchLoader coalesces keyed lookups against a service into batches.
+ * <p/>
+ * Keys requested through {@link #load(Object)} are collected until the batch window elapses or the batch reaches
+ * its maximum size, whichever comes first. The batch is then dispatched on the {@link ServiceManager} executor as a
+ * single {@link BatchCommand} through {@link ServiceManager#invokeService(ServiceKey, Command)}, and each caller's
+ * future is completed with the value for its key, or null when the batch returned none. A key that is already queued
+ * or in flight is not requested again; its callers share the pending future. A failed batch, or a batch the executor
+ * rejects, fails every future in it.
+ *
+ * @param <S> the service type
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class BatchLoader<S extends Service, K, V> {
+
+    private final ServiceManager serviceManager;
+
+    private final ServiceKey<S> serviceKey;
+
+    private final BatchCommand<S, K, V> batchCommand;
+
+    private final int maxBatchSize;
+
+    private final Executor windowExecutor;
+
+    private final Object lock = new Object();
+
+    private final Map<K, CompletableFuture<V>> pendingMap;
+
+    private Map<K, CompletableFuture<V>> batchMap;
+
+    private long batchNumber;
+
+    private final LongAdder batchCount = new LongAdder();
+
+    private final LongAdder loadCount = new LongAdder();
+
+    private final LongAdder deduplicatedCount = new LongAdder();
+
+    public BatchLoader(ServiceManager serviceManager, ServiceKey<S> serviceKey, BatchCommand<S, K, V> batchCommand,
+                       Duration window, int maxBatchSize) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Maximum batch size must be positive: " + maxBatchSize);
+        }
+        this.serviceManager = serviceManager;
+        this.serviceKey = serviceKey;
+        this.batchCommand = batchCommand;
+        this.maxBatchSize = maxBatchSize;
+        // the window only hands the batch over to the service manager executor, where a rejection fails the batch
+        this.windowExecutor = CompletableFuture.delayedExecutor(window.toNanos(), TimeUnit.NANOSECONDS, Runnable::run);
+        this.pendingMap = new HashMap<>();
+        this.batchMap = new LinkedHashMap<>();
+    }
+
+    /**
+     * Load the value for a key
+     *
+     * @param key the key
+     * @return a CompletableFuture for the value
+     */
+    public CompletableFuture<V> load(K key) {
+        loadCount.increment();
+        Map<K, CompletableFuture<V>> fullBatch = null;
+        Map<K, CompletableFuture<V>> rejectedBatch = null;
+        RejectedExecutionException rejection = null;
+        CompletableFuture<V> future;
+        synchronized (lock) {
+            future = pendingMap.get(key);
+            if (future != null) {
+                deduplicatedCount.increment();
+                return future;
+            }
+            future = new CompletableFuture<>();
+            pendingMap.put(key, future);
+            batchMap.put(key, future);
+            if (batchMap.size() >= maxBatchSize) {
+                fullBatch = takeBatch();
+            } else if (batchMap.size() == 1) {
+                long scheduledBatch = batchNumber;
+                try {
+                    windowExecutor.execute(() -> dispatchScheduled(scheduledBatch));
+                } catch (RejectedExecutionException e) {
+                    rejectedBatch = takeBatch();
+                    rejection = e;
+                }
+            }
+        }
+        if (rejectedBatch != null) {
+            fail(rejectedBatch, rejection);
+        }
+        if (fullBatch != null) {
+            execute(fullBatch);
+        }
+        return future;
+    }
+
+    /**
+     * Load the values for several keys
+     *
+     * @param keys the keys
+     * @return a CompletableFuture for the values found, by key
+     */
+    public CompletableFuture<Map<K, V>> loadAll(Collection<K> keys) {
+        Map<K, CompletableFuture<V>> futureMap = new LinkedHashMap<>();
+        keys.forEach(key -> futureMap.computeIfAbsent(key, this::load));
+        return CompletableFuture.allOf(futureMap.values().toArray(new CompletableFuture<?>[0]))
+                .thenApply(v -> {
+                    Map<K, V> valueMap = new LinkedHashMap<>();
+                    futureMap.forEach((key, future) -> {
+                        V value = future.join();
+                        if (value != null) {
+                            valueMap.put(key, value);
+                        }
+                    });
+                    return valueMap;
+                });
+    }
+
+    public long getBatchCount() {
+        return batchCount.sum();
+    }
+
+    public long getLoadCount() {
+        return loadCount.sum();
+    }
+
+    public long getDeduplicatedCount() {
+        return deduplicatedCount.sum();
+    }
+
+    private Map<K, CompletableFuture<V>> takeBatch() {
+        Map<K, CompletableFuture<V>> batch = batchMap;
+        batchMap = new LinkedHashMap<>();
+        batchNumber++;
+        return batch;
+    }
+
+    private void dispatchScheduled(long scheduledBatch) {
+        Map<K, CompletableFuture<V>> batch;
+        synchronized (lock) {
+            // The batch may have been dispatched already because it filled up
+            if (scheduledBatch != batchNumber || batchMap.isEmpty()) {
+                return;
+            }
+            batch = takeBatch();
+        }
+        execute(batch);
+    }
+
+    private void execute(Map<K, CompletableFuture<V>> batch) {
+        try {
+            serviceManager.getExecutor().execute(() -> dispatch(batch));
+        } catch (RejectedExecutionException e) {
+            fail(batch, e);
+        }
+    }
+
+    private void dispatch(Map<K, CompletableFuture<V>> batch) {
+        batchCount.increment();
+        Map<K, V> valueMap;
+        try {
+            valueMap = serviceManager.invokeService(serviceKey,
+                    service -> batchCommand.run(service, Collections.unmodifiableSet(batch.keySet())));
+        } catch (Throwable e) {
+            fail(batch, e);
+            return;
+        }
+        release(batch);
+        Map<K, V> values = valueMap != null ? valueMap : Collections.emptyMap();
+        batch.forEach((key, future) -> future.complete(values.get(key)));
+    }
+
+    private void fail(Map<K, CompletableFuture<V>> batch, Throwable e) {
+        release(batch);
+        batch.values().forEach(future -> future.completeExceptionally(e));
+    }
+
+    private void release(Map<K, CompletableFuture<V>> batch) {
+        synchronized (lock) {
+            batch.forEach(pendingMap::remove);
+        }
+    }
+}
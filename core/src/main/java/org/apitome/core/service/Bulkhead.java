@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.service;
+
+import org.apitome.core.error.BulkheadFullException;
+import org.apitome.core.metrics.ActionMetrics;
+
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Bulkhead bounds the concurrency of the calls to one downstream so that a degraded downstream cannot exhaust
+ * the resources shared with the others.
+ * <p/>
+ * Bulkheads are added to the {@link ServiceManager} under a {@link ServiceKey}, bounding
+ * {@link ServiceManager#invokeService(ServiceKey, Command)}, or under an {@link org.apitome.core.action.ActionKey},
+ * bounding the asynchronous execution of the action. Calls beyond the limit wait in a bounded queue and are
+ * rejected with a {@link BulkheadFullException} once the queue is full.
+ */
+public interface Bulkhead {
+
+    /**
+     * Return the name of this bulkhead
+     *
+     * @return the name
+     */
+    String getName();
+
+    /**
+     * Run a call on the calling thread, or on the bulkhead's own threads, within the limit of this bulkhead
+     *
+     * @param supplier the call
+     * @return the value returned by the call
+     * @param <T> the type of the value
+     * @throws BulkheadFullException if the call is rejected
+     */
+    <T> T call(Supplier<T> supplier);
+
+    /**
+     * Return an executor running tasks within the limit of this bulkhead
+     * <p/>
+     * The executor throws a {@link BulkheadFullException} from {@code execute} when a task is rejected.
+     *
+     * @param executor the executor the tasks would otherwise run on
+     * @return the bounded executor
+     */
+    Executor getExecutor(Executor executor);
+
+    /**
+     * Return the maximum number of concurrent calls
+     *
+     * @return the maximum
+     */
+    int getMaxConcurrentCalls();
+
+    /**
+     * Return the number of calls running
+     *
+     * @return the active calls
+     */
+    int getActiveCount();
+
+    /**
+     * Return the number of calls waiting to run
+     *
+     * @return the queued calls
+     */
+    int getQueuedCount();
+
+    /**
+     * Return the number of calls rejected so far
+     *
+     * @return the rejected calls
+     */
+    long getRejectedCount();
+
+    /**
+     * Export the saturation of this bulkhead to metrics
+     *
+     * @param metrics the metrics
+     */
+    void setMetrics(ActionMetrics metrics);
+}
@@ -0,0 +1,403 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.service;
+
+import org.apitome.core.error.CallRejectedException;
+import org.apitome.core.error.CircuitOpenException;
+import org.apitome.core.metrics.ActionMetrics;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * CircuitBreaker stops calling a service that is failing or slow, so that calls fail fast instead of waiting for
+ * the service and the service is given time to recover.
+ * <p/>
+ * While CLOSED, the outcomes of the last calls are kept in a count-based sliding window, and the circuit opens once
+ * the window holds the minimum number of calls and the rate of failed calls, or of calls slower than the slow call
+ * duration, reaches its threshold. While OPEN, calls are rejected with a {@link CircuitOpenException} without
+ * running; the same exception instance is thrown every time, so rejecting a call does not allocate. After the wait
+ * duration the circuit goes HALF_OPEN and admits a number of probe calls: the circuit closes if their rates stay
+ * below the thresholds and opens again otherwise.
+ * <p/>
+ * A call fails when it throws an exception matching the failure predicate, by default an I/O error or a timeout
+ * anywhere in its cause chain; any other exception is an answer of the service and counts as a success. Each
+ * permission carries the generation of the circuit it was issued in, and the outcome of a call that completes
+ * after the circuit changed state is not recorded, so calls admitted while CLOSED are never taken for probes.
+ * Calls rejected by other mechanisms, such as a {@link Bulkhead}, are not outcomes of the service and are not
+ * recorded either.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * The default failure predicate, matching I/O errors and timeouts anywhere in the cause chain
+     */
+    public static final Predicate<Throwable> IO_OR_TIMEOUT = CircuitBreaker::isIoOrTimeout;
+
+    private static final long REJECTED = -1;
+
+    private static final Duration NEVER_SLOW = Duration.ofNanos(Long.MAX_VALUE);
+
+    private static final byte FAILED = 1;
+
+    private static final byte SLOW = 2;
+
+    private final String name;
+
+    private final double failureRateThreshold;
+
+    private final double slowCallRateThreshold;
+
+    private final long slowCallNanos;
+
+    private final int minimumCalls;
+
+    private final long waitNanos;
+
+    private final int permittedHalfOpenCalls;
+
+    private final Predicate<Throwable> failurePredicate;
+
+    private final CircuitOpenException openException;
+
+    private final LongAdder rejectedCount = new LongAdder();
+
+    private final byte[] window;
+
+    private int windowIndex;
+
+    private int windowCount;
+
+    private int failureCount;
+
+    private int slowCount;
+
+    private int halfOpenPermits;
+
+    private int halfOpenCalls;
+
+    private int halfOpenFailures;
+
+    private int halfOpenSlow;
+
+    private volatile State state = State.CLOSED;
+
+    private volatile long generation;
+
+    private volatile long openedAt;
+
+    private volatile ActionMetrics metrics = ActionMetrics.NOOP;
+
+    /**
+     * Create a circuit breaker that opens on failures only, since no call is ever slow, and probes with a single call
+     *
+     * @param name the circuit name
+     * @param failureRateThreshold the failure rate, between 0 and 1, that opens the circuit
+     * @param windowSize the number of calls in the sliding window, all of which are needed to open the circuit
+     * @param waitInOpen the time the circuit stays open before probing
+     */
+    public CircuitBreaker(String name, double failureRateThreshold, int windowSize, Duration waitInOpen) {
+        this(name, failureRateThreshold, 1.0, NEVER_SLOW, windowSize, windowSize, waitInOpen, 1);
+    }
+
+    /**
+     * Create a circuit breaker
+     *
+     * @param name the circuit name
+     * @param failureRateThreshold the failure rate, between 0 and 1, that opens the circuit
+     * @param slowCallRateThreshold the slow call rate, between 0 and 1, that opens the circuit
+     * @param slowCallDuration the duration from which a call is slow
+     * @param windowSize the number of calls in the sliding window
+     * @param minimumCalls the number of calls in the window needed to open the circuit
+     * @param waitInOpen the time the circuit stays open before probing
+     * @param permittedHalfOpenCalls the number of probe calls admitted while half open
+     */
+    public CircuitBreaker(String name, double failureRateThreshold, double slowCallRateThreshold,
+                          Duration slowCallDuration, int windowSize, int minimumCalls, Duration waitInOpen,
+                          int permittedHalfOpenCalls) {
+        this(name, failureRateThreshold, slowCallRateThreshold, slowCallDuration, windowSize, minimumCalls, waitInOpen,
+                permittedHalfOpenCalls, IO_OR_TIMEOUT);
+    }
+
+    /**
+     * Create a circuit breaker with its own failure predicate
+     *
+     * @param name the circuit name
+     * @param failureRateThreshold the failure rate, between 0 and 1, that opens the circuit
+     * @param slowCallRateThreshold the slow call rate, between 0 and 1, that opens the circuit
+     * @param slowCallDuration the duration from which a call is slow
+     * @param windowSize the number of calls in the sliding window
+     * @param minimumCalls the number of calls in the window needed to open the circuit
+     * @param waitInOpen the time the circuit stays open before probing
+     * @param permittedHalfOpenCalls the number of probe calls admitted while half open
+     * @param failurePredicate the predicate matching the exceptions that are failures of the service
+     */
+    public CircuitBreaker(String name, double failureRateThreshold, double slowCallRateThreshold,
+                          Duration slowCallDuration, int windowSize, int minimumCalls, Duration waitInOpen,
+                          int permittedHalfOpenCalls, Predicate<Throwable> failurePredicate) {
+        if (failureRateThreshold <= 0 || failureRateThreshold > 1
+                || slowCallRateThreshold <= 0 || slowCallRateThreshold > 1) {
+            throw new IllegalArgumentException("Rate thresholds must be greater than 0 and at most 1");
+        }
+        if (windowSize < 1 || minimumCalls < 1 || minimumCalls > windowSize) {
+            throw new IllegalArgumentException("Minimum calls must be between 1 and the window size " + windowSize);
+        }
+        if (permittedHalfOpenCalls < 1) {
+            throw new IllegalArgumentException("Permitted half open calls must be at least 1");
+        }
+        this.name = name;
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallNanos = slowCallDuration.toNanos();
+        this.minimumCalls = minimumCalls;
+        this.waitNanos = waitInOpen.toNanos();
+        this.permittedHalfOpenCalls = permittedHalfOpenCalls;
+        this.failurePredicate = failurePredicate;
+        this.window = new byte[windowSize];
+        this.openException = new CircuitOpenException(name);
+    }
+
+    /**
+     * Run a call through the circuit
+     *
+     * @param supplier the call
+     * @return the value returned by the call
+     * @param <T> the type of the value
+     * @throws CircuitOpenException if the circuit is open
+     */
+    public <T> T call(Supplier<T> supplier) {
+        long permit = acquirePermission();
+        long start = System.nanoTime();
+        try {
+            T value = supplier.get();
+            onSuccess(permit, System.nanoTime() - start);
+            return value;
+        } catch (CallRejectedException e) {
+            releasePermission(permit);
+            throw e;
+        } catch (RuntimeException | Error e) {
+            onError(permit, System.nanoTime() - start, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Admit a call, which must then be reported with {@link #onSuccess(long, long)},
+     * {@link #onError(long, long, Throwable)} or {@link #releasePermission(long)}
+     *
+     * @return the permit of the call, identifying the generation of the circuit it was admitted in
+     * @throws CircuitOpenException if the circuit is open
+     */
+    public long acquirePermission() {
+        // The generation is read first, so that a call admitted across a state change is not recorded
+        long permit = generation;
+        State current = state;
+        if (current == State.CLOSED) {
+            return permit;
+        }
+        if (current == State.OPEN && System.nanoTime() - openedAt < waitNanos) {
+            reject();
+        }
+        permit = tryAcquireHalfOpen();
+        if (permit == REJECTED) {
+            reject();
+        }
+        return permit;
+    }
+
+    /**
+     * Give back the permission of a call that did not run
+     *
+     * @param permit the permit of the call
+     */
+    public synchronized void releasePermission(long permit) {
+        if (permit == generation && state == State.HALF_OPEN
+                && halfOpenPermits + halfOpenCalls < permittedHalfOpenCalls) {
+            halfOpenPermits++;
+        }
+    }
+
+    /**
+     * Record a successful call
+     *
+     * @param permit the permit of the call
+     * @param durationNanos the duration of the call
+     */
+    public void onSuccess(long permit, long durationNanos) {
+        record(permit, durationNanos >= slowCallNanos ? SLOW : 0);
+    }
+
+    /**
+     * Record a call that threw an exception, which is a failure if it matches the failure predicate and a success
+     * otherwise
+     *
+     * @param permit the permit of the call
+     * @param durationNanos the duration of the call
+     * @param error the exception thrown by the call
+     */
+    public void onError(long permit, long durationNanos, Throwable error) {
+        if (!failurePredicate.test(error)) {
+            onSuccess(permit, durationNanos);
+            return;
+        }
+        record(permit, durationNanos >= slowCallNanos ? FAILED | SLOW : FAILED);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Return the failure rate of the calls in the sliding window
+     *
+     * @return the failure rate, between 0 and 1
+     */
+    public synchronized double getFailureRate() {
+        return windowCount == 0 ? 0 : (double) failureCount / windowCount;
+    }
+
+    /**
+     * Return the slow call rate of the calls in the sliding window
+     *
+     * @return the slow call rate, between 0 and 1
+     */
+    public synchronized double getSlowCallRate() {
+        return windowCount == 0 ? 0 : (double) slowCount / windowCount;
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    /**
+     * Export the state of the circuit as a gauge: 0 when closed, 1 when open and 2 when half open
+     *
+     * @param metrics the metrics
+     */
+    public void setMetrics(ActionMetrics metrics) {
+        this.metrics = metrics;
+        metrics.registerGauge("circuit.state", name, () -> state.ordinal());
+    }
+
+    private void reject() {
+        rejectedCount.increment();
+        metrics.recordRejection(name, "circuit");
+        throw openException;
+    }
+
+    private synchronized long tryAcquireHalfOpen() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < waitNanos) {
+                return REJECTED;
+            }
+            halfOpenPermits = permittedHalfOpenCalls;
+            halfOpenCalls = 0;
+            halfOpenFailures = 0;
+            halfOpenSlow = 0;
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits == 0) {
+                return REJECTED;
+            }
+            halfOpenPermits--;
+        }
+        return generation;
+    }
+
+    private synchronized void record(long permit, int outcome) {
+        if (permit != generation) {
+            // The call was admitted before the circuit last changed state, its outcome says nothing about this one
+            return;
+        }
+        switch (state) {
+            case CLOSED:
+                if (windowCount == window.length) {
+                    byte evicted = window[windowIndex];
+                    failureCount -= evicted & FAILED;
+                    slowCount -= (evicted & SLOW) >> 1;
+                } else {
+                    windowCount++;
+                }
+                window[windowIndex] = (byte) outcome;
+                windowIndex = (windowIndex + 1) % window.length;
+                failureCount += outcome & FAILED;
+                slowCount += (outcome & SLOW) >> 1;
+                if (windowCount >= minimumCalls && exceedsThresholds(failureCount, slowCount, windowCount)) {
+                    open();
+                }
+                break;
+            case HALF_OPEN:
+                halfOpenCalls++;
+                halfOpenFailures += outcome & FAILED;
+                halfOpenSlow += (outcome & SLOW) >> 1;
+                // The circuit opens as soon as the probes cannot stay below the thresholds
+                if (exceedsThresholds(halfOpenFailures, halfOpenSlow, permittedHalfOpenCalls)) {
+                    open();
+                } else if (halfOpenCalls >= permittedHalfOpenCalls) {
+                    resetWindow();
+                    transition(State.CLOSED);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private boolean exceedsThresholds(int failures, int slowCalls, int calls) {
+        return failures >= failureRateThreshold * calls || slowCalls >= slowCallRateThreshold * calls;
+    }
+
+    private void open() {
+        resetWindow();
+        openedAt = System.nanoTime();
+        transition(State.OPEN);
+    }
+
+    private void transition(State newState) {
+        generation++;
+        state = newState;
+    }
+
+    private static boolean isIoOrTimeout(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause() != cause ? cause.getCause() : null) {
+            if (cause instanceof IOException || cause instanceof TimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void resetWindow() {
+        windowIndex = 0;
+        windowCount = 0;
+        failureCount = 0;
+        slowCount = 0;
+    }
+}
@@ -11,4 +11,14 @@ public interface ClientConfig {
     long getConnectTimeout();
 
     int getSocketTimeout();
+
+    /**
+     * Return the time a call waits for its complete response, in milliseconds, before the time left before the
+     * deadline of its request is taken into account
+     *
+     * @return the response timeout, or 0 if only deadlines bound calls
+     */
+    default long getResponseTimeout() {
+        return 0;
+    }
 }
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.service;
+
+import org.apitome.core.error.LimitExceededException;
+import org.apitome.core.metrics.ActionMetrics;
+
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * ConcurrencyLimiter admits calls to a service up to a limit that a {@link LimitAlgorithm} adapts to the measured
+ * round-trip times.
+ * <p/>
+ * Calls beyond the limit wait up to the maximum wait for a call to complete and are rejected with a
+ * {@link LimitExceededException} after that; a maximum wait of zero rejects them at once. Successful calls are
+ * sampled with their round-trip time and calls failing with a timeout are sampled as dropped; other failures say
+ * nothing about load and are not sampled.
+ */
+public class ConcurrencyLimiter {
+
+    private final String name;
+
+    private final LimitAlgorithm algorithm;
+
+    private final long maxWaitNanos;
+
+    private final Object lock = new Object();
+
+    private final LongAdder rejectedCount = new LongAdder();
+
+    private int inFlight;
+
+    private volatile ActionMetrics metrics = ActionMetrics.NOOP;
+
+    public ConcurrencyLimiter(String name, LimitAlgorithm algorithm) {
+        this(name, algorithm, Duration.ZERO);
+    }
+
+    public ConcurrencyLimiter(String name, LimitAlgorithm algorithm, Duration maxWait) {
+        this.name = name;
+        this.algorithm = algorithm;
+        this.maxWaitNanos = maxWait.toNanos();
+    }
+
+    /**
+     * Run a call within the limit
+     *
+     * @param supplier the call
+     * @return the value returned by the call
+     * @param <T> the type of the value
+     * @throws LimitExceededException if the call is rejected
+     */
+    public <T> T call(Supplier<T> supplier) {
+        acquire();
+        long start = System.nanoTime();
+        boolean sampled = true;
+        boolean dropped = false;
+        try {
+            return supplier.get();
+        } catch (RuntimeException | Error e) {
+            dropped = isTimeout(e);
+            sampled = dropped;
+            throw e;
+        } finally {
+            release(System.nanoTime() - start, sampled, dropped);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        return algorithm.getLimit();
+    }
+
+    public int getInFlight() {
+        synchronized (lock) {
+            return inFlight;
+        }
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    /**
+     * Export the current limit and the calls in flight as gauges
+     *
+     * @param metrics the metrics
+     */
+    public void setMetrics(ActionMetrics metrics) {
+        this.metrics = metrics;
+        metrics.registerGauge("limit", name, this::getLimit);
+        metrics.registerGauge("limit.inflight", name, this::getInFlight);
+    }
+
+    private void acquire() {
+        synchronized (lock) {
+            if (inFlight < algorithm.getLimit()) {
+                inFlight++;
+                return;
+            }
+            long deadline = System.nanoTime() + maxWaitNanos;
+            long remaining = maxWaitNanos;
+            try {
+                while (remaining > 0) {
+                    lock.wait(remaining / 1_000_000, (int) (remaining % 1_000_000));
+                    if (inFlight < algorithm.getLimit()) {
+                        inFlight++;
+                        return;
+                    }
+                    remaining = deadline - System.nanoTime();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        rejectedCount.increment();
+        metrics.recordRejection(name, "limit");
+        throw new LimitExceededException(name);
+    }
+
+    private void release(long rttNanos, boolean sampled, boolean dropped) {
+        int completedInFlight;
+        synchronized (lock) {
+            completedInFlight = inFlight;
+            inFlight--;
+            lock.notify();
+        }
+        if (sampled) {
+            algorithm.onSample(rttNanos, completedInFlight, dropped);
+        }
+    }
+
+    private static boolean isTimeout(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TimeoutException || cause instanceof SocketTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -16,15 +16,22 @@
 
 package org.apitome.core.service;
 
+import org.apitome.core.metrics.ActionMetrics;
+import org.apitome.core.model.TypeKey;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Default {@link ServiceManager}. Unless an executor or {@link ExecutorStrategy} is given, actions run on the
+ * executor selected by the {@link ExecutorStrategy} system properties, a fixed pool of five threads by default.
+ */
 public class DefaultServiceManager implements ServiceManager {
 
     private final Logger log = LoggerFactory.getLogger(this.getClass());
@@ -33,13 +40,27 @@ public class DefaultServiceManager implements ServiceManager {
 
     private final Map<ServiceKey<?>, Service> serviceMap;
 
+    private final Map<TypeKey<?>, Bulkhead> bulkheadMap;
+
+    private final Map<ServiceKey<?>, ConcurrencyLimiter> limiterMap;
+
+    private final Map<ServiceKey<?>, CircuitBreaker> circuitBreakerMap;
+
+    private volatile ActionMetrics metrics = ActionMetrics.NOOP;
+
     public DefaultServiceManager() {
-        this.serviceMap = new HashMap<>();
-        this.actionExecutor = Executors.newFixedThreadPool(5, new ActionThreadFactory());
+        this(ExecutorStrategy.fromProperties(System.getProperties()));
+    }
+
+    public DefaultServiceManager(ExecutorStrategy executorStrategy) {
+        this(executorStrategy.createExecutor());
     }
 
     public DefaultServiceManager(Executor actionExecutor) {
         this.serviceMap = new HashMap<>();
+        this.bulkheadMap = new ConcurrentHashMap<>();
+        this.limiterMap = new ConcurrentHashMap<>();
+        this.circuitBreakerMap = new ConcurrentHashMap<>();
         this.actionExecutor = actionExecutor;
     }
 
@@ -53,6 +74,66 @@ public class DefaultServiceManager implements ServiceManager {
         return serviceKey.getType().cast(serviceMap.get(serviceKey));
     }
 
+    /**
+     * Bound the calls to a service, or the asynchronous execution of an action, with a {@link Bulkhead}
+     *
+     * @param key a {@link ServiceKey} or an {@link org.apitome.core.action.ActionKey}
+     * @param bulkhead the bulkhead
+     */
+    public void addBulkhead(TypeKey<?> key, Bulkhead bulkhead) {
+        bulkheadMap.put(key, bulkhead);
+        bulkhead.setMetrics(metrics);
+    }
+
+    @Override
+    public Bulkhead getBulkhead(TypeKey<?> key) {
+        return bulkheadMap.get(key);
+    }
+
+    /**
+     * Adapt the number of concurrent calls to a service with a {@link ConcurrencyLimiter}
+     *
+     * @param serviceKey the service key
+     * @param limiter the limiter
+     */
+    public void addLimiter(ServiceKey<?> serviceKey, ConcurrencyLimiter limiter) {
+        limiterMap.put(serviceKey, limiter);
+        limiter.setMetrics(metrics);
+    }
+
+    @Override
+    public ConcurrencyLimiter getLimiter(ServiceKey<?> serviceKey) {
+        return limiterMap.get(serviceKey);
+    }
+
+    /**
+     * Fail the calls to a service fast while it is failing with a {@link CircuitBreaker}
+     *
+     * @param serviceKey the service key
+     * @param circuitBreaker the circuit breaker
+     */
+    public void addCircuitBreaker(ServiceKey<?> serviceKey, CircuitBreaker circuitBreaker) {
+        circuitBreakerMap.put(serviceKey, circuitBreaker);
+        circuitBreaker.setMetrics(metrics);
+    }
+
+    @Override
+    public CircuitBreaker getCircuitBreaker(ServiceKey<?> serviceKey) {
+        return circuitBreakerMap.get(serviceKey);
+    }
+
+    @Override
+    public ActionMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(ActionMetrics metrics) {
+        this.metrics = metrics;
+        bulkheadMap.values().forEach(bulkhead -> bulkhead.setMetrics(metrics));
+        limiterMap.values().forEach(limiter -> limiter.setMetrics(metrics));
+        circuitBreakerMap.values().forEach(circuitBreaker -> circuitBreaker.setMetrics(metrics));
+    }
+
     @Override
     public Executor getExecutor() {
         return actionExecutor;
@@ -65,12 +146,11 @@ public class DefaultServiceManager implements ServiceManager {
 
     public static class ActionThreadFactory implements ThreadFactory {
 
-        private int threadNum;
+        private final AtomicInteger threadNum = new AtomicInteger();
 
         @Override
         public Thread newThread(Runnable r) {
-            threadNum++;
-            return new Thread(r, String.format("action-thread-%d", threadNum));
+            return new Thread(r, String.format("action-thread-%d", threadNum.incrementAndGet()));
         }
     }
 }
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * A {@link Bulkhead} running calls on a dedicated, bounded pool of threads.
+ * <p/>
+ * Calls beyond the number of threads wait in a queue of fixed capacity and are rejected at once when it is full,
+ * so a capacity of zero gives fast rejection. Synchronous calls block the caller until the call completes on the
+ * bulkhead's threads.
+ */
+public class ExecutorBulkhead extends AbstractBulkhead {
+
+    public static final long KEEP_ALIVE_SECONDS = 60;
+
+    private final ThreadPoolExecutor executor;
+
+    private final int threads;
+
+    public ExecutorBulkhead(String name, int threads, int queueCapacity) {
+        super(name);
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be positive: " + threads);
+        }
+        if (queueCapacity < 0) {
+            throw new IllegalArgumentException("Queue capacity must not be negative: " + queueCapacity);
+        }
+        BlockingQueue<Runnable> queue = queueCapacity > 0 ? new ArrayBlockingQueue<>(queueCapacity)
+                : new SynchronousQueue<>();
+        AtomicInteger threadNum = new AtomicInteger();
+        this.threads = threads;
+        this.executor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, queue,
+                r -> new Thread(r, String.format("bulkhead-%s-%d", name, threadNum.incrementAndGet())));
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public <T> T call(Supplier<T> supplier) {
+        Future<T> future;
+        try {
+            future = executor.submit(supplier::get);
+        } catch (RejectedExecutionException e) {
+            throw reject();
+        }
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for bulkhead '" + getName() + "'", e);
+        }
+    }
+
+    @Override
+    public Executor getExecutor(Executor ignored) {
+        return task -> {
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                throw reject();
+            }
+        };
+    }
+
+    @Override
+    public int getMaxConcurrentCalls() {
+        return threads;
+    }
+
+    @Override
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    @Override
+    public int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Stop the bulkhead's threads once the calls already accepted have completed
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.service;
+
+import org.apitome.core.service.DefaultServiceManager.ActionThreadFactory;
+
+import java.lang.reflect.Method;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ExecutorStrategy creates the executor a {@link DefaultServiceManager} runs asynchronous actions on.
+ * <p/>
+ * Three strategies are provided: a fixed pool, an elastic pool that grows with the load and shrinks when idle,
+ * and one virtual thread per action. Virtual threads are looked up reflectively, so the strategy works on Java 21
+ * and later and falls back to the elastic pool on earlier runtimes. {@link #fromProperties(Properties)} selects a
+ * strategy from configuration.
+ */
+@FunctionalInterface
+public interface ExecutorStrategy {
+
+    String MODE_PROPERTY = "apitome.executor.mode";
+
+    String THREADS_PROPERTY = "apitome.executor.threads";
+
+    int DEFAULT_THREADS = 5;
+
+    long ELASTIC_KEEP_ALIVE_SECONDS = 60;
+
+    /**
+     * Create a new executor
+     *
+     * @return the executor
+     */
+    ExecutorService createExecutor();
+
+    /**
+     * Return a strategy creating a pool with a fixed number of threads
+     *
+     * @param threads the number of threads
+     * @return the strategy
+     */
+    static ExecutorStrategy fixed(int threads) {
+        checkThreads(threads);
+        return () -> Executors.newFixedThreadPool(threads, new ActionThreadFactory());
+    }
+
+    /**
+     * Return a strategy creating a pool that starts threads on demand up to a maximum and stops them after being
+     * idle for {@value #ELASTIC_KEEP_ALIVE_SECONDS} seconds. Actions queue once the maximum is reached.
+     *
+     * @param maxThreads the maximum number of threads
+     * @return the strategy
+     */
+    static ExecutorStrategy elastic(int maxThreads) {
+        checkThreads(maxThreads);
+        return () -> {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads, ELASTIC_KEEP_ALIVE_SECONDS,
+                    TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new ActionThreadFactory());
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        };
+    }
+
+    /**
+     * Return a strategy running every action on a new virtual thread, or an elastic pool of
+     * {@code fallbackThreads} threads when the runtime does not support virtual threads
+     *
+     * @param fallbackThreads the maximum number of threads of the fallback pool
+     * @return the strategy
+     */
+    static ExecutorStrategy virtual(int fallbackThreads) {
+        if (!isVirtualThreadSupported()) {
+            return elastic(fallbackThreads);
+        }
+        return () -> {
+            try {
+                Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (ExecutorService) factory.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Virtual threads are not available", e);
+            }
+        };
+    }
+
+    /**
+     * Return whether the runtime supports virtual threads
+     *
+     * @return true when running on Java 21 or later
+     */
+    static boolean isVirtualThreadSupported() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Return the strategy selected by configuration
+     * <p/>
+     * {@value #MODE_PROPERTY} is one of {@code fixed}, {@code elastic} or {@code virtual} and defaults to
+     * {@code fixed}. {@value #THREADS_PROPERTY} is the number of threads of the fixed pool, the maximum of the
+     * elastic pool or the fallback of virtual threads, and defaults to {@value #DEFAULT_THREADS}.
+     *
+     * @param properties the configuration
+     * @return the strategy
+     */
+    static ExecutorStrategy fromProperties(Properties properties) {
+        String mode = properties.getProperty(MODE_PROPERTY, "fixed").trim().toLowerCase(Locale.ROOT);
+        String threadsValue = properties.getProperty(THREADS_PROPERTY, String.valueOf(DEFAULT_THREADS)).trim();
+        int threads;
+        try {
+            threads = Integer.parseInt(threadsValue);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(THREADS_PROPERTY + " is not a number: " + threadsValue, e);
+        }
+        switch (mode) {
+            case "fixed":
+                return fixed(threads);
+            case "elastic":
+                return elastic(threads);
+            case "virtual":
+                return virtual(threads);
+            default:
+                throw new IllegalArgumentException("Unknown " + MODE_PROPERTY + ": " + mode);
+        }
+    }
+
+    private static void checkThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be positive: " + threads);
+        }
+    }
+}
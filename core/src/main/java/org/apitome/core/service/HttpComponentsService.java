@@ -8,12 +8,14 @@ import org.apache.hc.client5.http.nio.AsyncClientConnectionManager;
 import org.springframework.http.client.reactive.ClientHttpConnector;
 import org.springframework.http.client.reactive.HttpComponentsClientHttpConnector;
 
+import java.time.Duration;
 import java.util.concurrent.TimeUnit;
 
 public class HttpComponentsService extends BaseService implements Service {
 
     public HttpComponentsService(ClientConfig clientConfig) {
-        super(clientConfig.getBaseUrl(), createClientConnector(clientConfig));
+        super(clientConfig.getBaseUrl(), createClientConnector(clientConfig),
+                clientConfig.getResponseTimeout() > 0 ? Duration.ofMillis(clientConfig.getResponseTimeout()) : null);
     }
 
     private static ClientHttpConnector createClientConnector(ClientConfig clientConfig) {
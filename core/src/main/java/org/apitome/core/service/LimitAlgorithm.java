@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.service;
+
+/**
+ * LimitAlgorithm adjusts a concurrency limit from the round-trip times of the calls it admits.
+ * <p/>
+ * Implementations must be thread safe; {@link #onSample(long, int, boolean)} is called as every call completes.
+ */
+public interface LimitAlgorithm {
+
+    /**
+     * Return the current limit
+     *
+     * @return the maximum number of concurrent calls
+     */
+    int getLimit();
+
+    /**
+     * Update the limit with a completed call
+     *
+     * @param rttNanos the round-trip time of the call in nanoseconds
+     * @param inFlight the number of calls in flight when the call completed, including it
+     * @param dropped true if the call timed out, signalling an overloaded downstream
+     */
+    void onSample(long rttNanos, int inFlight, boolean dropped);
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.service;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * A {@link Bulkhead} limiting concurrent calls with permits, running them on the threads they would otherwise use.
+ * <p/>
+ * Calls without a permit wait in a queue of bounded length and are rejected at once when the queue is full, so a
+ * queue length of zero gives fast rejection. Calls waiting synchronously give up after the maximum wait; tasks
+ * queued for an executor wait until a permit is released.
+ */
+public class SemaphoreBulkhead extends AbstractBulkhead {
+
+    private static final CompletableFuture<Void> GRANTED = CompletableFuture.completedFuture(null);
+
+    private final int maxConcurrentCalls;
+
+    private final int maxQueued;
+
+    private final long maxWaitNanos;
+
+    private final Object lock = new Object();
+
+    private final ArrayDeque<CompletableFuture<Void>> waiters;
+
+    private int active;
+
+    public SemaphoreBulkhead(String name, int maxConcurrentCalls) {
+        this(name, maxConcurrentCalls, 0, Duration.ZERO);
+    }
+
+    public SemaphoreBulkhead(String name, int maxConcurrentCalls, int maxQueued, Duration maxWait) {
+        super(name);
+        if (maxConcurrentCalls < 1) {
+            throw new IllegalArgumentException("Maximum concurrent calls must be positive: " + maxConcurrentCalls);
+        }
+        if (maxQueued < 0) {
+            throw new IllegalArgumentException("Maximum queued calls must not be negative: " + maxQueued);
+        }
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.maxQueued = maxQueued;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.waiters = new ArrayDeque<>();
+    }
+
+    @Override
+    public <T> T call(Supplier<T> supplier) {
+        CompletableFuture<Void> permit = acquire();
+        if (!permit.isDone()) {
+            try {
+                permit.get(maxWaitNanos, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                // The permit may have been granted after the wait timed out
+                if (dequeue(permit)) {
+                    throw reject();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (dequeue(permit)) {
+                    throw reject();
+                }
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        try {
+            return supplier.get();
+        } finally {
+            release();
+        }
+    }
+
+    @Override
+    public Executor getExecutor(Executor executor) {
+        return task -> {
+            CompletableFuture<Void> permit = acquire();
+            Runnable boundedTask = () -> {
+                try {
+                    task.run();
+                } finally {
+                    release();
+                }
+            };
+            if (permit.isDone()) {
+                try {
+                    executor.execute(boundedTask);
+                } catch (RejectedExecutionException e) {
+                    release();
+                    throw e;
+                }
+            } else {
+                permit.thenRun(() -> {
+                    try {
+                        executor.execute(boundedTask);
+                    } catch (RejectedExecutionException e) {
+                        // The task was accepted when it was queued, so run it rather than lose it
+                        boundedTask.run();
+                    }
+                });
+            }
+        };
+    }
+
+    @Override
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+    @Override
+    public int getActiveCount() {
+        synchronized (lock) {
+            return active;
+        }
+    }
+
+    @Override
+    public int getQueuedCount() {
+        synchronized (lock) {
+            return waiters.size();
+        }
+    }
+
+    private CompletableFuture<Void> acquire() {
+        synchronized (lock) {
+            if (active < maxConcurrentCalls) {
+                active++;
+                return GRANTED;
+            }
+            if (waiters.size() < maxQueued) {
+                CompletableFuture<Void> permit = new CompletableFuture<>();
+                waiters.add(permit);
+                return permit;
+            }
+        }
+        throw reject();
+    }
+
+    private void release() {
+        CompletableFuture<Void> next;
+        synchronized (lock) {
+            next = waiters.poll();
+            if (next == null) {
+                active--;
+            }
+        }
+        // The permit passes to the next waiter
+        if (next != null) {
+            next.complete(null);
+        }
+    }
+
+    private boolean dequeue(CompletableFuture<Void> permit) {
+        synchronized (lock) {
+            return waiters.remove(permit);
+        }
+    }
+}
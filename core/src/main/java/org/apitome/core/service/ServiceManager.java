@@ -17,11 +17,21 @@
 package org.apitome.core.service;
 
 import org.apitome.core.action.Action;
+import org.apitome.core.action.ActionTask;
+import org.apitome.core.error.CallRejectedException;
+import org.apitome.core.error.DeadlineExceededException;
 import org.apitome.core.logging.LogFields;
 import org.apitome.core.logging.LoggerAware;
+import org.apitome.core.metrics.ActionMetrics;
+import org.apitome.core.model.Context;
+import org.apitome.core.model.Deadline;
+import org.apitome.core.model.TypeKey;
+import reactor.core.publisher.Mono;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.function.BiFunction;
 
 import static org.apitome.core.logging.OpLogEvent.SERVICE_EXCEPTION;
@@ -43,6 +53,18 @@ public interface ServiceManager extends LoggerAware {
 
     <S extends Service> S getService(ServiceKey<S> serviceKey);
 
+    /**
+     * Invoke a service, within the limits of its {@link Bulkhead} and its {@link ConcurrencyLimiter} if it has them
+     * <p/>
+     * Calls rejected before they start throw a {@link CallRejectedException} and are not logged. When the service has
+     * a {@link CircuitBreaker} whose circuit is open, the call is rejected before anything else is done.
+     *
+     * @param serviceKey the service key that identifies the service to be invoked
+     * @param command the command to be executed by the service
+     * @return the value returned by the command
+     * @param <S> the type of the service
+     * @param <R> the type of the command's returned value
+     */
     default <S extends Service, R> R invokeService(ServiceKey<S> serviceKey, Command<S, R> command) {
         long start = System.currentTimeMillis();
         String serviceName = serviceKey.getName();
@@ -50,9 +72,35 @@ public interface ServiceManager extends LoggerAware {
         if (service == null) {
             throw new IllegalArgumentException("Service '" + serviceName + "' is not hosted in this ServiceManager");
         }
+        CircuitBreaker circuitBreaker = getCircuitBreaker(serviceKey);
+        long permit = circuitBreaker != null ? circuitBreaker.acquirePermission() : 0;
+        Bulkhead bulkhead = getBulkhead(serviceKey);
+        ConcurrencyLimiter limiter = getLimiter(serviceKey);
+        Command<S, R> limitedCommand = limiter != null ? s -> limiter.call(() -> command.run(s)) : command;
+        long startNanos = System.nanoTime();
         try {
-            return command.run(service);
+            R result = bulkhead != null
+                    ? bulkhead.call(() -> limitedCommand.run(service))
+                    : limitedCommand.run(service);
+            if (circuitBreaker != null) {
+                circuitBreaker.onSuccess(permit, System.nanoTime() - startNanos);
+            }
+            return result;
+        } catch (CallRejectedException e) {
+            if (circuitBreaker != null) {
+                circuitBreaker.releasePermission(permit);
+            }
+            throw e;
+        } catch (Error e) {
+            // Report the call anyway, or a half open circuit would never get its probe permit back
+            if (circuitBreaker != null) {
+                circuitBreaker.onError(permit, System.nanoTime() - startNanos, e);
+            }
+            throw e;
         } catch (Exception e) {
+            if (circuitBreaker != null) {
+                circuitBreaker.onError(permit, System.nanoTime() - startNanos, e);
+            }
             long elapsedTime = System.currentTimeMillis() - start;
             LogFields logFields = LogFields.builder(SERVICE_EXCEPTION)
                     .addKeyValue(SERVICE_CLASS, service.getClass().getSimpleName())
@@ -63,6 +111,110 @@ public interface ServiceManager extends LoggerAware {
         }
     }
 
+    /**
+     * Invoke a service, unless the deadline of the context has passed
+     * <p/>
+     * Commands can bound their own calls with {@link Deadline#timeout(java.time.Duration)}.
+     *
+     * @param serviceKey the service key that identifies the service to be invoked
+     * @param context the context of the request
+     * @param command the command to be executed by the service
+     * @return the value returned by the command
+     * @param <S> the type of the service
+     * @param <R> the type of the command's returned value
+     * @throws DeadlineExceededException if the deadline has passed
+     */
+    default <S extends Service, R> R invokeService(ServiceKey<S> serviceKey, Context context, Command<S, R> command) {
+        Deadline deadline = Deadline.of(context);
+        if (deadline != null && deadline.isExpired()) {
+            throw new DeadlineExceededException("Deadline passed before calling '" + serviceKey.getName() + "'");
+        }
+        return invokeService(serviceKey, command);
+    }
+
+    /**
+     * Invoke a service whose command returns a Mono, without blocking
+     * <p/>
+     * Errors are logged as in {@link #invokeService(ServiceKey, Command)}, with the elapsed time measured from
+     * subscription, and then propagated. The {@link CircuitBreaker} of the service applies as it does to blocking
+     * calls: an open circuit fails the Mono with a {@link CallRejectedException}, and a subscription cancelled
+     * before the Mono completes gives its permit back. The {@link Bulkhead} and {@link ConcurrencyLimiter} of the
+     * service do not apply, since they bound blocked threads and a reactive call holds none.
+     *
+     * @param serviceKey the service key that identifies the service to be invoked
+     * @param command the command to be executed by the service
+     * @return the Mono returned by the command
+     * @param <S> the type of the service
+     * @param <R> the type of the command's emitted value
+     */
+    default <S extends Service, R> Mono<R> invokeServiceReactive(ServiceKey<S> serviceKey, Command<S, Mono<R>> command) {
+        return Mono.defer(() -> {
+            long start = System.currentTimeMillis();
+            String serviceName = serviceKey.getName();
+            S service = getService(serviceKey);
+            if (service == null) {
+                return Mono.error(new IllegalArgumentException("Service '" + serviceName
+                        + "' is not hosted in this ServiceManager"));
+            }
+            CircuitBreaker circuitBreaker = getCircuitBreaker(serviceKey);
+            long permit;
+            try {
+                permit = circuitBreaker != null ? circuitBreaker.acquirePermission() : 0;
+            } catch (CallRejectedException e) {
+                return Mono.error(e);
+            }
+            long startNanos = System.nanoTime();
+            Mono<R> invocation = Mono.defer(() -> command.run(service))
+                    .doOnError(e -> {
+                        long elapsedTime = System.currentTimeMillis() - start;
+                        LogFields logFields = LogFields.builder(SERVICE_EXCEPTION)
+                                .addKeyValue(SERVICE_CLASS, service.getClass().getSimpleName())
+                                .addKeyValue(ELAPSED_TIME, elapsedTime)
+                                .build();
+                        logError(logFields, e instanceof Exception ? (Exception) e : new RuntimeException(e));
+                    });
+            if (circuitBreaker == null) {
+                return invocation;
+            }
+            return invocation
+                    .doOnSuccess(r -> circuitBreaker.onSuccess(permit, System.nanoTime() - startNanos))
+                    .doOnError(e -> {
+                        if (e instanceof CallRejectedException) {
+                            circuitBreaker.releasePermission(permit);
+                        } else {
+                            circuitBreaker.onError(permit, System.nanoTime() - startNanos, e);
+                        }
+                    })
+                    .doOnCancel(() -> circuitBreaker.releasePermission(permit));
+        });
+    }
+
+    /**
+     * Invoke a service whose command returns a Mono, timing it out at the deadline of the context
+     * <p/>
+     * The timeout is an error of the call, recorded by the {@link CircuitBreaker} of the service.
+     *
+     * @param serviceKey the service key that identifies the service to be invoked
+     * @param context the context of the request
+     * @param command the command to be executed by the service
+     * @return the Mono returned by the command
+     * @param <S> the type of the service
+     * @param <R> the type of the command's emitted value
+     */
+    default <S extends Service, R> Mono<R> invokeServiceReactive(ServiceKey<S> serviceKey, Context context,
+                                                                 Command<S, Mono<R>> command) {
+        return Mono.defer(() -> {
+            Deadline deadline = Deadline.of(context);
+            if (deadline == null) {
+                return invokeServiceReactive(serviceKey, command);
+            } else if (deadline.isExpired()) {
+                return Mono.error(new DeadlineExceededException("Deadline passed before calling '"
+                        + serviceKey.getName() + "'"));
+            }
+            return invokeServiceReactive(serviceKey, s -> command.run(s).timeout(deadline.remaining()));
+        });
+    }
+
     /**
      * Return the {@link java.util.concurrent.Executor} associated with this ServiceManager
      * <p/>
@@ -70,9 +222,49 @@ public interface ServiceManager extends LoggerAware {
      */
     Executor getExecutor();
 
+    /**
+     * Return the {@link Bulkhead} bounding the calls to a service or the asynchronous execution of an action
+     *
+     * @param key a {@link ServiceKey} or an {@link org.apitome.core.action.ActionKey}
+     * @return the bulkhead, or null if the calls are not bounded
+     */
+    default Bulkhead getBulkhead(TypeKey<?> key) {
+        return null;
+    }
+
+    /**
+     * Return the {@link ConcurrencyLimiter} adapting the number of concurrent calls to a service
+     *
+     * @param serviceKey the service key
+     * @return the limiter, or null if the calls are not limited
+     */
+    default ConcurrencyLimiter getLimiter(ServiceKey<?> serviceKey) {
+        return null;
+    }
+
+    /**
+     * Return the {@link CircuitBreaker} failing the calls to a service fast while it is failing
+     *
+     * @param serviceKey the service key
+     * @return the circuit breaker, or null if the calls are not broken
+     */
+    default CircuitBreaker getCircuitBreaker(ServiceKey<?> serviceKey) {
+        return null;
+    }
+
+    /**
+     * Return the metrics actions and services report to
+     *
+     * @return the metrics
+     */
+    default ActionMetrics getMetrics() {
+        return ActionMetrics.NOOP;
+    }
+
     /**
      * Invoke an action asynchronously
      * <p/>
+     * The returned future can be cancelled or timed out, which interrupts the action if it is still running.
      *
      * @param action
      * @param request
@@ -83,6 +275,46 @@ public interface ServiceManager extends LoggerAware {
      */
     default <Result, Request> CompletableFuture<Result> invokeAction(Action<Request,Result> action, Request request,
                                                                      BiFunction<Action<Request, Result>, Request,Result> asyncFunction) {
-        return CompletableFuture.supplyAsync(() -> asyncFunction.apply(action, request), getExecutor());
+        return invokeAction(getExecutor(), action, request, asyncFunction);
+    }
+
+    /**
+     * Invoke an action asynchronously on an executor
+     * <p/>
+     * The returned future can be cancelled or timed out, which abandons the action as described in {@link ActionTask}
+     * and interrupts it if it is still running. A task rejected by the executor fails the future.
+     *
+     * @param executor the executor to run the action on
+     * @param action the action
+     * @param request a request
+     * @param asyncFunction the function performing the action
+     * @return a CompletableFuture for the action's result
+     * @param <Result> the result type of the action
+     * @param <Request> the request type of the action
+     */
+    default <Result, Request> CompletableFuture<Result> invokeAction(Executor executor, Action<Request,Result> action,
+                                                                     Request request,
+                                                                     BiFunction<Action<Request, Result>, Request,Result> asyncFunction) {
+        CompletableFuture<Result> future = new CompletableFuture<>();
+        ActionTask<Result> task = new ActionTask<>(() -> asyncFunction.apply(action, request)) {
+            @Override
+            protected void done() {
+                try {
+                    future.complete(get());
+                } catch (ExecutionException e) {
+                    future.completeExceptionally(e.getCause());
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                }
+            }
+        };
+        // Completing the future first, by cancellation or timeout, abandons the action and interrupts it if running
+        future.whenComplete((result, e) -> task.cancel(true));
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException | CallRejectedException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
     }
 }
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.service;
+
+/**
+ * A {@link LimitAlgorithm} modelled on TCP Vegas, which keeps the limit at the knee of the latency curve.
+ * <p/>
+ * The shortest round-trip time seen estimates the latency of an unloaded downstream. From it and each measured
+ * round-trip time, the number of calls queued downstream is estimated as {@code limit * (1 - minRtt / rtt)}. The
+ * limit grows while fewer than {@code alpha} calls are queued, shrinks when more than {@code beta} are, and halves
+ * when a call times out. Both thresholds scale with the logarithm of the limit. The minimum round-trip time is
+ * measured again every {@code probeInterval} samples so that the estimate follows changes in the downstream.
+ */
+public class VegasLimit implements LimitAlgorithm {
+
+    public static final int DEFAULT_ALPHA = 3;
+
+    public static final int DEFAULT_BETA = 6;
+
+    public static final int DEFAULT_PROBE_INTERVAL = 1000;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final int alpha;
+
+    private final int beta;
+
+    private final int probeInterval;
+
+    private volatile double limit;
+
+    private long minRttNanos;
+
+    private int sampleCount;
+
+    public VegasLimit(int initialLimit, int minLimit, int maxLimit) {
+        this(initialLimit, minLimit, maxLimit, DEFAULT_ALPHA, DEFAULT_BETA, DEFAULT_PROBE_INTERVAL);
+    }
+
+    public VegasLimit(int initialLimit, int minLimit, int maxLimit, int alpha, int beta, int probeInterval) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min <= initial <= max: " + minLimit + ", "
+                    + initialLimit + ", " + maxLimit);
+        }
+        if (alpha < 1 || beta <= alpha) {
+            throw new IllegalArgumentException("Thresholds must satisfy 1 <= alpha < beta: " + alpha + ", " + beta);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.alpha = alpha;
+        this.beta = beta;
+        this.probeInterval = probeInterval;
+        this.limit = initialLimit;
+        this.minRttNanos = Long.MAX_VALUE;
+    }
+
+    @Override
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    @Override
+    public synchronized void onSample(long rttNanos, int inFlight, boolean dropped) {
+        if (++sampleCount >= probeInterval) {
+            sampleCount = 0;
+            minRttNanos = Long.MAX_VALUE;
+        }
+        if (dropped) {
+            limit = Math.max(minLimit, limit / 2);
+            return;
+        }
+        rttNanos = Math.max(rttNanos, 1);
+        if (rttNanos < minRttNanos) {
+            minRttNanos = rttNanos;
+        }
+        double currentLimit = limit;
+        double queued = Math.ceil(currentLimit * (1 - (double) minRttNanos / rttNanos));
+        double log = Math.max(1, Math.log10(currentLimit));
+        if (queued <= alpha * log) {
+            // Only grow a limit that is actually being used
+            if (inFlight * 2 >= currentLimit) {
+                limit = Math.min(maxLimit, currentLimit + log);
+            }
+        } else if (queued > beta * log) {
+            limit = Math.max(minLimit, currentLimit - log);
+        }
+    }
+}
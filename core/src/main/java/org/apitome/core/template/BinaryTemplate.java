@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.template;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.apitome.core.error.ConfigurationException;
+import org.apitome.core.expression.Resolver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * BinaryTemplate represents a document in a binary encoding, such as Smile or CBOR. A binary document
+ * cannot be resolved as text; its expressions are kept in string values and resolved once the document
+ * has been decoded into a tree. The encoding is CBOR if the template name has the {@code cbor} extension
+ * and Smile otherwise.
+ */
+public class BinaryTemplate extends Template {
+
+    private static final String CBOR_EXT = ".cbor";
+
+    private static final ObjectMapper SMILE_MAPPER = new ObjectMapper(new SmileFactory());
+
+    private static final ObjectMapper CBOR_MAPPER = new ObjectMapper(new CBORFactory());
+
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+
+    private final byte[] content;
+
+    public BinaryTemplate(String name, byte[] content) {
+        super(name);
+        this.content = content;
+    }
+
+    public byte[] getContent() {
+        return content;
+    }
+
+    @Override
+    public void resolveImmediate(Resolver resolver) {
+        // Expressions are resolved after decoding
+    }
+
+    /**
+     * Decode the document and resolve the expressions held in its string values
+     *
+     * @param resolver the resolver to resolve expressions
+     * @return the resolved document as JSON
+     */
+    @Override
+    public String resolve(Resolver resolver) {
+        boolean cbor = getName() != null && getName().toLowerCase().endsWith(CBOR_EXT);
+        try {
+            JsonNode tree = (cbor ? CBOR_MAPPER : SMILE_MAPPER).readTree(content);
+            return JSON_MAPPER.writeValueAsString(resolveValues(getName(), tree, resolver, null));
+        } catch (IOException e) {
+            throw new ConfigurationException(e);
+        }
+    }
+
+    @Override
+    public int getLength() {
+        return content.length;
+    }
+
+    /**
+     * Resolve the expressions held in the string values of a decoded document, in place. When a digest
+     * is given, each resolved value is added to it in document order, followed by a zero byte, so that
+     * a hash of the document covers what its expressions resolved to.
+     *
+     * @param templateName the name of the template the document was decoded from
+     * @param node a tree node of the document
+     * @param resolver the resolver to resolve expressions
+     * @param digest the digest to add the resolved values to, or null
+     * @return the node with its expressions resolved
+     */
+    public static JsonNode resolveValues(String templateName, JsonNode node, Resolver resolver,
+                                         MessageDigest digest) {
+        if (node.isObject()) {
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                ((ObjectNode) node).set(field.getKey(), resolveValues(templateName, field.getValue(), resolver, digest));
+            }
+        } else if (node.isArray()) {
+            ArrayNode arrayNode = (ArrayNode) node;
+            for (int i = 0; i < arrayNode.size(); i++) {
+                arrayNode.set(i, resolveValues(templateName, arrayNode.get(i), resolver, digest));
+            }
+        } else if (node.isTextual()) {
+            String value = node.textValue();
+            if (value.contains("${") || value.contains("#{")) {
+                String resolvedValue = Template.from(templateName, new StringReader(value)).resolve(resolver);
+                if (digest != null) {
+                    digest.update(resolvedValue.getBytes(StandardCharsets.UTF_8));
+                    digest.update((byte) 0);
+                }
+                return TextNode.valueOf(resolvedValue);
+            }
+        }
+        return node;
+    }
+
+    public static BinaryTemplate from(String name, InputStream inputStream) {
+        try (InputStream stream = inputStream) {
+            return new BinaryTemplate(name, stream.readAllBytes());
+        } catch (IOException e) {
+            throw new ConfigurationException(e);
+        }
+    }
+}
@@ -60,6 +60,16 @@ public abstract class CompositeExpression implements Expression {
         return resolver.processExpression(expression);
     }
 
+    @Override
+    public int getLength() {
+        int length = 0;
+        for (Expression expression : getExpressions()) {
+            // Expressions of unknown length do not count
+            length += Math.max(0, expression.getLength());
+        }
+        return length;
+    }
+
     protected void addExpression(Expression expression) {
         this.expressions.add(expression);
     }
@@ -37,4 +37,13 @@ public interface Expression {
      * @return the resulting value
      */
     String resolve(Resolver resolver);
+
+    /**
+     * Return the number of characters in this expression, including embedded expressions.
+     *
+     * @return the expression length, or -1 if it is not known
+     */
+    default int getLength() {
+        return -1;
+    }
 }
@@ -35,4 +35,9 @@ public class ImmutableExpression implements Expression {
     public String resolve(Resolver resolver) {
         return value;
     }
+
+    @Override
+    public int getLength() {
+        return value.length();
+    }
 }
\ No newline at end of file
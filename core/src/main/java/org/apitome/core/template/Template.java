@@ -23,6 +23,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.PushbackReader;
+import java.io.Reader;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Predicate;
@@ -56,14 +57,23 @@ public class Template extends CompositeExpression {
         return builder.toString();
     }
 
-    public static Template from(String name, InputStream inputStream) {
+    /**
+     * Create a template whose content is taken literally, without recognizing expressions, such as the
+     * resolved content of another template
+     *
+     * @param name the template name
+     * @param content the content
+     * @return a template resolving to the content
+     */
+    public static Template of(String name, String content) {
         Template template = new Template(name);
-        try (InputStreamReader streamReader = new InputStreamReader(inputStream);
-             PushbackReader pbReader = new PushbackReader(streamReader, 2)) {
-            processExpression(template, pbReader, false);
-            return template;
-        } catch (IOException e) {
-            throw new ConfigurationException(e);
+        template.addExpression(new ImmutableExpression(content));
+        return template;
+    }
+
+    public static Template from(String name, InputStream inputStream) {
+        try {
+            return from(name, new InputStreamReader(inputStream));
         } finally {
             try {
                 inputStream.close();
@@ -72,6 +82,16 @@ public class Template extends CompositeExpression {
         }
     }
 
+    public static Template from(String name, Reader reader) {
+        Template template = new Template(name);
+        try (PushbackReader pbReader = new PushbackReader(reader, 2)) {
+            processExpression(template, pbReader, false);
+            return template;
+        } catch (IOException e) {
+            throw new ConfigurationException(e);
+        }
+    }
+
     private static boolean processExpression(CompositeExpression expression, PushbackReader pbReader, boolean inExpression) {
         Predicate<String> predicate;
         if (inExpression) {
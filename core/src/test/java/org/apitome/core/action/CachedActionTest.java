@@ -0,0 +1,218 @@
+package org.apitome.core.action;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apitome.core.error.ServiceException;
+import org.apitome.core.metrics.MicrometerActionMetrics;
+import org.apitome.core.model.Context;
+import org.apitome.core.model.Deadline;
+import org.apitome.core.model.OpContext;
+import org.apitome.core.model.TestRequest;
+import org.apitome.core.service.DefaultServiceManager;
+import org.apitome.core.service.ServiceManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CachedActionTest {
+
+    private static final ActionKey<String> LOOKUP = new ActionKey<>("lookup", String.class);
+
+    private final AtomicLong time = new AtomicLong();
+
+    private ServiceManager serviceManager;
+
+    private Context context;
+
+    private LookupAction lookupAction;
+
+    private CachedAction<TestRequest, String> cachedAction;
+
+    @BeforeEach
+    public void setup() {
+        this.serviceManager = new DefaultServiceManager();
+        this.context = new OpContext();
+        this.lookupAction = new LookupAction();
+        this.cachedAction = new CachedAction<>(LOOKUP, lookupAction, (request, context) -> request.getIntValue(),
+                Duration.ofSeconds(10), Duration.ofSeconds(8), Duration.ofSeconds(30), 100, time::get);
+        cachedAction.setServiceManager(serviceManager);
+    }
+
+    @Test
+    public void testResultsAreCachedByKey() {
+        assertEquals("value-1", cachedAction.perform(request(1, "a"), context));
+        assertEquals("value-1", cachedAction.perform(request(1, "b"), context));
+        assertEquals("value-2", cachedAction.perform(request(2, "a"), context));
+        assertEquals(2, lookupAction.invocations.get());
+        assertEquals(1, cachedAction.getHitCount());
+        assertEquals(2, cachedAction.getMissCount());
+    }
+
+    @Test
+    public void testExpiredResultsAreReloaded() {
+        cachedAction.perform(request(1, null), context);
+        advance(Duration.ofSeconds(11));
+        assertEquals("value-1", cachedAction.perform(request(1, null), context));
+        assertEquals(2, lookupAction.invocations.get());
+    }
+
+    @Test
+    public void testRefreshAhead() throws InterruptedException {
+        cachedAction.perform(request(1, null), context);
+        advance(Duration.ofSeconds(9));
+        lookupAction.suffix = "-refreshed";
+        // The hit returns the current result and reloads it in the background
+        assertEquals("value-1", cachedAction.perform(request(1, null), context));
+        for (int i = 0; i < 100 && lookupAction.invocations.get() < 2; i++) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(50);
+        assertEquals("value-1-refreshed", cachedAction.perform(request(1, null), context));
+        assertEquals(2, lookupAction.invocations.get());
+    }
+
+    @Test
+    public void testRefreshIsSubmittedOnce() {
+        List<Runnable> tasks = new ArrayList<>();
+        cachedAction.setServiceManager(new DefaultServiceManager((Executor) tasks::add));
+        cachedAction.perform(request(1, null), context);
+        advance(Duration.ofSeconds(9));
+        lookupAction.suffix = "-refreshed";
+        for (int i = 0; i < 3; i++) {
+            assertEquals("value-1", cachedAction.perform(request(1, null), context));
+        }
+        assertEquals(1, tasks.size());
+        tasks.get(0).run();
+        assertEquals("value-1-refreshed", cachedAction.perform(request(1, null), context));
+    }
+
+    @Test
+    public void testRejectedRefreshServesCachedResult() {
+        AtomicInteger rejections = new AtomicInteger();
+        cachedAction.setServiceManager(new DefaultServiceManager((Executor) task -> {
+            rejections.incrementAndGet();
+            throw new RejectedExecutionException("Executor is full");
+        }));
+        cachedAction.perform(request(1, null), context);
+        advance(Duration.ofSeconds(9));
+        assertEquals("value-1", cachedAction.perform(request(1, null), context));
+        assertEquals("value-1", cachedAction.perform(request(1, null), context));
+        assertEquals(2, rejections.get());
+        assertEquals(1, lookupAction.invocations.get());
+    }
+
+    @Test
+    public void testRefreshIgnoresRequestDeadline() {
+        List<Runnable> tasks = new ArrayList<>();
+        cachedAction.setServiceManager(new DefaultServiceManager((Executor) tasks::add));
+        cachedAction.perform(request(1, null), context);
+        advance(Duration.ofSeconds(9));
+        lookupAction.suffix = "-refreshed";
+        context.setDeadline(Deadline.after(Duration.ofMillis(-1)));
+        assertEquals("value-1", cachedAction.perform(request(1, null), context));
+        tasks.get(0).run();
+        assertEquals(2, lookupAction.invocations.get());
+        assertEquals("value-1-refreshed", cachedAction.perform(request(1, null), context));
+    }
+
+    @Test
+    public void testStaleResultServedOnError() {
+        cachedAction.perform(request(1, null), context);
+        advance(Duration.ofSeconds(20));
+        lookupAction.failure = new IllegalStateException("downstream unavailable");
+        assertEquals("value-1", cachedAction.perform(request(1, null), context));
+        assertEquals(1, cachedAction.getStaleCount());
+        advance(Duration.ofSeconds(30));
+        AtomicBoolean handlerInvoked = new AtomicBoolean(false);
+        ServiceException e = assertThrows(ServiceException.class, () -> cachedAction.perform(request(1, null), context,
+                cachedAction.getTimeoutHandler(), (a, ex) -> {handlerInvoked.set(true); throw a.handleException(ex);}));
+        assertTrue(handlerInvoked.get());
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
+
+    @Test
+    public void testConcurrentLoadsAreSingleFlight() {
+        lookupAction.latch = new CountDownLatch(1);
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(cachedAction.performAsync(request(1, null), context));
+        }
+        lookupAction.latch.countDown();
+        futures.forEach(future -> assertEquals("value-1", future.join()));
+        assertEquals(1, lookupAction.invocations.get());
+    }
+
+    @Test
+    public void testReactiveHitAndMetrics() {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        cachedAction.setMetrics(new MicrometerActionMetrics(meterRegistry));
+        StepVerifier.create(cachedAction.performReactive(request(1, null), context))
+                .expectNext("value-1")
+                .verifyComplete();
+        StepVerifier.create(cachedAction.performReactive(request(1, null), context))
+                .expectNext("value-1")
+                .verifyComplete();
+        assertEquals(1.0, meterRegistry.get("apitome.action.cache").tag("action", "lookup")
+                .tag("result", "hit").counter().count());
+        assertEquals(1.0, meterRegistry.get("apitome.action.cache").tag("action", "lookup")
+                .tag("result", "miss").counter().count());
+        assertEquals(1.0, meterRegistry.get("apitome.action.cache.size").gauge().value());
+    }
+
+    private void advance(Duration duration) {
+        time.addAndGet(duration.toNanos());
+    }
+
+    private static TestRequest request(int intValue, String strValue) {
+        TestRequest request = new TestRequest();
+        request.setIntValue(intValue);
+        request.setStrValue(strValue);
+        return request;
+    }
+
+    private static class LookupAction extends AbstractAction<TestRequest, String> {
+
+        private final AtomicInteger invocations = new AtomicInteger();
+
+        private volatile String suffix = "";
+
+        private volatile RuntimeException failure;
+
+        private volatile CountDownLatch latch;
+
+        @Override
+        public String invoke(TestRequest testRequest, Context context) {
+            invocations.incrementAndGet();
+            if (latch != null) {
+                try {
+                    latch.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return "value-" + testRequest.getIntValue() + suffix;
+        }
+
+        @Override
+        public ServiceException handleException(Exception e) {
+            return new ServiceException(e);
+        }
+    }
+}
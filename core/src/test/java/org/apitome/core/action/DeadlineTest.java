@@ -0,0 +1,167 @@
+package org.apitome.core.action;
+
+import org.apitome.core.error.DeadlineExceededException;
+import org.apitome.core.error.ServiceException;
+import org.apitome.core.model.Context;
+import org.apitome.core.model.Deadline;
+import org.apitome.core.model.OpContext;
+import org.apitome.core.model.TestRequest;
+import org.apitome.core.service.DefaultServiceManager;
+import org.apitome.core.service.ServiceManager;
+import org.apitome.core.service.TestIntegerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.apitome.core.service.TestIntegerService.INTEGER_SERVICE;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeadlineTest {
+
+    private ServiceManager serviceManager;
+
+    private Context context;
+
+    private TestRequest request;
+
+    private SleepingAction action;
+
+    @BeforeEach
+    public void setup() {
+        this.serviceManager = new DefaultServiceManager();
+        serviceManager.addService(INTEGER_SERVICE, new TestIntegerService());
+        this.context = new OpContext();
+        this.request = new TestRequest();
+        this.action = new SleepingAction();
+        action.setServiceManager(serviceManager);
+    }
+
+    @Test
+    public void testActionIsNotStartedAfterDeadline() {
+        context.setDeadline(Deadline.after(Duration.ZERO));
+        AtomicBoolean timeoutHandlerInvoked = new AtomicBoolean(false);
+        ServiceException e = assertThrows(ServiceException.class, () -> action.perform(request, context,
+                (a, ex) -> {timeoutHandlerInvoked.set(true); throw a.handleException(ex);}));
+        assertTrue(timeoutHandlerInvoked.get());
+        assertInstanceOf(DeadlineExceededException.class, e.getCause());
+        assertEquals(0, action.invocations.get());
+    }
+
+    @Test
+    public void testAsyncActionIsCancelledAtDeadline() throws InterruptedException {
+        action.sleepMillis = 5000;
+        context.setDeadline(Deadline.after(Duration.ofMillis(100)));
+        long start = System.nanoTime();
+        CompletionException e = assertThrows(CompletionException.class,
+                () -> action.performAsync(request, context).join());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2), "Action was not timed out");
+        assertInstanceOf(ServiceException.class, e.getCause());
+        assertInstanceOf(TimeoutException.class, e.getCause().getCause());
+        assertTrue(action.interrupted.await(2, TimeUnit.SECONDS), "Action was not cancelled");
+    }
+
+    @Test
+    public void testTimedOutActionIsHandledOnce() throws InterruptedException {
+        action.sleepMillis = 5000;
+        context.setDeadline(Deadline.after(Duration.ofMillis(100)));
+        AtomicInteger timeouts = new AtomicInteger();
+        AtomicInteger exceptions = new AtomicInteger();
+        CompletableFuture<Integer> future = action.performAsync(request, context,
+                (a, ex) -> {timeouts.incrementAndGet(); throw a.handleException(ex);},
+                (a, ex) -> {exceptions.incrementAndGet(); throw a.handleException(ex);});
+        assertThrows(CompletionException.class, future::join);
+        assertTrue(action.interrupted.await(2, TimeUnit.SECONDS), "Action was not cancelled");
+        // the interrupted action must not report its failure once more
+        Thread.sleep(100);
+        assertEquals(1, timeouts.get());
+        assertEquals(0, exceptions.get());
+    }
+
+    @Test
+    public void testHedgedActionIsCancelledAtDeadline() throws InterruptedException {
+        action.sleepMillis = 5000;
+        context.setDeadline(Deadline.after(Duration.ofMillis(100)));
+        HedgePolicy hedgePolicy = HedgePolicy.fixed(Duration.ofSeconds(5), new HedgeBudget(1, 10));
+        CompletionException e = assertThrows(CompletionException.class,
+                () -> action.performAsync(request, context, hedgePolicy).join());
+        assertInstanceOf(ServiceException.class, e.getCause());
+        assertInstanceOf(TimeoutException.class, e.getCause().getCause());
+        assertTrue(action.interrupted.await(2, TimeUnit.SECONDS), "Action was not cancelled");
+    }
+
+    @Test
+    public void testReactiveActionTimesOutAtDeadline() {
+        context.setDeadline(Deadline.after(Duration.ofMillis(100)));
+        Action<TestRequest, Integer> reactiveAction = new SleepingAction() {
+            @Override
+            public Mono<Integer> invokeReactive(TestRequest testRequest, Context context) {
+                return Mono.delay(Duration.ofSeconds(5)).map(Long::intValue);
+            }
+        };
+        StepVerifier.create(reactiveAction.performReactive(request, context))
+                .expectErrorSatisfies(e -> {
+                    assertInstanceOf(ServiceException.class, e);
+                    assertInstanceOf(TimeoutException.class, e.getCause());
+                })
+                .verify(Duration.ofSeconds(2));
+    }
+
+    @Test
+    public void testServiceIsNotCalledAfterDeadline() {
+        Integer sum = serviceManager.invokeService(INTEGER_SERVICE, context, s -> s.sumIntegers(1, 2));
+        assertEquals(3, sum);
+        context.setDeadline(Deadline.after(Duration.ofMillis(-1)));
+        AtomicBoolean called = new AtomicBoolean(false);
+        assertThrows(DeadlineExceededException.class, () -> serviceManager.invokeService(INTEGER_SERVICE, context,
+                s -> {called.set(true); return s.sumIntegers(1, 2);}));
+        assertFalse(called.get());
+    }
+
+    @Test
+    public void testTimeoutFromRemainingBudget() {
+        Deadline deadline = Deadline.after(Duration.ofSeconds(1));
+        assertTrue(deadline.timeout(Duration.ofSeconds(5)).compareTo(Duration.ofSeconds(1)) <= 0);
+        assertEquals(Duration.ofMillis(10), deadline.timeout(Duration.ofMillis(10)));
+        Deadline earlier = Deadline.after(Duration.ofMillis(10));
+        assertSame(earlier, deadline.min(earlier));
+        assertSame(earlier, earlier.min(deadline));
+        context.setDeadline(null);
+        assertNull(context.getDeadline());
+    }
+
+    private static class SleepingAction extends AbstractAction<TestRequest, Integer> {
+
+        private final AtomicInteger invocations = new AtomicInteger();
+
+        private final CountDownLatch interrupted = new CountDownLatch(1);
+
+        private volatile long sleepMillis;
+
+        @Override
+        public Integer invoke(TestRequest testRequest, Context context) {
+            invocations.incrementAndGet();
+            try {
+                Thread.sleep(sleepMillis);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw new IllegalStateException(e);
+            }
+            return invocations.get();
+        }
+
+        @Override
+        public ServiceException handleException(Exception e) {
+            return new ServiceException(e);
+        }
+    }
+}
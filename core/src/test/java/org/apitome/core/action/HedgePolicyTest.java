@@ -0,0 +1,140 @@
+package org.apitome.core.action;
+
+import org.apitome.core.error.ServiceException;
+import org.apitome.core.model.Context;
+import org.apitome.core.model.OpContext;
+import org.apitome.core.model.TestRequest;
+import org.apitome.core.service.DefaultServiceManager;
+import org.apitome.core.service.ServiceManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HedgePolicyTest {
+
+    private ServiceManager serviceManager;
+
+    private Context context;
+
+    private TestRequest request;
+
+    @BeforeEach
+    public void setup() {
+        this.serviceManager = new DefaultServiceManager();
+        this.context = new OpContext();
+        this.request = new TestRequest();
+    }
+
+    @Test
+    public void testSlowAttemptIsHedged() throws InterruptedException {
+        SlowFirstAction action = newAction(5000);
+        HedgePolicy hedgePolicy = HedgePolicy.fixed(Duration.ofMillis(50), new HedgeBudget(1, 10));
+        long start = System.nanoTime();
+        assertEquals(2, action.performAsync(request, context, hedgePolicy).join());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2), "Hedge did not win");
+        assertEquals(1, hedgePolicy.getHedgeCount());
+        assertEquals(1, hedgePolicy.getHedgeWinCount());
+        // The losing attempt is cancelled by interrupting it
+        assertDoesNotThrow(() -> assertTrue(action.interrupted.await(2, TimeUnit.SECONDS)));
+        Thread.sleep(100);
+        // The cancelled attempt is not handled as a failure
+        assertEquals(0, action.handled.get());
+        // The call and the cancelled attempt are both recorded, and both took at least the hedge delay
+        assertEquals(2, hedgePolicy.getHistogram().getCount());
+        assertTrue(hedgePolicy.getHistogram().getPercentileNanos(1) >= TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    public void testFastAttemptIsNotHedged() throws InterruptedException {
+        SlowFirstAction action = newAction(0);
+        HedgePolicy hedgePolicy = HedgePolicy.fixed(Duration.ofMillis(50), new HedgeBudget(1, 10));
+        assertEquals(1, action.performAsync(request, context, hedgePolicy).join());
+        Thread.sleep(100);
+        assertEquals(0, hedgePolicy.getHedgeCount());
+        assertEquals(1, action.invocations.get());
+    }
+
+    @Test
+    public void testHedgesAreBoundedByBudget() {
+        SlowFirstAction action = newAction(300);
+        HedgePolicy hedgePolicy = HedgePolicy.fixed(Duration.ofMillis(20), new HedgeBudget(0, 1));
+        assertEquals(1, action.performAsync(request, context, hedgePolicy).join());
+        assertEquals(0, hedgePolicy.getHedgeCount());
+    }
+
+    @Test
+    public void testFailureIsPropagated() {
+        SlowFirstAction action = newAction(0);
+        action.failure = new IllegalStateException("downstream failed");
+        HedgePolicy hedgePolicy = HedgePolicy.fixed(Duration.ofMillis(50), new HedgeBudget(1, 10));
+        CompletableFuture<Integer> result = action.performAsync(request, context, hedgePolicy);
+        CompletionException e = assertThrows(CompletionException.class, result::join);
+        assertInstanceOf(ServiceException.class, e.getCause());
+    }
+
+    @Test
+    public void testPercentileDelay() {
+        HedgePolicy hedgePolicy = HedgePolicy.percentile(95, Duration.ofMillis(500), 100, HedgeBudget.GLOBAL);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(500), hedgePolicy.getDelayNanos());
+        for (int i = 1; i <= 100; i++) {
+            hedgePolicy.getHistogram().record(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+        long delay = hedgePolicy.getDelayNanos();
+        assertTrue(delay >= TimeUnit.MILLISECONDS.toNanos(95) && delay <= TimeUnit.MILLISECONDS.toNanos(120),
+                "Unexpected p95 " + delay);
+    }
+
+    private SlowFirstAction newAction(long firstDelayMillis) {
+        SlowFirstAction action = new SlowFirstAction(firstDelayMillis);
+        action.setServiceManager(serviceManager);
+        return action;
+    }
+
+    private static class SlowFirstAction extends AbstractAction<TestRequest, Integer> {
+
+        private final long firstDelayMillis;
+
+        private final AtomicInteger invocations = new AtomicInteger();
+
+        private final CountDownLatch interrupted = new CountDownLatch(1);
+
+        private final AtomicInteger handled = new AtomicInteger();
+
+        private volatile RuntimeException failure;
+
+        SlowFirstAction(long firstDelayMillis) {
+            this.firstDelayMillis = firstDelayMillis;
+        }
+
+        @Override
+        public Integer invoke(TestRequest testRequest, Context context) {
+            int invocation = invocations.incrementAndGet();
+            if (failure != null) {
+                throw failure;
+            }
+            if (invocation == 1 && firstDelayMillis > 0) {
+                try {
+                    Thread.sleep(firstDelayMillis);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                    throw new IllegalStateException(e);
+                }
+            }
+            return invocation;
+        }
+
+        @Override
+        public ServiceException handleException(Exception e) {
+            handled.incrementAndGet();
+            return new ServiceException(e);
+        }
+    }
+}
@@ -20,13 +20,26 @@ import org.apitome.core.expression.Resolver;
 import org.apitome.core.expression.SimpleResolver;
 import org.apitome.core.model.TestOperationDescription;
 import org.apitome.core.model._TestOperationDescription;
+import org.apitome.core.template.Template;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 public class CachedRegistryTest {
 
@@ -56,11 +69,119 @@ public class CachedRegistryTest {
         assertNull(result);
     }
 
+    @Test
+    public void testDefaultLoaderExecutorIsShared() {
+        TestCachedRegistry otherRegistry = new TestCachedRegistry(new SimpleResolver(properties));
+        assertSame(CachedRegistry.getDefaultLoaderExecutor(), registry.getLoaderExecutor());
+        assertSame(registry.getLoaderExecutor(), otherRegistry.getLoaderExecutor());
+    }
+
+    @Test
+    public void testConcurrentGetDescriptionLoadsOnce() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        TestCachedRegistry testRegistry = new TestCachedRegistry(new SimpleResolver(properties), start);
+        testRegistry.processResources("test/operation/*.*");
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<TestOperationDescription>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> testRegistry.getDescription("testoperationA")));
+            }
+            // let every caller miss before the single loader completes
+            Thread.sleep(100);
+            start.countDown();
+            TestOperationDescription first = results.get(0).get(5, TimeUnit.SECONDS);
+            assertNotNull(first);
+            for (Future<TestOperationDescription> result : results) {
+                assertSame(first, result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, testRegistry.processCount.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testGetDescriptionAsync() throws Exception {
+        TestCachedRegistry testRegistry = new TestCachedRegistry(new SimpleResolver(properties), new CountDownLatch(0));
+        testRegistry.processResources("test/operation/*.*");
+        CompletableFuture<TestOperationDescription> first = testRegistry.getDescriptionAsync("testoperationB");
+        CompletableFuture<TestOperationDescription> second = testRegistry.getDescriptionAsync("testoperationB");
+        TestOperationDescription result = first.get(5, TimeUnit.SECONDS);
+        assertNotNull(result);
+        assertSame(result, second.get(5, TimeUnit.SECONDS));
+        assertSame(result, testRegistry.getDescription("testoperationB"));
+        assertEquals(1, testRegistry.processCount.get());
+        assertNull(testRegistry.getDescriptionAsync("notfound").get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testStats() {
+        registry.processResources("test/operation/*.*");
+        registry.getDescription("testoperationA");
+        registry.getDescription("testoperationA");
+        RegistryStats stats = registry.getStats();
+        assertEquals(1, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+        assertEquals(1, stats.getLoadSuccessCount());
+        assertEquals(0, stats.getEvictionCount());
+        assertEquals(1, stats.getDescriptionCount());
+    }
+
+    @Test
+    public void testBoundedCacheRebuildsEvictedDescription() {
+        TestCachedRegistry boundedRegistry = new TestCachedRegistry(new SimpleResolver(properties), 1);
+        boundedRegistry.processResources("test/operation/*.*");
+        assertNotNull(boundedRegistry.getDescription("testoperationA"));
+        boundedRegistry.descriptionCache.cleanUp();
+        assertEquals(1, boundedRegistry.getStats().getEvictionCount());
+        assertEquals(0, boundedRegistry.getStats().getDescriptionCount());
+        assertNotNull(boundedRegistry.getDescription("testoperationA"));
+        assertEquals(2, boundedRegistry.getStats().getLoadSuccessCount());
+        assertEquals(2, boundedRegistry.processCount.get());
+    }
+
+    @Test
+    public void testIdenticalContentSharesDescription() {
+        properties.setProperty("intProperty", "3");
+        properties.setProperty("otherProperty", "4");
+        registry.processResources("test/dedup/*");
+        TestOperationDescription resultA = registry.getDescription("tenantA");
+        assertSame(resultA, registry.getDescription("tenantB"));
+        assertNotSame(resultA, registry.getDescription("tenantC"));
+    }
+
     public class TestCachedRegistry extends CachedRegistry<TestOperationDescription, _TestOperationDescription, OperationDescriptionTransformer> {
 
+        private final AtomicInteger processCount = new AtomicInteger();
+
+        private final CountDownLatch start;
 
         public TestCachedRegistry(Resolver resolver) {
+            this(resolver, new CountDownLatch(0));
+        }
+
+        public TestCachedRegistry(Resolver resolver, CountDownLatch start) {
             super(_TestOperationDescription.class, new OperationDescriptionTransformer(), resolver);
+            this.start = start;
+        }
+
+        public TestCachedRegistry(Resolver resolver, long maximumWeight) {
+            super(_TestOperationDescription.class, new OperationDescriptionTransformer(), resolver, Runnable::run,
+                    maximumWeight);
+            this.start = new CountDownLatch(0);
+        }
+
+        @Override
+        protected TestOperationDescription processTemplate(Template template) {
+            processCount.incrementAndGet();
+            try {
+                start.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.processTemplate(template);
         }
     }
 }
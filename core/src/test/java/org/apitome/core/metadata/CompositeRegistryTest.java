@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.metadata;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apitome.core.error.ConfigurationException;
+import org.apitome.core.expression.SimpleResolver;
+import org.apitome.core.model.TestOperationDescription;
+import org.apitome.core.model._TestOperationDescription;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CompositeRegistryTest {
+
+    private static final String SIMPLE_DESCRIPTION = "{ \"type\": \"simple\", \"operationConfig\": { \"intValue\": 1 } }";
+
+    @TempDir
+    Path tempDir;
+
+    private HttpServer server;
+
+    private Map<String, String> served;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        this.served = new HashMap<>();
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/operation/", exchange -> {
+            String path = exchange.getRequestURI().getPath().substring("/operation/".length());
+            String body = path.isEmpty() ? String.join("\n", served.keySet()) : served.get(path);
+            byte[] content = body == null ? new byte[0] : body.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(body == null ? 404 : 200, content.length == 0 ? -1 : content.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(content);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testLaterSourcesTakePrecedence() throws IOException {
+        Files.writeString(tempDir.resolve("testoperationA.json"), SIMPLE_DESCRIPTION);
+        Files.writeString(tempDir.resolve("overlayOperation.json"), SIMPLE_DESCRIPTION);
+        served.put("testoperationC.json", SIMPLE_DESCRIPTION);
+        served.put("remoteOperation.json", SIMPLE_DESCRIPTION);
+        CompositeRegistry<TestOperationDescription, _TestOperationDescription, OperationDescriptionTransformer> registry =
+                createRegistry(Arrays.asList(
+                        new ResourceDescriptionSource("classpath", "test/operation/*.*"),
+                        new ResourceDescriptionSource("overlay", tempDir.toUri() + "*.json"),
+                        new HttpDescriptionSource("server", getServerUri())));
+        registry.processSources();
+
+        assertEquals("overlay", registry.getOrigin("testoperationA"));
+        assertEquals("classpath", registry.getOrigin("testoperationB"));
+        assertEquals("server", registry.getOrigin("testoperationC"));
+        assertEquals("overlay", registry.getOrigin("overlayOperation"));
+        assertEquals("server", registry.getOrigin("remoteOperation"));
+        assertEquals(5, registry.getDescriptionNames().size());
+        for (String descriptionName : registry.getDescriptionNames()) {
+            assertNotNull(registry.getDescription(descriptionName), descriptionName);
+        }
+    }
+
+    @Test
+    public void testReprocessReplacesSnapshot() throws IOException {
+        served.put("remoteOperation.json", SIMPLE_DESCRIPTION);
+        CompositeRegistry<TestOperationDescription, _TestOperationDescription, OperationDescriptionTransformer> registry =
+                createRegistry(Arrays.asList(
+                        new ResourceDescriptionSource("classpath", "test/operation/*.*"),
+                        new HttpDescriptionSource("server", getServerUri())));
+        registry.processSources();
+        TestOperationDescription remote = registry.getDescription("remoteOperation");
+        assertNotNull(remote);
+
+        served.clear();
+        served.put("testoperationA.json", SIMPLE_DESCRIPTION);
+        registry.processSources();
+        assertNull(registry.getDescription("remoteOperation"));
+        assertNull(registry.getOrigin("remoteOperation"));
+        assertEquals("server", registry.getOrigin("testoperationA"));
+    }
+
+    @Test
+    public void testReprocessKeepsUnchangedDescriptions() {
+        served.put("remoteOperation.json", SIMPLE_DESCRIPTION);
+        served.put("changedOperation.json", SIMPLE_DESCRIPTION);
+        CompositeRegistry<TestOperationDescription, _TestOperationDescription, OperationDescriptionTransformer> registry =
+                createRegistry(List.of(new HttpDescriptionSource("server", getServerUri())));
+        registry.processSources();
+        TestOperationDescription remote = registry.getDescription("remoteOperation");
+        TestOperationDescription changed = registry.getDescription("changedOperation");
+
+        served.put("changedOperation.json", SIMPLE_DESCRIPTION.replace("1", "2"));
+        registry.processSources();
+        assertSame(remote, registry.getDescription("remoteOperation"));
+        assertNotSame(changed, registry.getDescription("changedOperation"));
+    }
+
+    @Test
+    public void testFailedSourceFailsProcessing() {
+        served.put("missingOperation.json", null);
+        CompositeRegistry<TestOperationDescription, _TestOperationDescription, OperationDescriptionTransformer> registry =
+                createRegistry(List.of(new HttpDescriptionSource("server", getServerUri())));
+        assertThrows(ConfigurationException.class, registry::processSources);
+    }
+
+    @Test
+    public void testInvalidTemplateNamesFailProcessing() {
+        for (String templateName : List.of("bad name.json", "../escaped.json", "http://example.com/remote.json")) {
+            served.clear();
+            served.put(templateName, SIMPLE_DESCRIPTION);
+            CompositeRegistry<TestOperationDescription, _TestOperationDescription, OperationDescriptionTransformer> registry =
+                    createRegistry(List.of(new HttpDescriptionSource("server", getServerUri())));
+            assertThrows(ConfigurationException.class, registry::processSources, templateName);
+        }
+    }
+
+    private URI getServerUri() {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/operation/");
+    }
+
+    private CompositeRegistry<TestOperationDescription, _TestOperationDescription, OperationDescriptionTransformer> createRegistry(
+            List<DescriptionSource> sources) {
+        return new CompositeRegistry<>(_TestOperationDescription.class, new OperationDescriptionTransformer(),
+                new SimpleResolver(new Properties()), sources);
+    }
+}
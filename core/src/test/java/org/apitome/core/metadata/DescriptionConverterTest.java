@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.metadata;
+
+import org.apitome.core.expression.SimpleResolver;
+import org.apitome.core.metrics.RegistryMetrics;
+import org.apitome.core.metrics.RegistryStage;
+import org.apitome.core.model.SimpleOperationDescription;
+import org.apitome.core.model.TestOperationDescription;
+import org.apitome.core.model._TestOperationDescription;
+import org.apitome.core.template.BinaryTemplate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DescriptionConverterTest {
+
+    private static final String YAML_DESCRIPTION = "type: simple\n"
+            + "operationConfig:\n"
+            + "  intValue: ${intProperty}\n"
+            + "  strValue: \"#{${prefix}Property}\"\n";
+
+    private Properties properties;
+
+    private TestSimpleRegistry registry;
+
+    @BeforeEach
+    public void setup() {
+        this.properties = new Properties();
+        properties.put("intProperty", 42);
+        properties.put("prefix", "str");
+        properties.put("strProperty", "apitome");
+        this.registry = new TestSimpleRegistry();
+    }
+
+    @Test
+    public void testSmile() {
+        byte[] content = DescriptionConverter.convert("testoperationD.yaml", toStream(YAML_DESCRIPTION), DescriptionFormat.SMILE);
+        BinaryTemplate template = new BinaryTemplate("testoperationD.smile", content);
+        assertDescription(registry.getRawDescriptionAsBinary(template, registry.smileMapper));
+        assertNotNull(registry.processTemplate(template));
+    }
+
+    @Test
+    public void testBinaryTemplateIsDecodedOnce() {
+        List<RegistryStage> stages = new ArrayList<>();
+        registry.setMetrics(new RegistryMetrics() {
+            @Override
+            public void recordStage(RegistryStage stage, String templateName, long elapsedNanos) {
+                stages.add(stage);
+            }
+
+            @Override
+            public void recordLookup(String descriptionName, boolean hit) {
+            }
+
+            @Override
+            public void registerGauge(String gaugeName, Supplier<Number> valueSupplier) {
+            }
+        });
+        byte[] content = DescriptionConverter.convert("testoperationD.yaml", toStream(YAML_DESCRIPTION), DescriptionFormat.SMILE);
+        assertNotNull(registry.processTemplate(new BinaryTemplate("testoperationD.smile", content)));
+        assertEquals(1, Collections.frequency(stages, RegistryStage.PARSE));
+        assertEquals(1, Collections.frequency(stages, RegistryStage.RESOLVE));
+        assertEquals(1, Collections.frequency(stages, RegistryStage.BIND));
+    }
+
+    @Test
+    public void testCbor() {
+        String json = "{ \"type\": \"simple\", \"operationConfig\": { \"intValue\": \"${intProperty}\", "
+                + "\"strValue\": \"#{${prefix}Property}\" } }";
+        byte[] content = DescriptionConverter.convert("testoperationD.json", toStream(json), DescriptionFormat.CBOR);
+        BinaryTemplate template = new BinaryTemplate("testoperationD.cbor", content);
+        assertDescription(registry.getRawDescriptionAsBinary(template, registry.cborMapper));
+    }
+
+    @Test
+    public void testBinaryTemplateResolvesAsJson() {
+        byte[] content = DescriptionConverter.convert("testoperationD.yaml", toStream(YAML_DESCRIPTION), DescriptionFormat.CBOR);
+        String json = new BinaryTemplate("testoperationD.cbor", content).resolve(new SimpleResolver(properties));
+        assertTrue(json.contains("\"intValue\":\"42\""), json);
+        assertTrue(json.contains("\"strValue\":\"apitome\""), json);
+    }
+
+    @Test
+    public void testTemplateInputCreatesBinaryTemplate() {
+        byte[] content = DescriptionConverter.convert("testoperationD.yaml", toStream(YAML_DESCRIPTION), DescriptionFormat.SMILE);
+        TemplateInput input = new TemplateInput("testoperationD.smile", new ByteArrayInputStream(content));
+        assertTrue(input.createTemplate() instanceof BinaryTemplate);
+    }
+
+    private void assertDescription(_TestOperationDescription rawDescription) {
+        assertTrue(rawDescription instanceof SimpleOperationDescription);
+        SimpleOperationDescription description = (SimpleOperationDescription) rawDescription;
+        assertEquals(42, description.getOperationConfig().getIntValue());
+        assertEquals("apitome", description.getOperationConfig().getStrValue());
+    }
+
+    private static ByteArrayInputStream toStream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public class TestSimpleRegistry extends SimpleRegistry<TestOperationDescription, _TestOperationDescription, OperationDescriptionTransformer> {
+
+        public TestSimpleRegistry() {
+            super(_TestOperationDescription.class, new OperationDescriptionTransformer(), new SimpleResolver(properties));
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.metadata;
+
+import org.apitome.core.expression.SimpleResolver;
+import org.apitome.core.model.SimpleOperationDescription;
+import org.apitome.core.model.TestOperationDescription;
+import org.apitome.core.model._OperationConfig;
+import org.apitome.core.model._TestOperationDescription;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DescriptionDiskCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Properties properties;
+
+    @BeforeEach
+    public void setup() {
+        this.properties = new Properties();
+        properties.setProperty("intProperty", "3");
+        properties.setProperty("otherProperty", "4");
+    }
+
+    @Test
+    public void testReuseEntriesAcrossRegistries() throws Exception {
+        DescriptionDiskCache diskCache = new DescriptionDiskCache(tempDir, new SimpleResolver(properties));
+        TestDiskCacheRegistry registry = createRegistry(diskCache);
+        registry.processResources("test/operation/*");
+        assertEquals(0, diskCache.getHitCount());
+        assertEquals(3, diskCache.getMissCount());
+        assertEquals(3, countEntries());
+
+        DescriptionDiskCache restartedCache = new DescriptionDiskCache(tempDir, new SimpleResolver(properties));
+        TestDiskCacheRegistry restartedRegistry =
+                createRegistry(restartedCache);
+        restartedRegistry.processResources("test/operation/*");
+        assertEquals(3, restartedCache.getHitCount());
+        assertEquals(0, restartedCache.getMissCount());
+        assertNotNull(restartedRegistry.getDescription("testoperationB"));
+        assertTrue(restartedRegistry.strValues.containsAll(Arrays.asList("xxxxx", "yyyyy")));
+    }
+
+    @Test
+    public void testPropertyChangeMissesEntries() throws Exception {
+        DescriptionDiskCache diskCache = new DescriptionDiskCache(tempDir, new SimpleResolver(properties));
+        createRegistry(diskCache).processResources("test/dedup/*");
+        // identical templates share one entry
+        assertEquals(2, countEntries());
+
+        properties.setProperty("intProperty", "5");
+        DescriptionDiskCache changedCache = new DescriptionDiskCache(tempDir, new SimpleResolver(properties));
+        TestDiskCacheRegistry registry = createRegistry(changedCache);
+        registry.processResources("test/dedup/*");
+        assertEquals(4, countEntries());
+        assertEquals(Arrays.asList(4, 5), registry.intValues.stream().sorted().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testSharedDescriptionSkipsEntry() {
+        createRegistry(new DescriptionDiskCache(tempDir, new SimpleResolver(properties))).processResources("test/dedup/*");
+        DescriptionDiskCache restartedCache = new DescriptionDiskCache(tempDir, new SimpleResolver(properties));
+        TestDiskCacheRegistry registry = createRegistry(restartedCache);
+        registry.setConcurrency(1);
+        registry.processResources("test/dedup/*");
+        // the second identical template shares the description read for the first one
+        assertEquals(2, restartedCache.getHitCount());
+        assertEquals(0, restartedCache.getMissCount());
+        assertEquals(2, registry.intValues.size());
+    }
+
+    @Test
+    public void testCorruptEntryIsReplaced() throws Exception {
+        DescriptionDiskCache diskCache = new DescriptionDiskCache(tempDir, new SimpleResolver(properties));
+        createRegistry(diskCache).processResources("test/operation/*");
+        try (Stream<Path> entries = Files.list(tempDir)) {
+            for (Path entry : (Iterable<Path>) entries::iterator) {
+                Files.write(entry, new byte[] {1, 2, 3});
+            }
+        }
+
+        DescriptionDiskCache corruptCache = new DescriptionDiskCache(tempDir, new SimpleResolver(properties));
+        TestDiskCacheRegistry registry = createRegistry(corruptCache);
+        registry.processResources("test/operation/*");
+        assertNotNull(registry.getDescription("testoperationB"));
+        assertTrue(registry.strValues.contains("xxxxx"));
+        assertEquals(0, corruptCache.getHitCount());
+        assertEquals(3, corruptCache.getMissCount());
+    }
+
+    @Test
+    public void testNonStringPropertyChangeMissesEntries() throws Exception {
+        properties.put("intProperty", 3);
+        createRegistry(new DescriptionDiskCache(tempDir, new SimpleResolver(properties))).processResources("test/dedup/*");
+        properties.put("intProperty", 5);
+        DescriptionDiskCache changedCache = new DescriptionDiskCache(tempDir, new SimpleResolver(properties));
+        TestDiskCacheRegistry registry = createRegistry(changedCache);
+        registry.processResources("test/dedup/*");
+        assertEquals(4, countEntries());
+        assertEquals(Arrays.asList(4, 5), registry.intValues.stream().sorted().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testResolverWithoutFingerprintIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new DescriptionDiskCache(tempDir, expression -> expression));
+    }
+
+    private long countEntries() throws IOException {
+        try (Stream<Path> entries = Files.list(tempDir)) {
+            return entries.count();
+        }
+    }
+
+    private TestDiskCacheRegistry createRegistry(DescriptionDiskCache diskCache) {
+        TestDiskCacheRegistry registry = new TestDiskCacheRegistry();
+        registry.setDiskCache(diskCache);
+        return registry;
+    }
+
+    public class TestDiskCacheRegistry extends SimpleRegistry<TestOperationDescription, _TestOperationDescription, OperationDescriptionTransformer> {
+
+        private final List<Integer> intValues = new CopyOnWriteArrayList<>();
+
+        private final List<String> strValues = new CopyOnWriteArrayList<>();
+
+        public TestDiskCacheRegistry() {
+            super(_TestOperationDescription.class, new OperationDescriptionTransformer(), new SimpleResolver(properties));
+        }
+
+        @Override
+        public TestOperationDescription transformDescription(_TestOperationDescription rawDescription) {
+            if (rawDescription instanceof SimpleOperationDescription) {
+                _OperationConfig operationConfig = ((SimpleOperationDescription) rawDescription).getOperationConfig();
+                intValues.add(operationConfig.getIntValue());
+                strValues.add(operationConfig.getStrValue());
+            }
+            return super.transformDescription(rawDescription);
+        }
+    }
+}
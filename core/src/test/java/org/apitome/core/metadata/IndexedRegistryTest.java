@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.metadata;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.apitome.core.error.ConfigurationException;
+import org.apitome.core.expression.Resolver;
+import org.apitome.core.expression.SimpleResolver;
+import org.apitome.core.model.SimpleOperationDescription;
+import org.apitome.core.model.TestOperationDescription;
+import org.apitome.core.model._TestOperationDescription;
+import org.apitome.core.template.BinaryTemplate;
+import org.apitome.core.template.Template;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IndexedRegistryTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Properties properties;
+
+    private IndexedRegistry<TestOperationDescription, _TestOperationDescription, OperationDescriptionTransformer> registry;
+
+    @BeforeEach
+    public void setup() {
+        this.properties = new Properties();
+        this.registry = new TestIndexedRegistry(new SimpleResolver(properties));
+    }
+
+    @Test
+    public void testGetDescription() {
+        // the index is generated by the build from the test descriptions
+        registry.processIndex("test/operation.idx");
+        assertEquals(3, registry.getDescriptionNames().size());
+        assertNotNull(registry.getDescription("testoperationA"));
+        assertNotNull(registry.getDescription("testoperationB"));
+        assertNotNull(registry.getDescription("testoperationC"));
+        assertNull(registry.getDescription("notfound"));
+    }
+
+    @Test
+    public void testWriteResolvesBuildTimeProperties() throws IOException {
+        Properties buildProperties = new Properties();
+        buildProperties.setProperty("propertyOne", "test");
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        RegistryIndex.write("template/simple-template.json", buildProperties, outputStream);
+        RegistryIndex index = RegistryIndex.read(ByteBuffer.wrap(outputStream.toByteArray()));
+        assertEquals(1, index.size());
+        // expressions left for runtime sit in string values, so the template is stored parsed
+        assertEquals(List.of("simple-template.smile"), index.getTemplateNames());
+        Template template = index.getTemplate("simple-template.smile");
+        assertTrue(template instanceof BinaryTemplate);
+        JsonNode tree = new ObjectMapper(new SmileFactory()).readTree(((BinaryTemplate) template).getContent());
+        assertEquals("test", tree.get("type").textValue());
+        assertEquals("#{propertyTwo}", tree.get("operationConfig").get("strValue").textValue());
+    }
+
+    @Test
+    public void testIndexedTreeResolvesDeferredExpressions() throws IOException {
+        Path templatePath = tempDir.resolve("deferred.json");
+        Files.writeString(templatePath, "{\"type\": \"${propertyOne}\", \"operationConfig\": {\"intValue\": 3, "
+                + "\"strValue\": \"#{propertyTwo}\"}}");
+        Path indexPath = tempDir.resolve("deferred.idx");
+        Properties buildProperties = new Properties();
+        buildProperties.setProperty("propertyOne", "simple");
+        try (OutputStream outputStream = Files.newOutputStream(indexPath)) {
+            RegistryIndex.write(templatePath.toUri().toString(), buildProperties, outputStream);
+        }
+        properties.put("propertyTwo", "runtime");
+        registry.processIndex(indexPath.toUri().toString());
+        assertNotNull(registry.getDescription("deferred"));
+        SimpleOperationDescription rawDescription = (SimpleOperationDescription)
+                registry.getRawDescriptionAsBinary(registry.getTemplate("deferred"), registry.smileMapper);
+        assertEquals("simple", rawDescription.getType());
+        assertEquals("runtime", rawDescription.getOperationConfig().getStrValue());
+    }
+
+    @Test
+    public void testWriteKeepsTextWithExpressionsOutsideStrings() throws IOException {
+        Path templatePath = tempDir.resolve("unquoted.json");
+        Files.writeString(templatePath, "{\"type\": \"simple\", \"operationConfig\": {\"intValue\": ${count}}}");
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        RegistryIndex.write(templatePath.toUri().toString(), new Properties(), outputStream);
+        RegistryIndex index = RegistryIndex.read(ByteBuffer.wrap(outputStream.toByteArray()));
+        assertEquals(List.of("unquoted.json"), index.getTemplateNames());
+        properties.put("count", 5);
+        assertTrue(index.getTemplate("unquoted.json").resolve(new SimpleResolver(properties)).contains("\"intValue\": 5"));
+    }
+
+    @Test
+    public void testWriteRejectsBuildPropertyHoldingExpression() {
+        Properties buildProperties = new Properties();
+        buildProperties.setProperty("propertyOne", "#{propertyTwo}");
+        assertThrows(ConfigurationException.class, () -> RegistryIndex.write("template/simple-template.json",
+                buildProperties, new ByteArrayOutputStream()));
+    }
+
+    public class TestIndexedRegistry extends IndexedRegistry<TestOperationDescription, _TestOperationDescription, OperationDescriptionTransformer> {
+
+        public TestIndexedRegistry(Resolver resolver) {
+            super(_TestOperationDescription.class, new OperationDescriptionTransformer(), resolver);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.metadata;
+
+import org.apitome.core.expression.SimpleResolver;
+import org.apitome.core.model.TestOperationDescription;
+import org.apitome.core.model._TestOperationDescription;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ReactiveRegistryTest {
+
+    private CachedRegistry<TestOperationDescription, _TestOperationDescription, OperationDescriptionTransformer> registry;
+
+    private ReactiveRegistry<TestOperationDescription> reactiveRegistry;
+
+    @BeforeEach
+    public void setup() {
+        this.registry = new CachedRegistry<>(_TestOperationDescription.class, new OperationDescriptionTransformer(),
+                new SimpleResolver(new Properties()));
+        registry.processResources("test/operation/*.*");
+        this.reactiveRegistry = new ReactiveRegistry<>(registry);
+    }
+
+    @Test
+    public void testHitCompletesOnSubscribingThread() {
+        registry.getDescription("testoperationA");
+        assertTrue(registry.getDescriptionAsync("testoperationA").isDone());
+        Thread subscriber = Thread.currentThread();
+        StepVerifier.create(reactiveRegistry.getDescription("testoperationA").map(d -> Thread.currentThread()))
+                .expectNext(subscriber)
+                .verifyComplete();
+    }
+
+    @Test
+    public void testMissCompletesOnLoaderThread() {
+        // delay the load so that it cannot complete on the shared loader threads before the subscription
+        Executor loaderExecutor = CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS,
+                CachedRegistry.getDefaultLoaderExecutor());
+        CachedRegistry<TestOperationDescription, _TestOperationDescription, OperationDescriptionTransformer> delayedRegistry =
+                new CachedRegistry<>(_TestOperationDescription.class, new OperationDescriptionTransformer(),
+                        new SimpleResolver(new Properties()), loaderExecutor);
+        delayedRegistry.processResources("test/operation/*.*");
+        ReactiveRegistry<TestOperationDescription> reactiveRegistry = new ReactiveRegistry<>(delayedRegistry);
+        StepVerifier.create(reactiveRegistry.getDescription("testoperationB").map(d -> Thread.currentThread().getName()))
+                .assertNext(name -> assertTrue(name.startsWith("loader-thread-"), name))
+                .verifyComplete();
+    }
+
+    @Test
+    public void testNotFoundCompletesEmpty() {
+        StepVerifier.create(reactiveRegistry.getDescription("notfound"))
+                .verifyComplete();
+    }
+
+    @Test
+    public void testSimpleRegistryCompletesImmediately() {
+        SimpleRegistry<TestOperationDescription, _TestOperationDescription, OperationDescriptionTransformer> simpleRegistry =
+                new SimpleRegistry<>(_TestOperationDescription.class, new OperationDescriptionTransformer(),
+                        new SimpleResolver(new Properties()));
+        simpleRegistry.processResources("test/operation/*");
+        StepVerifier.create(new ReactiveRegistry<>(simpleRegistry).getDescription("testoperationA"))
+                .expectNextCount(1)
+                .verifyComplete();
+    }
+
+    @Test
+    public void testSaturatedLoaderRejects() throws Exception {
+        ExecutorService loaderExecutor = CachedRegistry.newLoaderExecutor(1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            CachedRegistry<TestOperationDescription, _TestOperationDescription, OperationDescriptionTransformer> boundedRegistry =
+                    new CachedRegistry<>(_TestOperationDescription.class, new OperationDescriptionTransformer(),
+                            new SimpleResolver(new Properties()), loaderExecutor);
+            boundedRegistry.processResources("test/operation/*.*");
+            loaderExecutor.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            CompletableFuture<TestOperationDescription> queued = boundedRegistry.getDescriptionAsync("testoperationA");
+            CompletableFuture<TestOperationDescription> rejected = boundedRegistry.getDescriptionAsync("testoperationB");
+            ExecutionException e = assertThrows(ExecutionException.class, () -> rejected.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(RejectedExecutionException.class, e.getCause());
+            release.countDown();
+            assertEquals(boundedRegistry.getDescription("testoperationA"), queued.get(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            loaderExecutor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.metadata;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.apitome.core.model._TestOperationDescription;
+
+import java.io.IOException;
+
+import static com.fasterxml.jackson.databind.MapperFeature.ACCEPT_CASE_INSENSITIVE_VALUES;
+
+/**
+ * Compares the binding of raw descriptions through {@code ObjectMapper.readValue(String, Class)}, the path
+ * registries used before readers were pre-bound, with pre-bound readers with and without Blackbird.
+ * <p/>
+ * This is not a test; run its main method from the test classpath. Arguments: the number of iterations
+ * per round (default 200000) and the number of rounds (default 5).
+ */
+public class RegistryBindingBenchmark {
+
+    private static final String DESCRIPTION = "{ \"type\": \"simple\", \"operationConfig\": "
+            + "{ \"intValue\": 3, \"strValue\": \"yyyyy\" } }";
+
+    private static volatile Object sink;
+
+    public static void main(String[] args) throws IOException {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        ObjectMapper mapper = createMapper(false);
+        ObjectReader reader = createMapper(false).readerFor(_TestOperationDescription.class);
+        ObjectReader acceleratedReader = createMapper(true).readerFor(_TestOperationDescription.class);
+        for (int round = 1; round <= rounds; round++) {
+            long mapperTime = time(iterations, () -> mapper.readValue(DESCRIPTION, _TestOperationDescription.class));
+            long readerTime = time(iterations, () -> reader.readValue(DESCRIPTION));
+            long acceleratedTime = time(iterations, () -> acceleratedReader.readValue(DESCRIPTION));
+            System.out.printf("round %d: readValue %d ns/op, reader %d ns/op, reader+blackbird %d ns/op%n", round,
+                    mapperTime / iterations, readerTime / iterations, acceleratedTime / iterations);
+        }
+    }
+
+    private static ObjectMapper createMapper(boolean acceleratedBinding) {
+        JsonMapper.Builder builder = JsonMapper.builder()
+                .configure(ACCEPT_CASE_INSENSITIVE_VALUES, true);
+        if (acceleratedBinding) {
+            builder.addModule(new BlackbirdModule());
+        }
+        return builder.build();
+    }
+
+    private static long time(int iterations, Binding binding) throws IOException {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink = binding.bind();
+        }
+        return System.nanoTime() - start;
+    }
+
+    @FunctionalInterface
+    private interface Binding {
+
+        Object bind() throws IOException;
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.metadata;
+
+import org.apitome.core.expression.SimpleResolver;
+import org.apitome.core.model.TestOperationDescription;
+import org.apitome.core.model._TestOperationDescription;
+import org.apitome.core.template.Template;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+public class RegistryPrewarmerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path accessCountsPath;
+
+    private TestCachedRegistry registry;
+
+    @BeforeEach
+    public void setup() {
+        this.accessCountsPath = tempDir.resolve("access-counts.properties");
+        this.registry = new TestCachedRegistry();
+        registry.processResources("test/operation/*.*");
+    }
+
+    @Test
+    public void testPrewarmMostRequestedFirst() throws Exception {
+        Files.writeString(accessCountsPath, "testoperationb=10\ntestoperationa=5\n");
+        RegistryPrewarmer prewarmer = new RegistryPrewarmer(registry, accessCountsPath, Runnable::run, () -> false);
+        int count = prewarmer.start().get(5, TimeUnit.SECONDS);
+        assertEquals(3, count);
+        assertEquals(Arrays.asList("testoperationb", "testoperationa", "testoperationc"), registry.processed);
+        assertEquals(0, registry.getStats().getMissCount());
+        assertEquals(3, registry.getStats().getDescriptionCount());
+    }
+
+    @Test
+    public void testPrewarmPausesWhenBusy() throws Exception {
+        RegistryPrewarmer prewarmer = new RegistryPrewarmer(registry, accessCountsPath, Runnable::run, () -> true,
+                Duration.ofMillis(10));
+        CompletableFuture<Integer> future = prewarmer.start();
+        assertFalse(future.isDone());
+        prewarmer.stop();
+        assertEquals(0, future.get(5, TimeUnit.SECONDS));
+        assertEquals(0, registry.processed.size());
+    }
+
+    @Test
+    public void testPrewarmResumesWhenNoLongerBusy() throws Exception {
+        AtomicInteger checks = new AtomicInteger();
+        RegistryPrewarmer prewarmer = new RegistryPrewarmer(registry, accessCountsPath, Runnable::run,
+                () -> checks.incrementAndGet() == 2, Duration.ofMillis(10));
+        int count = prewarmer.start().get(5, TimeUnit.SECONDS);
+        assertEquals(3, count);
+        assertEquals(3, registry.processed.size());
+    }
+
+    @Test
+    public void testBusySignalAfterResumeOnNewThread() throws Exception {
+        // prewarming used a second of CPU on its first thread and nothing else ran
+        long second = TimeUnit.SECONDS.toNanos(1);
+        RegistryPrewarmer.ProcessBusySignal busySignal = new RegistryPrewarmer.ProcessBusySignal() {
+            @Override
+            long getProcessCpuTime() {
+                return second;
+            }
+
+            @Override
+            long getThreadCpuTime() {
+                return Thread.currentThread().getName().equals("prewarm-thread-1") ? second : 0;
+            }
+        };
+        RegistryPrewarmer.PrewarmExecutor executor = new RegistryPrewarmer.PrewarmExecutor();
+        CompletableFuture<Boolean> beforePause = new CompletableFuture<>();
+        executor.execute(() -> beforePause.complete(busySignal.getAsBoolean()));
+        assertFalse(beforePause.get(5, TimeUnit.SECONDS));
+        // resuming runs on a new thread, whose CPU time must not be compared with the first one's
+        CompletableFuture<Boolean> afterResume = new CompletableFuture<>();
+        executor.execute(() -> afterResume.complete(busySignal.getAsBoolean()));
+        assertFalse(afterResume.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testSaveAccessCounts() {
+        registry.getDescription("testoperationA");
+        registry.getDescription("testOperationA");
+        registry.getDescription("testoperationC");
+        registry.getDescription("notfound");
+        RegistryPrewarmer prewarmer = new RegistryPrewarmer(registry, accessCountsPath, Runnable::run, () -> false);
+        prewarmer.saveAccessCounts();
+        Map<String, Long> accessCounts = prewarmer.loadAccessCounts();
+        assertEquals(2, accessCounts.size());
+        assertEquals(2L, accessCounts.get("testoperationa"));
+        assertEquals(1L, accessCounts.get("testoperationc"));
+        // saving again in the same run only adds the new accesses
+        prewarmer.saveAccessCounts();
+        registry.getDescription("testoperationA");
+        prewarmer.saveAccessCounts();
+        accessCounts = prewarmer.loadAccessCounts();
+        assertEquals(3L, accessCounts.get("testoperationa"));
+        assertEquals(1L, accessCounts.get("testoperationc"));
+        // counts saved by a previous run decay
+        TestCachedRegistry nextRegistry = new TestCachedRegistry();
+        nextRegistry.processResources("test/operation/*.*");
+        nextRegistry.getDescription("testoperationC");
+        new RegistryPrewarmer(nextRegistry, accessCountsPath, Runnable::run, () -> false).saveAccessCounts();
+        accessCounts = prewarmer.loadAccessCounts();
+        assertEquals(1L, accessCounts.get("testoperationa"));
+        assertEquals(1L, accessCounts.get("testoperationc"));
+    }
+
+    public static class TestCachedRegistry extends CachedRegistry<TestOperationDescription, _TestOperationDescription, OperationDescriptionTransformer> {
+
+        private final List<String> processed = new ArrayList<>();
+
+        public TestCachedRegistry() {
+            super(_TestOperationDescription.class, new OperationDescriptionTransformer(), new SimpleResolver(new Properties()));
+        }
+
+        @Override
+        protected TestOperationDescription processTemplate(Template template) {
+            processed.add(getTemplateName(template.getName()).toLowerCase());
+            return super.processTemplate(template);
+        }
+    }
+}
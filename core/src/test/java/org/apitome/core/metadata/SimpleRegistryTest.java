@@ -16,16 +16,39 @@
 
 package org.apitome.core.metadata;
 
+import org.apitome.core.error.ConfigurationException;
 import org.apitome.core.expression.SimpleResolver;
 import org.apitome.core.expression.Resolver;
+import org.apitome.core.model.ComplexOperationDescription;
+import org.apitome.core.model.SimpleOperationDescription;
 import org.apitome.core.model.TestOperationDescription;
+import org.apitome.core.model._OperationConfig;
 import org.apitome.core.model._TestOperationDescription;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class SimpleRegistryTest {
 
@@ -46,10 +69,177 @@ public class SimpleRegistryTest {
         assertNotNull(result);
     }
 
+    @Test
+    public void testGetDescriptionWithAcceleratedBinding() {
+        SimpleRegistry<TestOperationDescription, _TestOperationDescription, OperationDescriptionTransformer> acceleratedRegistry =
+                new TestSimpleRegistry(new SimpleResolver(properties), true);
+        acceleratedRegistry.processResources("test/operation/*");
+        assertNotNull(acceleratedRegistry.getDescription("testoperationA"));
+        assertNotNull(acceleratedRegistry.getDescription("testoperationB"));
+        assertNotNull(acceleratedRegistry.getDescription("testoperationC"));
+    }
+
+    @Test
+    public void testIdenticalContentSharesDescription() {
+        properties.setProperty("intProperty", "3");
+        properties.setProperty("otherProperty", "4");
+        registry.processResources("test/dedup/*");
+        TestOperationDescription resultA = registry.getDescription("tenantA");
+        assertNotNull(resultA);
+        assertSame(resultA, registry.getDescription("tenantB"));
+        assertNotSame(resultA, registry.getDescription("tenantC"));
+        assertEquals(2, registry.getDistinctDescriptionCount());
+    }
+
+    @Test
+    public void testIdenticalResolvedContentSharesDescription() {
+        properties.setProperty("intProperty", "3");
+        properties.setProperty("otherProperty", "3");
+        registry.processResources("test/dedup/*");
+        assertSame(registry.getDescription("tenantA"), registry.getDescription("tenantC"));
+        assertEquals(1, registry.getDistinctDescriptionCount());
+    }
+
+    @Test
+    public void testIncludeFragments() {
+        properties.setProperty("strProperty", "tenant");
+        TestSimpleRegistry testRegistry = new TestSimpleRegistry(new SimpleResolver(properties));
+        testRegistry.processFragments("test/fragment/*");
+        assertEquals(new HashSet<>(Arrays.asList("baseconfig", "tenantconfig")), testRegistry.getFragmentNames());
+        testRegistry.processResources("test/include/*");
+        assertNotNull(testRegistry.getDescription("includingA"));
+        assertNotNull(testRegistry.getDescription("includingB"));
+        Map<Integer, String> configs = new HashMap<>();
+        testRegistry.operationConfigs.forEach(config -> configs.put(config.getIntValue(), config.getStrValue()));
+        // includingA: tenantConfig overrides the value of baseConfig; includingB overrides baseConfig itself
+        assertEquals(Map.of(8, "tenant", 9, "shared"), configs);
+    }
+
+    @Test
+    public void testIncludeMissingFragment() {
+        assertThrows(ConfigurationException.class, () -> registry.processResources("test/include/*"));
+    }
+
+    @Test
+    public void testIncludeCycle() {
+        assertThrows(ConfigurationException.class, () -> registry.processFragments("test/fragment-cycle/*"));
+    }
+
+    @Test
+    public void testConcurrentProcessingWithTransformerFactory() {
+        AtomicInteger created = new AtomicInteger();
+        AtomicBoolean shared = new AtomicBoolean();
+        TransformerFactory<OperationDescriptionTransformer> transformerFactory = () -> {
+            created.incrementAndGet();
+            return new ThreadConfinedTransformer(shared);
+        };
+        SimpleRegistry<TestOperationDescription, _TestOperationDescription, OperationDescriptionTransformer> concurrentRegistry =
+                new SimpleRegistry<>(_TestOperationDescription.class, transformerFactory, new SimpleResolver(properties));
+        concurrentRegistry.setConcurrency(4);
+        concurrentRegistry.processResources("test/operation/*");
+        assertNotNull(concurrentRegistry.getDescription("testoperationA"));
+        assertNotNull(concurrentRegistry.getDescription("testoperationB"));
+        assertNotNull(concurrentRegistry.getDescription("testoperationC"));
+        assertTrue(created.get() >= 1 && created.get() <= 3, String.valueOf(created.get()));
+        assertFalse(shared.get());
+    }
+
+    @Test
+    public void testTransformDescriptionsKeepsOrder() {
+        Map<_TestOperationDescription, TestOperationDescription> transformed = new ConcurrentHashMap<>();
+        SimpleRegistry<TestOperationDescription, _TestOperationDescription, OperationDescriptionTransformer> concurrentRegistry =
+                new SimpleRegistry<>(_TestOperationDescription.class, new OperationDescriptionTransformer() {
+                    @Override
+                    public TestOperationDescription transform(SimpleOperationDescription transformable) {
+                        TestOperationDescription description = super.transform(transformable);
+                        transformed.put(transformable, description);
+                        return description;
+                    }
+                }, new SimpleResolver(properties));
+        concurrentRegistry.setConcurrency(4);
+        List<_TestOperationDescription> rawDescriptions = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            rawDescriptions.add(new SimpleOperationDescription());
+        }
+        List<TestOperationDescription> descriptions = concurrentRegistry.transformDescriptions(rawDescriptions);
+        assertEquals(100, descriptions.size());
+        for (int i = 0; i < 100; i++) {
+            assertSame(transformed.get(rawDescriptions.get(i)), descriptions.get(i));
+        }
+    }
+
+    @Test
+    public void testBatchesReuseThePool() {
+        Set<ForkJoinPool> pools = ConcurrentHashMap.newKeySet();
+        SimpleRegistry<TestOperationDescription, _TestOperationDescription, OperationDescriptionTransformer> concurrentRegistry =
+                new SimpleRegistry<>(_TestOperationDescription.class, new OperationDescriptionTransformer() {
+                    @Override
+                    public TestOperationDescription transform(SimpleOperationDescription transformable) {
+                        if (Thread.currentThread() instanceof ForkJoinWorkerThread) {
+                            pools.add(((ForkJoinWorkerThread) Thread.currentThread()).getPool());
+                        }
+                        return super.transform(transformable);
+                    }
+                }, new SimpleResolver(properties));
+        concurrentRegistry.setConcurrency(4);
+        List<_TestOperationDescription> rawDescriptions = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            rawDescriptions.add(new SimpleOperationDescription());
+        }
+        concurrentRegistry.transformDescriptions(rawDescriptions);
+        concurrentRegistry.transformDescriptions(rawDescriptions);
+        assertEquals(1, pools.size());
+    }
+
+    public static class ThreadConfinedTransformer extends OperationDescriptionTransformer {
+
+        private final AtomicBoolean shared;
+
+        private Thread owner;
+
+        public ThreadConfinedTransformer(AtomicBoolean shared) {
+            this.shared = shared;
+        }
+
+        @Override
+        public TestOperationDescription transform(SimpleOperationDescription transformable) {
+            checkOwner();
+            return super.transform(transformable);
+        }
+
+        @Override
+        public TestOperationDescription transform(ComplexOperationDescription transformable) {
+            checkOwner();
+            return super.transform(transformable);
+        }
+
+        private void checkOwner() {
+            if (owner == null) {
+                owner = Thread.currentThread();
+            } else if (owner != Thread.currentThread()) {
+                shared.set(true);
+            }
+        }
+    }
+
     public class TestSimpleRegistry extends SimpleRegistry<TestOperationDescription, _TestOperationDescription, OperationDescriptionTransformer> {
 
+        private final List<_OperationConfig> operationConfigs = new CopyOnWriteArrayList<>();
+
         public TestSimpleRegistry(Resolver resolver) {
             super(_TestOperationDescription.class, new OperationDescriptionTransformer(), resolver);
         }
+
+        public TestSimpleRegistry(Resolver resolver, boolean acceleratedBinding) {
+            super(_TestOperationDescription.class, new OperationDescriptionTransformer(), resolver, acceleratedBinding);
+        }
+
+        @Override
+        public TestOperationDescription transformDescription(_TestOperationDescription rawDescription) {
+            if (rawDescription instanceof SimpleOperationDescription) {
+                operationConfigs.add(((SimpleOperationDescription) rawDescription).getOperationConfig());
+            }
+            return super.transformDescription(rawDescription);
+        }
     }
 }
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.metadata;
+
+import org.apitome.core.metrics.RegistryMetrics;
+import org.apitome.core.template.Template;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SizedInputSpliteratorTest {
+
+    private static final String TEST_JSON = "{ \"field\": \"value\" }";
+
+    @Test
+    public void testSplitByLength() {
+        List<TemplateInput> inputs = new ArrayList<>();
+        inputs.add(createInput("large.json", 1000));
+        for (int i = 0; i < 10; i++) {
+            inputs.add(createInput("small" + i + ".json", 100));
+        }
+        SizedInputSpliterator spliterator = new SizedInputSpliterator(inputs, 100, RegistryMetrics.NOOP);
+        assertEquals(11, spliterator.estimateSize());
+        SizedInputSpliterator prefix = (SizedInputSpliterator) spliterator.trySplit();
+        assertNotNull(prefix);
+        // the large input is balanced against all the small ones
+        assertEquals(1, prefix.estimateSize());
+        assertEquals(1000, prefix.getLength());
+        assertEquals(10, spliterator.estimateSize());
+        assertEquals(1000, spliterator.getLength());
+        assertNull(prefix.trySplit());
+    }
+
+    @Test
+    public void testMinimumPartitionLength() {
+        List<TemplateInput> inputs = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            inputs.add(createInput("small" + i + ".json", 100));
+        }
+        assertNull(new SizedInputSpliterator(inputs, 600, RegistryMetrics.NOOP).trySplit());
+        Spliterator<Template> prefix = new SizedInputSpliterator(inputs, 500, RegistryMetrics.NOOP).trySplit();
+        assertEquals(5, prefix.estimateSize());
+    }
+
+    @Test
+    public void testMaxPartitions() {
+        List<TemplateInput> inputs = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            inputs.add(createInput("small" + i + ".json", 100));
+        }
+        assertNull(new SizedInputSpliterator(inputs, 1, 1, RegistryMetrics.NOOP).trySplit());
+        List<Spliterator<Template>> partitions = new ArrayList<>();
+        partitions.add(new SizedInputSpliterator(inputs, 1, 3, RegistryMetrics.NOOP));
+        for (int i = 0; i < partitions.size(); i++) {
+            Spliterator<Template> prefix;
+            while ((prefix = partitions.get(i).trySplit()) != null) {
+                partitions.add(prefix);
+            }
+        }
+        assertEquals(3, partitions.size());
+    }
+
+    @Test
+    public void testUnknownLength() {
+        List<TemplateInput> inputs = new ArrayList<>();
+        inputs.add(createInput("known.json", 300));
+        inputs.add(new TemplateInput("unknown1.json", new ByteArrayInputStream(TEST_JSON.getBytes())));
+        inputs.add(new TemplateInput("unknown2.json", new ByteArrayInputStream(TEST_JSON.getBytes())));
+        SizedInputSpliterator spliterator = new SizedInputSpliterator(inputs, 1, RegistryMetrics.NOOP);
+        assertEquals(900, spliterator.getLength());
+    }
+
+    @Test
+    public void testParallelStreamKeepsOrder() {
+        List<TemplateInput> inputs = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 301; i++) {
+            names.add("input" + i + ".json");
+            inputs.add(createInput(names.get(i), i % 7 == 0 ? 5000 : 50));
+        }
+        SizedInputSpliterator spliterator = new SizedInputSpliterator(inputs, 100, RegistryMetrics.NOOP);
+        assertTrue(spliterator.hasCharacteristics(Spliterator.ORDERED | Spliterator.IMMUTABLE | Spliterator.SIZED));
+        List<String> result = StreamSupport.stream(spliterator, true)
+                .map(Template::getName)
+                .collect(Collectors.toList());
+        assertEquals(names, result);
+    }
+
+    private static TemplateInput createInput(String name, long length) {
+        return new TemplateInput(name, new ByteArrayInputStream(TEST_JSON.getBytes()), length);
+    }
+}
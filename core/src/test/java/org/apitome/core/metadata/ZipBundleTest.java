@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.metadata;
+
+import org.apitome.core.error.ConfigurationException;
+import org.apitome.core.expression.SimpleResolver;
+import org.apitome.core.model.TestOperationDescription;
+import org.apitome.core.model._TestOperationDescription;
+import org.apitome.core.template.Template;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ZipBundleTest {
+
+    private static final List<String> TEMPLATE_NAMES =
+            Arrays.asList("testoperationA.json", "testoperationB.yaml", "testoperationC.json");
+
+    @TempDir
+    Path tempDir;
+
+    private Path bundlePath;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        this.bundlePath = tempDir.resolve("operation.zip");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(bundlePath))) {
+            out.putNextEntry(new ZipEntry("operation/"));
+            out.closeEntry();
+            for (String templateName : TEMPLATE_NAMES) {
+                out.putNextEntry(new ZipEntry("operation/" + templateName));
+                copyResource("test/operation/" + templateName, out);
+                out.closeEntry();
+            }
+        }
+    }
+
+    @Test
+    public void testOpen() {
+        try (ZipBundle bundle = ZipBundle.open(bundlePath)) {
+            assertEquals(TEMPLATE_NAMES, bundle.getTemplateNames());
+            Template template = bundle.getTemplate("testoperationB.yaml");
+            assertTrue(template.resolve(expression -> expression).contains("xxxxx"));
+            assertNull(bundle.getTemplate("notfound.json"));
+        }
+    }
+
+    @Test
+    public void testStream() throws IOException {
+        try (Stream<Template> templates = ZipBundle.stream(Files.newInputStream(bundlePath))) {
+            assertEquals(TEMPLATE_NAMES, templates.map(Template::getName).collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void testSimpleRegistryProcessBundle() {
+        SimpleRegistry<TestOperationDescription, _TestOperationDescription, OperationDescriptionTransformer> registry =
+                new SimpleRegistry<>(_TestOperationDescription.class, new OperationDescriptionTransformer(),
+                        new SimpleResolver(new Properties()));
+        registry.processBundle(bundlePath.toUri().toString());
+        assertNotNull(registry.getDescription("testoperationA"));
+        assertNotNull(registry.getDescription("testoperationB"));
+        assertNotNull(registry.getDescription("testoperationC"));
+    }
+
+    @Test
+    public void testSimpleRegistryProcessIndexBundle() {
+        SimpleRegistry<TestOperationDescription, _TestOperationDescription, OperationDescriptionTransformer> registry =
+                new SimpleRegistry<>(_TestOperationDescription.class, new OperationDescriptionTransformer(),
+                        new SimpleResolver(new Properties()));
+        registry.processBundle("test/operation.idx");
+        assertNotNull(registry.getDescription("testoperationC"));
+    }
+
+    @Test
+    public void testDuplicateTemplateNameFails() throws IOException {
+        Path duplicatePath = tempDir.resolve("duplicate.zip");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(duplicatePath))) {
+            for (String directory : Arrays.asList("a/", "b/")) {
+                out.putNextEntry(new ZipEntry(directory + "testoperationA.json"));
+                copyResource("test/operation/testoperationA.json", out);
+                out.closeEntry();
+            }
+        }
+        assertThrows(ConfigurationException.class, () -> ZipBundle.open(duplicatePath));
+        try (Stream<Template> templates = ZipBundle.stream(Files.newInputStream(duplicatePath))) {
+            assertThrows(ConfigurationException.class, () -> templates.collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void testIndexedRegistryLoadsEntriesLazily() {
+        try (IndexedRegistry<TestOperationDescription, _TestOperationDescription, OperationDescriptionTransformer> registry =
+                new IndexedRegistry<>(_TestOperationDescription.class, new OperationDescriptionTransformer(),
+                        new SimpleResolver(new Properties()))) {
+            registry.processBundle(bundlePath.toUri().toString());
+            assertEquals(3, registry.getDescriptionNames().size());
+            assertTrue(registry.templateMap.isEmpty());
+            assertNotNull(registry.getDescription("testoperationB"));
+            assertEquals(1, registry.templateMap.size());
+            assertFalse(registry.templateMap.containsKey("testoperationa"));
+        }
+    }
+
+    @Test
+    public void testIndexedRegistryCloseKeepsLoadedDescriptions() {
+        IndexedRegistry<TestOperationDescription, _TestOperationDescription, OperationDescriptionTransformer> registry =
+                new IndexedRegistry<>(_TestOperationDescription.class, new OperationDescriptionTransformer(),
+                        new SimpleResolver(new Properties()));
+        registry.processBundle(bundlePath.toUri().toString());
+        TestOperationDescription description = registry.getDescription("testoperationB");
+        registry.close();
+        assertSame(description, registry.getDescription("testoperationB"));
+    }
+
+    private static void copyResource(String name, OutputStream out) throws IOException {
+        try (InputStream in = ZipBundleTest.class.getClassLoader().getResourceAsStream(name)) {
+            in.transferTo(out);
+        }
+    }
+}
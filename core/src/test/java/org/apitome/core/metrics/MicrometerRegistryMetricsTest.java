@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2022. Fernando Fernandez.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apitome.core.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apitome.core.expression.SimpleResolver;
+import org.apitome.core.metadata.CachedRegistry;
+import org.apitome.core.metadata.OperationDescriptionTransformer;
+import org.apitome.core.model.TestOperationDescription;
+import org.apitome.core.model._TestOperationDescription;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MicrometerRegistryMetricsTest {
+
+    private MeterRegistry meterRegistry;
+
+    private CachedRegistry<TestOperationDescription, _TestOperationDescription, OperationDescriptionTransformer> registry;
+
+    @BeforeEach
+    public void setup() {
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.registry = new CachedRegistry<>(_TestOperationDescription.class, new OperationDescriptionTransformer(),
+                new SimpleResolver(new Properties()));
+        registry.setMetrics(new MicrometerRegistryMetrics(meterRegistry));
+        registry.processResources("test/operation/*.*");
+    }
+
+    @Test
+    public void testLookupCounters() {
+        assertNotNull(registry.getDescription("testoperationA"));
+        assertNotNull(registry.getDescription("testoperationA"));
+        registry.getDescription("notfound");
+        assertEquals(1.0, meterRegistry.get("apitome.registry.lookup").tag("result", "hit").counter().count());
+        assertEquals(2.0, meterRegistry.get("apitome.registry.lookup").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    public void testStageTimers() {
+        registry.getDescription("testoperationA");
+        for (RegistryStage stage : RegistryStage.values()) {
+            Timer timer = meterRegistry.get("apitome.registry.stage").tag("stage", stage.getName()).timer();
+            assertTrue(timer.count() >= 1, stage.getName());
+        }
+        assertTrue(meterRegistry.find("apitome.registry.template.stage").meters().isEmpty());
+    }
+
+    @Test
+    public void testTemplateTimers() {
+        MeterRegistry templateMeterRegistry = new SimpleMeterRegistry();
+        registry.setMetrics(new MicrometerRegistryMetrics(templateMeterRegistry, MicrometerRegistryMetrics.DEFAULT_PREFIX,
+                Tags.empty(), true));
+        registry.getDescription("testoperationA");
+        Timer processTimer = templateMeterRegistry.get("apitome.registry.template.stage")
+                .tag("stage", RegistryStage.PROCESS.getName())
+                .tag("template", "testoperationA.json")
+                .timer();
+        assertEquals(1, processTimer.count());
+        assertEquals(0, processTimer.takeSnapshot().histogramCounts().length);
+    }
+
+    @Test
+    public void testGauges() {
+        double templates = meterRegistry.get("apitome.registry.templates").gauge().value();
+        assertTrue(templates > 0);
+        assertTrue(meterRegistry.get("apitome.registry.templates.bytes").gauge().value() > 0);
+        assertEquals(0.0, meterRegistry.get("apitome.registry.descriptions").gauge().value());
+        registry.getDescription("testoperationA");
+        assertEquals(1.0, meterRegistry.get("apitome.registry.descriptions").gauge().value());
+        // an unbounded cache has no weight to report
+        assertNull(meterRegistry.find("apitome.registry.descriptions.weight").gauge());
+    }
+
+    @Test
+    public void testWeightGaugeOfBoundedCache() throws InterruptedException {
+        MeterRegistry boundedMeterRegistry = new SimpleMeterRegistry();
+        CachedRegistry<TestOperationDescription, _TestOperationDescription, OperationDescriptionTransformer> boundedRegistry =
+                new CachedRegistry<>(_TestOperationDescription.class, new OperationDescriptionTransformer(),
+                        new SimpleResolver(new Properties()), Runnable::run, 1_000_000);
+        boundedRegistry.setMetrics(new MicrometerRegistryMetrics(boundedMeterRegistry));
+        boundedRegistry.processResources("test/operation/*.*");
+        double templateBytes = boundedMeterRegistry.get("apitome.registry.templates.bytes").gauge().value();
+        assertTrue(templateBytes > 0);
+        boundedRegistry.getDescription("testoperationA");
+        Gauge weightGauge = boundedMeterRegistry.get("apitome.registry.descriptions.weight").gauge();
+        // the cache applies writes to its policy asynchronously
+        for (int i = 0; i < 100 && weightGauge.value() == 0; i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(weightGauge.value() > 0 && weightGauge.value() < templateBytes);
+    }
+}
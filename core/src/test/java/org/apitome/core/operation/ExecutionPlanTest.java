@@ -0,0 +1,151 @@
+package org.apitome.core.operation;
+
+import org.apitome.core.action.AbstractAction;
+import org.apitome.core.action.ActionKey;
+import org.apitome.core.error.ServiceException;
+import org.apitome.core.model.Context;
+import org.apitome.core.model.TestRequest;
+import org.apitome.core.model.TestResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExecutionPlanTest extends OperationTestBase {
+
+    private static final ActionKey<Integer> LEFT = new ActionKey<>("left", Integer.class);
+
+    private static final ActionKey<Integer> RIGHT = new ActionKey<>("right", Integer.class);
+
+    private static final ActionKey<Integer> SUM = new ActionKey<>("sum", Integer.class);
+
+    private PlanOperation operation;
+
+    private CyclicBarrier barrier;
+
+    private AtomicInteger sumInvocations;
+
+    @BeforeEach
+    public void setup() {
+        this.barrier = new CyclicBarrier(2);
+        this.sumInvocations = new AtomicInteger();
+        this.operation = new PlanOperation();
+        operation.setServiceManager(serviceManager);
+        addAction(LEFT, new BarrierAction(barrier, 3));
+        addAction(RIGHT, new BarrierAction(barrier, 4));
+        addAction(SUM, new SumAction(sumInvocations));
+    }
+
+    @Test
+    public void testIndependentActionsRunConcurrently() {
+        TestResponse response = operation.execute(request, context);
+        // LEFT and RIGHT only get past the barrier when they run at the same time
+        assertEquals(7, response.getIntValue());
+        assertEquals(3, context.get(LEFT));
+        assertEquals(4, context.get(RIGHT));
+        assertEquals(1, sumInvocations.get());
+    }
+
+    @Test
+    public void testFailureShortCircuitsPlan() {
+        addAction(RIGHT, new AbstractAction<TestRequest, Integer>() {
+            @Override
+            public Integer invoke(TestRequest testRequest, Context context) {
+                throw new IllegalStateException("right failed");
+            }
+
+            @Override
+            public ServiceException handleException(Exception e) {
+                return new ServiceException(e);
+            }
+        });
+        addAction(LEFT, new BarrierAction(null, 3));
+        ServiceException result = assertException(operation, request, context, ServiceException.class);
+        assertInstanceOf(IllegalStateException.class, result.getCause());
+        assertEquals(0, sumInvocations.get());
+        assertNull(context.get(SUM));
+    }
+
+    @Test
+    public void testInvalidPlan() {
+        ExecutionPlan plan = new ExecutionPlan().add(LEFT);
+        assertThrows(IllegalArgumentException.class, () -> plan.add(LEFT));
+        assertThrows(IllegalArgumentException.class, () -> plan.add(SUM, RIGHT));
+        ExecutionPlan unknown = new ExecutionPlan().add(new ActionKey<>("unknown", String.class));
+        assertThrows(IllegalArgumentException.class, () -> operation.performPlanAsync(unknown, request, context));
+    }
+
+    private void addAction(ActionKey<Integer> actionKey, AbstractAction<TestRequest, Integer> action) {
+        action.setServiceManager(serviceManager);
+        operation.addAction(actionKey, action);
+    }
+
+    private static class PlanOperation extends TestOperation {
+
+        private final ExecutionPlan plan = new ExecutionPlan()
+                .add(LEFT)
+                .add(RIGHT)
+                .add(SUM, LEFT, RIGHT);
+
+        @Override
+        public TestResponse execute(TestRequest request, Context context) {
+            performPlan(plan, request, context);
+            TestResponse response = new TestResponse();
+            response.setIntValue(context.get(SUM));
+            return response;
+        }
+    }
+
+    private static class BarrierAction extends AbstractAction<TestRequest, Integer> {
+
+        private final CyclicBarrier barrier;
+
+        private final int value;
+
+        BarrierAction(CyclicBarrier barrier, int value) {
+            this.barrier = barrier;
+            this.value = value;
+        }
+
+        @Override
+        public Integer invoke(TestRequest testRequest, Context context) {
+            if (barrier != null) {
+                try {
+                    barrier.await(5, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return value;
+        }
+
+        @Override
+        public ServiceException handleException(Exception e) {
+            return new ServiceException(e);
+        }
+    }
+
+    private static class SumAction extends AbstractAction<TestRequest, Integer> {
+
+        private final AtomicInteger invocations;
+
+        SumAction(AtomicInteger invocations) {
+            this.invocations = invocations;
+        }
+
+        @Override
+        public Integer invoke(TestRequest testRequest, Context context) {
+            invocations.incrementAndGet();
+            return context.get(LEFT) + context.get(RIGHT);
+        }
+
+        @Override
+        public ServiceException handleException(Exception e) {
+            return new ServiceException(e);
+        }
+    }
+}
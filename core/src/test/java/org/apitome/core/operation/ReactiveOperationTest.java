@@ -0,0 +1,125 @@
+package org.apitome.core.operation;
+
+import org.apitome.core.action.AbstractAction;
+import org.apitome.core.action.ActionKey;
+import org.apitome.core.error.ServiceException;
+import org.apitome.core.model.Context;
+import org.apitome.core.model.TestRequest;
+import org.apitome.core.model.TestResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import static org.apitome.core.service.TestStringService.STRING_SERVICE;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReactiveOperationTest extends OperationTestBase {
+
+    private static final ActionKey<Integer> BLOCKING = new ActionKey<>("blocking", Integer.class);
+
+    private static final ActionKey<String> GREETING = new ActionKey<>("greeting", String.class);
+
+    private static final ActionKey<String> DELAYED = new ActionKey<>("delayed", String.class);
+
+    private static final ActionKey<String> TIMEOUT = new ActionKey<>("timeout", String.class);
+
+    private TestOperation operation;
+
+    @BeforeEach
+    public void setup() {
+        this.operation = new TestOperation() {
+            @Override
+            public TestResponse execute(TestRequest request, Context context) {
+                return null;
+            }
+        };
+        operation.setServiceManager(serviceManager);
+        addAction(BLOCKING, new OperationTest.TestActionOne());
+        addAction(GREETING, new ReactiveAction(a -> a.invokeServiceReactive(STRING_SERVICE,
+                s -> Mono.fromSupplier(() -> s.appendStrings("Hello ", "Fernando")))));
+        addAction(DELAYED, new ReactiveAction(a -> Mono.delay(Duration.ofMillis(200)).map(l -> "done")));
+        addAction(TIMEOUT, new ReactiveAction(a -> Mono.error(new TimeoutException("mock timeout"))));
+    }
+
+    @Test
+    public void testBlockingActionRunsOnExecutor() {
+        request.setIntValue(7);
+        StepVerifier.create(operation.performActionReactive(BLOCKING, request, context))
+                .expectNext(107)
+                .verifyComplete();
+    }
+
+    @Test
+    public void testReactiveServiceInvocation() {
+        StepVerifier.create(operation.performActionReactive(GREETING, request, context))
+                .expectNext("Hello Fernando")
+                .verifyComplete();
+    }
+
+    @Test
+    public void testInFlightCallsDoNotHoldThreads() {
+        // 200 calls of 200ms each would take 8 seconds on the 5 executor threads if each one held a thread
+        long start = System.currentTimeMillis();
+        Long count = Flux.range(0, 200)
+                .flatMap(i -> operation.performActionReactive(DELAYED, request, context))
+                .count()
+                .block(Duration.ofSeconds(10));
+        assertEquals(200, count);
+        assertTrue(System.currentTimeMillis() - start < 4000, "In-flight calls were serialized");
+    }
+
+    @Test
+    public void testTimeoutHandling() {
+        AtomicBoolean timeoutHandlerInvoked = new AtomicBoolean(false);
+        StepVerifier.create(operation.performActionReactive(TIMEOUT, request, context,
+                        (a, e) -> {timeoutHandlerInvoked.set(true); throw a.handleException(e);}))
+                .expectErrorSatisfies(e -> {
+                    assertInstanceOf(ServiceException.class, e);
+                    assertInstanceOf(TimeoutException.class, e.getCause());
+                })
+                .verify();
+        assertTrue(timeoutHandlerInvoked.get(), "Operation timeoutHandler not invoked");
+    }
+
+    @Test
+    public void testHandledExceptionCompletesEmpty() {
+        StepVerifier.create(operation.performActionReactive(TIMEOUT, request, context, (a, e) -> {}))
+                .verifyComplete();
+    }
+
+    private <R> void addAction(ActionKey<R> actionKey, AbstractAction<TestRequest, R> action) {
+        action.setServiceManager(serviceManager);
+        operation.addAction(actionKey, action);
+    }
+
+    private static class ReactiveAction extends AbstractAction<TestRequest, String> {
+
+        private final Function<ReactiveAction, Mono<String>> body;
+
+        ReactiveAction(Function<ReactiveAction, Mono<String>> body) {
+            this.body = body;
+        }
+
+        @Override
+        public String invoke(TestRequest testRequest, Context context) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Mono<String> invokeReactive(TestRequest testRequest, Context context) {
+            return body.apply(this);
+        }
+
+        @Override
+        public ServiceException handleException(Exception e) {
+            return new ServiceException(e);
+        }
+    }
+}
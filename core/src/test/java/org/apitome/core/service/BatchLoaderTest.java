@@ -0,0 +1,129 @@
+package org.apitome.core.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchLoaderTest {
+
+    private static final ServiceKey<LookupService> LOOKUP_SERVICE = new ServiceKey<>("lookupService", LookupService.class);
+
+    private ServiceManager serviceManager;
+
+    private LookupService lookupService;
+
+    @BeforeEach
+    public void setup() {
+        this.serviceManager = new DefaultServiceManager();
+        this.lookupService = new LookupService();
+        serviceManager.addService(LOOKUP_SERVICE, lookupService);
+    }
+
+    @Test
+    public void testKeysWithinWindowAreBatched() {
+        BatchLoader<LookupService, Integer, String> loader = newLoader(Duration.ofMillis(100), 100);
+        CompletableFuture<String> one = loader.load(1);
+        CompletableFuture<String> two = loader.load(2);
+        CompletableFuture<String> oneAgain = loader.load(1);
+        CompletableFuture<String> missing = loader.load(404);
+        assertSame(one, oneAgain);
+        assertEquals("value-1", one.join());
+        assertEquals("value-2", two.join());
+        assertNull(missing.join());
+        assertEquals(1, lookupService.batches.size());
+        assertEquals(Set.of(1, 2, 404), lookupService.batches.get(0));
+        assertEquals(1, loader.getBatchCount());
+        assertEquals(4, loader.getLoadCount());
+        assertEquals(1, loader.getDeduplicatedCount());
+    }
+
+    @Test
+    public void testFullBatchIsDispatchedImmediately() {
+        BatchLoader<LookupService, Integer, String> loader = newLoader(Duration.ofMinutes(1), 2);
+        Map<Integer, String> values = loader.loadAll(Arrays.asList(1, 2, 3, 4)).join();
+        assertEquals(4, values.size());
+        assertEquals("value-3", values.get(3));
+        assertEquals(2, lookupService.batches.size());
+        lookupService.batches.forEach(batch -> assertEquals(2, batch.size()));
+    }
+
+    @Test
+    public void testCompletedKeysAreLoadedAgain() {
+        BatchLoader<LookupService, Integer, String> loader = newLoader(Duration.ZERO, 10);
+        assertEquals("value-1", loader.load(1).join());
+        assertEquals("value-1", loader.load(1).join());
+        assertEquals(2, lookupService.batches.size());
+    }
+
+    @Test
+    public void testFailedBatchFailsEveryCaller() {
+        BatchLoader<LookupService, Integer, String> loader = newLoader(Duration.ofMillis(50), 10);
+        CompletableFuture<String> one = loader.load(-1);
+        CompletableFuture<String> two = loader.load(2);
+        CompletionException e = assertThrows(CompletionException.class, one::join);
+        assertInstanceOf(IllegalArgumentException.class, e.getCause());
+        assertThrows(CompletionException.class, two::join);
+    }
+
+    @Test
+    public void testErrorFailsEveryCaller() {
+        BatchLoader<LookupService, Integer, String> loader = newLoader(Duration.ofMillis(50), 10);
+        CompletableFuture<String> one = loader.load(-2);
+        CompletionException e = assertThrows(CompletionException.class, one::join);
+        assertInstanceOf(AssertionError.class, e.getCause());
+        // the failed key is no longer pending
+        assertNotSame(one, loader.load(-2));
+    }
+
+    @Test
+    public void testRejectedBatchFailsEveryCaller() {
+        DefaultServiceManager rejectingManager = new DefaultServiceManager(r -> {
+            throw new RejectedExecutionException("Executor is full");
+        });
+        rejectingManager.addService(LOOKUP_SERVICE, lookupService);
+        BatchLoader<LookupService, Integer, String> loader =
+                new BatchLoader<>(rejectingManager, LOOKUP_SERVICE, LookupService::lookup, Duration.ofMillis(10), 2);
+        CompletableFuture<String> scheduled = loader.load(1);
+        CompletionException e = assertThrows(CompletionException.class, scheduled::join);
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+        CompletableFuture<Map<Integer, String>> full = loader.loadAll(Arrays.asList(2, 3));
+        e = assertThrows(CompletionException.class, full::join);
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+        assertNotSame(scheduled, loader.load(1));
+        assertTrue(lookupService.batches.isEmpty());
+    }
+
+    private BatchLoader<LookupService, Integer, String> newLoader(Duration window, int maxBatchSize) {
+        return new BatchLoader<>(serviceManager, LOOKUP_SERVICE, LookupService::lookup, window, maxBatchSize);
+    }
+
+    public static class LookupService implements Service {
+
+        private final List<Set<Integer>> batches = new CopyOnWriteArrayList<>();
+
+        public Map<Integer, String> lookup(Set<Integer> ids) {
+            batches.add(Set.copyOf(ids));
+            if (ids.contains(-1)) {
+                throw new IllegalArgumentException("Negative id");
+            }
+            if (ids.contains(-2)) {
+                throw new AssertionError("Unexpected id");
+            }
+            return ids.stream()
+                    .filter(id -> id != 404)
+                    .collect(Collectors.toMap(id -> id, id -> "value-" + id));
+        }
+    }
+}
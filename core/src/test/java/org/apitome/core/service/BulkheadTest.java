@@ -0,0 +1,170 @@
+package org.apitome.core.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apitome.core.action.AbstractAction;
+import org.apitome.core.action.ActionKey;
+import org.apitome.core.action.HedgeBudget;
+import org.apitome.core.action.HedgePolicy;
+import org.apitome.core.error.BulkheadFullException;
+import org.apitome.core.error.ServiceException;
+import org.apitome.core.metrics.MicrometerActionMetrics;
+import org.apitome.core.model.Context;
+import org.apitome.core.model.OpContext;
+import org.apitome.core.model.TestRequest;
+import org.apitome.core.model.TestResponse;
+import org.apitome.core.operation.TestOperation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.apitome.core.service.TestIntegerService.INTEGER_SERVICE;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BulkheadTest {
+
+    private static final ActionKey<String> THREAD_NAME = new ActionKey<>("threadName", String.class);
+
+    private DefaultServiceManager serviceManager;
+
+    private MeterRegistry meterRegistry;
+
+    private CountDownLatch release;
+
+    @BeforeEach
+    public void setup() {
+        this.serviceManager = new DefaultServiceManager();
+        serviceManager.addService(INTEGER_SERVICE, new TestIntegerService());
+        this.meterRegistry = new SimpleMeterRegistry();
+        serviceManager.setMetrics(new MicrometerActionMetrics(meterRegistry));
+        this.release = new CountDownLatch(1);
+    }
+
+    @Test
+    public void testSemaphoreBulkheadRejectsWhenFull() throws Exception {
+        SemaphoreBulkhead bulkhead = new SemaphoreBulkhead("integerService", 1);
+        serviceManager.addBulkhead(INTEGER_SERVICE, bulkhead);
+        CompletableFuture<Integer> blocked = CompletableFuture.supplyAsync(() -> invokeBlocking(1));
+        awaitActive(bulkhead, 1);
+        assertThrows(BulkheadFullException.class, () -> invokeBlocking(2));
+        release.countDown();
+        assertEquals(101, blocked.get(2, TimeUnit.SECONDS));
+        assertEquals(0, bulkhead.getActiveCount());
+        assertEquals(1, bulkhead.getRejectedCount());
+        assertEquals(1.0, meterRegistry.get("apitome.action.rejected").tag("name", "integerService")
+                .tag("reason", "bulkhead").counter().count());
+    }
+
+    @Test
+    public void testSemaphoreBulkheadQueuesCalls() throws Exception {
+        SemaphoreBulkhead bulkhead = new SemaphoreBulkhead("integerService", 1, 1, Duration.ofSeconds(5));
+        serviceManager.addBulkhead(INTEGER_SERVICE, bulkhead);
+        CompletableFuture<Integer> first = CompletableFuture.supplyAsync(() -> invokeBlocking(1));
+        awaitActive(bulkhead, 1);
+        CompletableFuture<Integer> second = CompletableFuture.supplyAsync(() -> invokeBlocking(2));
+        for (int i = 0; i < 200 && bulkhead.getQueuedCount() == 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(1.0, meterRegistry.get("apitome.action.bulkhead.queued").tag("name", "integerService")
+                .gauge().value());
+        release.countDown();
+        assertEquals(101, first.get(2, TimeUnit.SECONDS));
+        assertEquals(102, second.get(2, TimeUnit.SECONDS));
+        assertEquals(0, bulkhead.getRejectedCount());
+    }
+
+    @Test
+    public void testExecutorBulkheadIsolatesAction() throws Exception {
+        ExecutorBulkhead bulkhead = new ExecutorBulkhead("threadName", 1, 0);
+        serviceManager.addBulkhead(THREAD_NAME, bulkhead);
+        TestOperation operation = new TestOperation() {
+            @Override
+            public TestResponse execute(TestRequest request, Context context) {
+                return null;
+            }
+        };
+        operation.setServiceManager(serviceManager);
+        ThreadNameAction action = new ThreadNameAction();
+        action.setServiceManager(serviceManager);
+        operation.addAction(THREAD_NAME, action);
+        Context context = new OpContext();
+        CompletableFuture<String> first = operation.performActionAsync(THREAD_NAME, new TestRequest(), context);
+        awaitActive(bulkhead, 1);
+        CompletableFuture<String> second = operation.performActionAsync(THREAD_NAME, new TestRequest(), context);
+        ExecutionException e = assertThrows(ExecutionException.class, () -> second.get(2, TimeUnit.SECONDS));
+        assertInstanceOf(BulkheadFullException.class, e.getCause());
+        release.countDown();
+        assertEquals("bulkhead-threadName-1", first.get(2, TimeUnit.SECONDS));
+        bulkhead.shutdown();
+    }
+
+    @Test
+    public void testExecutorBulkheadBoundsHedgedAction() throws Exception {
+        ExecutorBulkhead bulkhead = new ExecutorBulkhead("threadName", 1, 0);
+        serviceManager.addBulkhead(THREAD_NAME, bulkhead);
+        TestOperation operation = new TestOperation() {
+            @Override
+            public TestResponse execute(TestRequest request, Context context) {
+                return null;
+            }
+        };
+        operation.setServiceManager(serviceManager);
+        ThreadNameAction action = new ThreadNameAction();
+        action.setServiceManager(serviceManager);
+        operation.addAction(THREAD_NAME, action);
+        HedgePolicy hedgePolicy = HedgePolicy.fixed(Duration.ofMillis(20), new HedgeBudget(1, 10));
+        CompletableFuture<String> result =
+                operation.performActionAsync(THREAD_NAME, new TestRequest(), new OpContext(), hedgePolicy);
+        awaitActive(bulkhead, 1);
+        for (int i = 0; i < 200 && bulkhead.getRejectedCount() == 0; i++) {
+            Thread.sleep(10);
+        }
+        // The hedge is rejected by the bulkhead while the primary attempt holds its only thread
+        assertEquals(1, hedgePolicy.getHedgeCount());
+        assertEquals(1, bulkhead.getRejectedCount());
+        release.countDown();
+        assertEquals("bulkhead-threadName-1", result.get(2, TimeUnit.SECONDS));
+        bulkhead.shutdown();
+    }
+
+    private Integer invokeBlocking(int value) {
+        return serviceManager.invokeService(INTEGER_SERVICE, s -> {
+            await(release);
+            return s.sumIntegers(value, 100);
+        });
+    }
+
+    private static void awaitActive(Bulkhead bulkhead, int active) throws InterruptedException {
+        for (int i = 0; i < 200 && bulkhead.getActiveCount() < active; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(active, bulkhead.getActiveCount());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private class ThreadNameAction extends AbstractAction<TestRequest, String> {
+
+        @Override
+        public String invoke(TestRequest testRequest, Context context) {
+            await(release);
+            return Thread.currentThread().getName();
+        }
+
+        @Override
+        public ServiceException handleException(Exception e) {
+            return new ServiceException(e);
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package org.apitome.core.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apitome.core.error.CircuitOpenException;
+import org.apitome.core.metrics.MicrometerActionMetrics;
+import org.apitome.core.model.Context;
+import org.apitome.core.model.Deadline;
+import org.apitome.core.model.OpContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.apitome.core.service.TestIntegerService.INTEGER_SERVICE;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CircuitBreakerTest {
+
+    private DefaultServiceManager serviceManager;
+
+    private MeterRegistry meterRegistry;
+
+    private AtomicInteger runCount;
+
+    @BeforeEach
+    public void setup() {
+        this.serviceManager = new DefaultServiceManager();
+        serviceManager.addService(INTEGER_SERVICE, new TestIntegerService());
+        this.meterRegistry = new SimpleMeterRegistry();
+        serviceManager.setMetrics(new MicrometerActionMetrics(meterRegistry));
+        this.runCount = new AtomicInteger();
+    }
+
+    @Test
+    public void testFailureRateOpensCircuit() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("integerService", 0.5, 4, Duration.ofMinutes(1));
+        serviceManager.addCircuitBreaker(INTEGER_SERVICE, circuitBreaker);
+        assertEquals(3, succeed());
+        failCall();
+        assertEquals(3, succeed());
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        failCall();
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals(4, runCount.get());
+
+        CircuitOpenException first = assertThrows(CircuitOpenException.class, this::succeed);
+        CircuitOpenException second = assertThrows(CircuitOpenException.class, this::succeed);
+        assertSame(first, second, "Rejections allocated a new exception");
+        assertEquals(4, runCount.get(), "Command run with an open circuit");
+        assertEquals(2, circuitBreaker.getRejectedCount());
+        assertEquals(2.0, meterRegistry.get("apitome.action.rejected").tag("name", "integerService")
+                .tag("reason", "circuit").counter().count());
+        assertEquals(1.0, meterRegistry.get("apitome.action.circuit.state").tag("name", "integerService")
+                .gauge().value());
+    }
+
+    @Test
+    public void testSlidingWindowForgetsOldFailures() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("integerService", 0.5, 4, Duration.ofMinutes(1));
+        serviceManager.addCircuitBreaker(INTEGER_SERVICE, circuitBreaker);
+        failCall();
+        for (int i = 0; i < 4; i++) {
+            succeed();
+        }
+        assertEquals(0.0, circuitBreaker.getFailureRate());
+        failCall();
+        assertEquals(0.25, circuitBreaker.getFailureRate());
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void testSlowCallRateOpensCircuit() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("integerService", 1.0, 0.5, Duration.ofMillis(20), 4, 2,
+                Duration.ofMinutes(1), 1);
+        serviceManager.addCircuitBreaker(INTEGER_SERVICE, circuitBreaker);
+        succeed();
+        serviceManager.invokeService(INTEGER_SERVICE, s -> {
+            sleep(40);
+            return s.sumIntegers(1, 2);
+        });
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    public void testHalfOpenProbesCloseCircuit() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("integerService", 0.5, 1.0, Duration.ofMinutes(1), 2, 2,
+                Duration.ofMillis(50), 2);
+        serviceManager.addCircuitBreaker(INTEGER_SERVICE, circuitBreaker);
+        failCall();
+        failCall();
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        sleep(80);
+        succeed();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        succeed();
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void testHalfOpenFailureReopensCircuit() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("integerService", 0.5, 1.0, Duration.ofMinutes(1), 2, 2,
+                Duration.ofMillis(50), 2);
+        serviceManager.addCircuitBreaker(INTEGER_SERVICE, circuitBreaker);
+        failCall();
+        failCall();
+        sleep(80);
+        failCall();
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertThrows(CircuitOpenException.class, this::succeed);
+    }
+
+    @Test
+    public void testHalfOpenLimitsProbes() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("integerService", 0.5, 2, Duration.ofMillis(50));
+        failCall(circuitBreaker);
+        failCall(circuitBreaker);
+        sleep(80);
+        long permit = circuitBreaker.acquirePermission();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        assertThrows(CircuitOpenException.class, circuitBreaker::acquirePermission);
+        circuitBreaker.releasePermission(permit);
+        permit = circuitBreaker.acquirePermission();
+        circuitBreaker.onSuccess(permit, 0);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void testCallsAdmittedWhileClosedAreNotProbes() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("integerService", 0.5, 2, Duration.ofMillis(50));
+        long closedPermit = circuitBreaker.acquirePermission();
+        failCall(circuitBreaker);
+        failCall(circuitBreaker);
+        sleep(80);
+        long probePermit = circuitBreaker.acquirePermission();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        circuitBreaker.onError(closedPermit, 0, new IOException("late failure"));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        circuitBreaker.releasePermission(closedPermit);
+        assertThrows(CircuitOpenException.class, circuitBreaker::acquirePermission);
+        circuitBreaker.onSuccess(probePermit, 0);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void testOnlyMatchingExceptionsAreFailures() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("integerService", 0.5, 2, Duration.ofMinutes(1));
+        serviceManager.addCircuitBreaker(INTEGER_SERVICE, circuitBreaker);
+        for (int i = 0; i < 2; i++) {
+            assertThrows(IllegalArgumentException.class, () -> serviceManager.invokeService(INTEGER_SERVICE, s -> {
+                throw new IllegalArgumentException("bad request");
+            }));
+        }
+        assertEquals(0.0, circuitBreaker.getFailureRate());
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+        CircuitBreaker customBreaker = new CircuitBreaker("integerService", 0.5, 1.0, Duration.ofMinutes(1), 2, 2,
+                Duration.ofMinutes(1), 1, e -> e instanceof IllegalArgumentException);
+        for (int i = 0; i < 2; i++) {
+            assertThrows(IllegalArgumentException.class, () -> customBreaker.call(() -> {
+                throw new IllegalArgumentException("bad request");
+            }));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, customBreaker.getState());
+    }
+
+    @Test
+    public void testHalfOpenProbeThrowingErrorIsReported() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("integerService", 0.5, 2, Duration.ofMillis(50));
+        serviceManager.addCircuitBreaker(INTEGER_SERVICE, circuitBreaker);
+        failCall();
+        failCall();
+        sleep(80);
+        assertThrows(AssertionError.class, () -> serviceManager.invokeService(INTEGER_SERVICE, s -> {
+            throw new AssertionError("probe crashed");
+        }));
+        assertNotEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    public void testReactiveCallsUseCircuit() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("integerService", 0.5, 2, Duration.ofMinutes(1));
+        serviceManager.addCircuitBreaker(INTEGER_SERVICE, circuitBreaker);
+        StepVerifier.create(serviceManager.invokeServiceReactive(INTEGER_SERVICE,
+                        s -> Mono.just(s.sumIntegers(1, 2))))
+                .expectNext(3)
+                .verifyComplete();
+        StepVerifier.create(serviceManager.invokeServiceReactive(INTEGER_SERVICE,
+                        s -> Mono.<Integer>error(new IOException("service down"))))
+                .verifyError(IOException.class);
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        StepVerifier.create(serviceManager.invokeServiceReactive(INTEGER_SERVICE, s -> {
+                    runCount.incrementAndGet();
+                    return Mono.just(s.sumIntegers(1, 2));
+                }))
+                .verifyError(CircuitOpenException.class);
+        assertEquals(0, runCount.get(), "Command run with an open circuit");
+    }
+
+    @Test
+    public void testReactiveDeadlineTimeoutIsFailure() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("integerService", 0.5, 1, Duration.ofMinutes(1));
+        serviceManager.addCircuitBreaker(INTEGER_SERVICE, circuitBreaker);
+        Context context = new OpContext();
+        context.setDeadline(Deadline.after(Duration.ofMillis(20)));
+        StepVerifier.create(serviceManager.invokeServiceReactive(INTEGER_SERVICE, context,
+                        s -> Mono.<Integer>never()))
+                .verifyError(TimeoutException.class);
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    public void testInvalidThresholds() {
+        assertThrows(IllegalArgumentException.class, () -> new CircuitBreaker("integerService", 0, 4,
+                Duration.ofSeconds(1)));
+        assertThrows(IllegalArgumentException.class, () -> new CircuitBreaker("integerService", 0.5, 1.0,
+                Duration.ofSeconds(1), 4, 5, Duration.ofSeconds(1), 1));
+    }
+
+    private int succeed() {
+        return serviceManager.invokeService(INTEGER_SERVICE, s -> {
+            runCount.incrementAndGet();
+            return s.sumIntegers(1, 2);
+        });
+    }
+
+    private void failCall() {
+        assertThrows(UncheckedIOException.class, () -> serviceManager.invokeService(INTEGER_SERVICE, s -> {
+            runCount.incrementAndGet();
+            throw new UncheckedIOException(new IOException("service down"));
+        }));
+    }
+
+    private static void failCall(CircuitBreaker circuitBreaker) {
+        assertThrows(UncheckedIOException.class, () -> circuitBreaker.call(() -> {
+            throw new UncheckedIOException(new IOException("service down"));
+        }));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
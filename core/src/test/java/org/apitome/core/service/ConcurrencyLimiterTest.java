@@ -0,0 +1,136 @@
+package org.apitome.core.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apitome.core.error.LimitExceededException;
+import org.apitome.core.metrics.MicrometerActionMetrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.apitome.core.service.TestIntegerService.INTEGER_SERVICE;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrencyLimiterTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private DefaultServiceManager serviceManager;
+
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setup() {
+        this.serviceManager = new DefaultServiceManager();
+        serviceManager.addService(INTEGER_SERVICE, new TestIntegerService());
+        this.meterRegistry = new SimpleMeterRegistry();
+        serviceManager.setMetrics(new MicrometerActionMetrics(meterRegistry));
+    }
+
+    @Test
+    public void testAimdLimit() {
+        AimdLimit limit = new AimdLimit(10, 1, 12, Duration.ofSeconds(1));
+        limit.onSample(MILLIS, 2, false);
+        assertEquals(10, limit.getLimit(), "Unused limit grew");
+        limit.onSample(MILLIS, 10, false);
+        limit.onSample(MILLIS, 10, false);
+        limit.onSample(MILLIS, 10, false);
+        assertEquals(12, limit.getLimit());
+        limit.onSample(MILLIS, 10, true);
+        assertEquals(10, limit.getLimit());
+        limit.onSample(2000 * MILLIS, 10, false);
+        assertEquals(9, limit.getLimit());
+    }
+
+    @Test
+    public void testVegasLimit() {
+        VegasLimit limit = new VegasLimit(20, 1, 100);
+        for (int i = 0; i < 10; i++) {
+            limit.onSample(10 * MILLIS, limit.getLimit(), false);
+        }
+        int grownLimit = limit.getLimit();
+        assertTrue(grownLimit > 20, "Limit did not grow without queueing: " + grownLimit);
+        // Doubling the latency means half of the calls are queued downstream
+        for (int i = 0; i < 10; i++) {
+            limit.onSample(20 * MILLIS, limit.getLimit(), false);
+        }
+        assertTrue(limit.getLimit() < grownLimit, "Limit did not shrink with queueing: " + limit.getLimit());
+        int queuedLimit = limit.getLimit();
+        limit.onSample(10 * MILLIS, queuedLimit, true);
+        assertEquals(queuedLimit / 2, limit.getLimit());
+    }
+
+    @Test
+    public void testCallsBeyondLimitAreRejected() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("integerService", new AimdLimit(1, 1, 1,
+                Duration.ofSeconds(10)));
+        serviceManager.addLimiter(INTEGER_SERVICE, limiter);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Integer> blocked = CompletableFuture.supplyAsync(() -> serviceManager.invokeService(
+                INTEGER_SERVICE, s -> {
+                    await(release);
+                    return s.sumIntegers(1, 2);
+                }));
+        for (int i = 0; i < 200 && limiter.getInFlight() == 0; i++) {
+            Thread.sleep(10);
+        }
+        assertThrows(LimitExceededException.class, () -> serviceManager.invokeService(INTEGER_SERVICE,
+                s -> s.sumIntegers(3, 4)));
+        release.countDown();
+        assertEquals(3, blocked.get(2, TimeUnit.SECONDS));
+        assertEquals(1, limiter.getRejectedCount());
+        assertEquals(1.0, meterRegistry.get("apitome.action.limit").tag("name", "integerService").gauge().value());
+        assertEquals(0.0, meterRegistry.get("apitome.action.limit.inflight").tag("name", "integerService")
+                .gauge().value());
+    }
+
+    @Test
+    public void testQueuedCallWaitsForCapacity() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("integerService", new AimdLimit(1, 1, 1,
+                Duration.ofSeconds(10)), Duration.ofSeconds(5));
+        serviceManager.addLimiter(INTEGER_SERVICE, limiter);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Integer> blocked = CompletableFuture.supplyAsync(() -> serviceManager.invokeService(
+                INTEGER_SERVICE, s -> {
+                    await(release);
+                    return s.sumIntegers(1, 2);
+                }));
+        for (int i = 0; i < 200 && limiter.getInFlight() == 0; i++) {
+            Thread.sleep(10);
+        }
+        CompletableFuture<Integer> queued = CompletableFuture.supplyAsync(() -> serviceManager.invokeService(
+                INTEGER_SERVICE, s -> s.sumIntegers(3, 4)));
+        release.countDown();
+        assertEquals(3, blocked.get(2, TimeUnit.SECONDS));
+        assertEquals(7, queued.get(2, TimeUnit.SECONDS));
+        assertEquals(0, limiter.getRejectedCount());
+    }
+
+    @Test
+    public void testTimeoutsLowerTheLimit() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("integerService", new AimdLimit(10, 1, 100,
+                Duration.ofSeconds(10)));
+        serviceManager.addLimiter(INTEGER_SERVICE, limiter);
+        assertThrows(IllegalArgumentException.class, () -> serviceManager.invokeService(INTEGER_SERVICE, s -> {
+            throw new IllegalArgumentException("bad request");
+        }));
+        assertEquals(10, limiter.getLimit());
+        assertThrows(RuntimeException.class, () -> serviceManager.invokeService(INTEGER_SERVICE, s -> {
+            throw new RuntimeException(new SocketTimeoutException("read timed out"));
+        }));
+        assertEquals(9, limiter.getLimit());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package org.apitome.core.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.apitome.core.service.ExecutorStrategy.MODE_PROPERTY;
+import static org.apitome.core.service.ExecutorStrategy.THREADS_PROPERTY;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExecutorStrategyTest {
+
+    @Test
+    public void testDefaultIsFixedPool() {
+        ExecutorService executor = ExecutorStrategy.fromProperties(new Properties()).createExecutor();
+        try {
+            ThreadPoolExecutor pool = assertInstanceOf(ThreadPoolExecutor.class, executor);
+            assertEquals(ExecutorStrategy.DEFAULT_THREADS, pool.getMaximumPoolSize());
+            assertFalse(pool.allowsCoreThreadTimeOut());
+            String threadName = CompletableFuture.supplyAsync(() -> Thread.currentThread().getName(), executor).join();
+            assertTrue(threadName.startsWith("action-thread-"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testElasticPool() {
+        ExecutorService executor = ExecutorStrategy.fromProperties(properties("elastic", "50")).createExecutor();
+        try {
+            ThreadPoolExecutor pool = assertInstanceOf(ThreadPoolExecutor.class, executor);
+            assertEquals(50, pool.getMaximumPoolSize());
+            assertTrue(pool.allowsCoreThreadTimeOut());
+            assertEquals(0, pool.getPoolSize());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testVirtualThreads() {
+        ExecutorService executor = ExecutorStrategy.fromProperties(properties("VIRTUAL", "7")).createExecutor();
+        try {
+            if (ExecutorStrategy.isVirtualThreadSupported()) {
+                Boolean virtual = CompletableFuture.supplyAsync(this::isVirtualThread, executor).join();
+                assertTrue(virtual);
+            } else {
+                ThreadPoolExecutor pool = assertInstanceOf(ThreadPoolExecutor.class, executor);
+                assertEquals(7, pool.getMaximumPoolSize());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> ExecutorStrategy.fromProperties(properties("pooled", "5")));
+        assertThrows(IllegalArgumentException.class, () -> ExecutorStrategy.fromProperties(properties("fixed", "many")));
+        assertThrows(IllegalArgumentException.class, () -> ExecutorStrategy.fromProperties(properties("fixed", "0")));
+    }
+
+    private boolean isVirtualThread() {
+        try {
+            return (Boolean) Thread.class.getMethod("isVirtual").invoke(Thread.currentThread());
+        } catch (ReflectiveOperationException e) {
+            return false;
+        }
+    }
+
+    private static Properties properties(String mode, String threads) {
+        Properties properties = new Properties();
+        properties.setProperty(MODE_PROPERTY, mode);
+        properties.setProperty(THREADS_PROPERTY, threads);
+        return properties;
+    }
+}
@@ -5,6 +5,9 @@ import com.github.tomakehurst.wiremock.client.WireMock;
 import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
 import com.github.tomakehurst.wiremock.junit5.WireMockExtension;
 import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import org.apitome.core.error.DeadlineExceededException;
+import org.apitome.core.model.Deadline;
+import org.apitome.core.model.OpContext;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -15,8 +18,13 @@ import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
 import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 // @ExtendWith(MockitoExtension.class)
 public class SimpleServiceTest {
@@ -48,6 +56,35 @@ public class SimpleServiceTest {
                 .verifyComplete();
     }
     
+    @Test
+    public void testCallIsBoundedByDeadline() {
+        SIMPLE_SERVICE.stubFor(get("/slow").willReturn(aResponse().withFixedDelay(1000).withBody("{ body: 12 }")));
+        OpContext context = new OpContext();
+        context.setDeadline(Deadline.after(Duration.ofMillis(200)));
+        Duration timeout = simpleService.getTimeout(context);
+        assertTrue(timeout.compareTo(Duration.ofMillis(200)) <= 0);
+        Mono<String> request = simpleService.get()
+                .uri("/slow")
+                .retrieve()
+                .bodyToMono(String.class);
+
+        StepVerifier.create(simpleService.withTimeout(request, context))
+                .expectError(TimeoutException.class)
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    public void testCallIsNotMadeAfterDeadline() {
+        OpContext context = new OpContext();
+        context.setDeadline(Deadline.after(Duration.ZERO));
+        Mono<String> request = Mono.error(new IllegalStateException("Call made after the deadline"));
+
+        StepVerifier.create(simpleService.withTimeout(request, context))
+                .expectError(DeadlineExceededException.class)
+                .verify();
+        assertNull(simpleService.getTimeout(null));
+    }
+
     public static class TestClientConfig implements ClientConfig {
 
         @Override